@@ -0,0 +1,224 @@
+package com.suyos.registration.config;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Adaptive limit on the number of concurrent password-hashing requests.
+ *
+ * The limit follows an additive-increase/multiplicative-decrease (AIMD)
+ * controller driven by the latency of the hashing stage. A baseline tracks
+ * the latency of an unloaded CPU as a low percentile of the recent samples,
+ * never below a configured floor, so a few unusually fast samples cannot
+ * make every normal hash look congested; while samples stay within a
+ * tolerance of it and the limit is in use, the limit grows by about one per limit's
+ * worth of samples. Once samples exceed the tolerance, hashes are queuing
+ * for CPU and the limit is cut by the backoff ratio, at most once per
+ * observed latency so a burst of slow samples counts as one congestion
+ * signal. Requests beyond the limit are rejected immediately instead of
+ * queuing behind saturated cores.
+ *
+ * @author Joel Salazar
+ */
+@Component
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    /** Whether requests beyond the limit are rejected */
+    @Value("${app.auth.concurrency-limit.enabled:true}")
+    private boolean enabled = true;
+
+    /** Limit before the first latency samples */
+    @Value("${app.auth.concurrency-limit.initial-limit:8}")
+    private int initialLimit = 8;
+
+    /** Lowest limit the controller may set */
+    @Value("${app.auth.concurrency-limit.min-limit:1}")
+    private int minLimit = 1;
+
+    /** Highest limit the controller may set */
+    @Value("${app.auth.concurrency-limit.max-limit:64}")
+    private int maxLimit = 64;
+
+    /** Latency, as a multiple of the baseline, above which the CPU counts as saturated */
+    @Value("${app.auth.concurrency-limit.latency-tolerance:2.0}")
+    private double latencyTolerance = 2.0;
+
+    /** Factor applied to the limit on congestion */
+    @Value("${app.auth.concurrency-limit.backoff-ratio:0.9}")
+    private double backoffRatio = 0.9;
+
+    /** Number of recent samples the baseline is taken from */
+    @Value("${app.auth.concurrency-limit.baseline-window:100}")
+    private int baselineWindow = 100;
+
+    /** Percentile of the recent samples used as the baseline, between 0 and 1 */
+    @Value("${app.auth.concurrency-limit.baseline-percentile:0.1}")
+    private double baselinePercentile = 0.1;
+
+    /** Lowest baseline, in milliseconds, whatever the samples */
+    @Value("${app.auth.concurrency-limit.min-baseline-ms:10}")
+    private long minBaselineMillis = 10;
+
+    /** Number of requests currently holding a permit */
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /** Number of rejected requests */
+    private final LongAdder rejected = new LongAdder();
+
+    /** Current limit; fractional so additive increases accumulate */
+    private volatile double limit;
+
+    /** Estimated hashing latency without contention, 0 before the first sample */
+    private long baselineNanos;
+
+    /** Most recent latency samples, used as a ring */
+    private long[] samples = new long[0];
+
+    /** Scratch copy of the samples for selecting the percentile */
+    private long[] sortedSamples = new long[0];
+
+    /** Number of samples recorded, capped at the window */
+    private int sampleCount;
+
+    /** Position of the next sample in the ring */
+    private int nextSample;
+
+    /** Time of the last decrease */
+    private long lastDecreaseNanos;
+
+    /**
+     * Sets the initial limit.
+     */
+    @PostConstruct
+    public void init() {
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+        this.samples = new long[Math.max(1, baselineWindow)];
+        this.sortedSamples = new long[samples.length];
+    }
+
+    /**
+     * Takes a permit if the limit allows another concurrent request.
+     *
+     * Callers that get a permit must {@link #release()} it.
+     *
+     * @return true if a permit was taken
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            inflight.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit taken with {@link #tryAcquire()}.
+     */
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    /**
+     * Adjusts the limit to a hashing latency sample.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Sets the baseline to the configured percentile of the recent
+     *       samples, raised to the floor, so it follows changes in hardware
+     *       while a single fast outlier is outvoted.</li>
+     *   <li>On a sample above the tolerated latency, multiplies the limit
+     *       by the backoff ratio unless it was already cut within the last
+     *       sample's latency.</li>
+     *   <li>Otherwise, if at least half the limit is in use, raises the
+     *       limit by the reciprocal of the limit.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Keeps concurrent hashing near the number the CPU can serve
+     *       without queuing, so latency stays flat under floods.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param latencyNanos the duration of one password hash or verification
+     */
+    public synchronized void recordLatency(long latencyNanos) {
+        samples[nextSample] = latencyNanos;
+        nextSample = (nextSample + 1) % samples.length;
+        sampleCount = Math.min(sampleCount + 1, samples.length);
+        System.arraycopy(samples, 0, sortedSamples, 0, sampleCount);
+        Arrays.sort(sortedSamples, 0, sampleCount);
+        long percentile = sortedSamples[(int) ((sampleCount - 1) * baselinePercentile)];
+        baselineNanos = Math.max(percentile, TimeUnit.MILLISECONDS.toNanos(minBaselineMillis));
+
+        long now = System.nanoTime();
+        double current = limit;
+        if (latencyNanos > baselineNanos * latencyTolerance) {
+            if (now - lastDecreaseNanos >= latencyNanos) {
+                limit = Math.max(minLimit, current * backoffRatio);
+                lastDecreaseNanos = now;
+            }
+        } else if (inflight.get() * 2 >= current) {
+            limit = Math.min(maxLimit, current + 1 / current);
+        }
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the number of concurrent requests currently allowed
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns the number of requests holding a permit.
+     *
+     * @return the number of requests in progress
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * Registers limit, inflight and rejection metrics.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.concurrency.limit", this, limiter -> limiter.limit)
+                .description("Concurrent password-hashing requests currently allowed")
+                .register(registry);
+        Gauge.builder("auth.concurrency.inflight", inflight, AtomicInteger::get)
+                .description("Password-hashing requests in progress")
+                .register(registry);
+        FunctionCounter.builder("auth.concurrency.rejected", rejected, LongAdder::sum)
+                .description("Requests shed by the concurrency limit")
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.suyos.registration.config;
+
+import java.time.Duration;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chooses the BCrypt work factor for the hardware the application runs on.
+ *
+ * Each step of the work factor doubles the hashing time, so one timed hash
+ * at the minimum strength predicts every higher strength.
+ *
+ * @author Joel Salazar
+ */
+@Slf4j
+public final class BCryptStrengthCalibrator {
+
+    /** Password hashed while calibrating */
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    /** Number of timed hashes; the fastest one is used */
+    private static final int SAMPLES = 3;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    /**
+     * Finds the highest strength whose hash stays within a target latency.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Times a few hashes at the minimum strength after a warm-up and
+     *       keeps the fastest.</li>
+     *   <li>Doubles the predicted latency per extra strength step while it
+     *       stays within the target.</li>
+     *   <li>Never returns less than the minimum or more than the
+     *       maximum.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Makes hashing cost predictable across instance types while the
+     *       minimum keeps a security floor on slow hardware.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param minStrength the lowest acceptable strength, between 4 and 31
+     * @param maxStrength the highest acceptable strength, between 4 and 31
+     * @param targetLatency the longest a single hash should take
+     * @return the calibrated strength
+     */
+    public static int calibrate(int minStrength, int maxStrength, Duration targetLatency) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode(SAMPLE_PASSWORD);
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        long target = targetLatency.toNanos();
+        int strength = minStrength;
+        long predicted = fastest;
+        while (strength < maxStrength && predicted * 2 <= target) {
+            predicted *= 2;
+            strength++;
+        }
+        log.info("Calibrated BCrypt strength {} ({} ms per hash, target {} ms)",
+                strength, predicted / 1_000_000, targetLatency.toMillis());
+        return strength;
+    }
+
+}
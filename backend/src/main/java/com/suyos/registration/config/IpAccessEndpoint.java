@@ -0,0 +1,52 @@
+package com.suyos.registration.config;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.suyos.registration.service.IpAccessListService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Actuator endpoint for inspecting and reloading the IP access list.
+ * 
+ * {@code GET /actuator/ipaccess} lists the active rules with the number of
+ * requests each has decided, and {@code POST /actuator/ipaccess} reloads
+ * the rules file immediately. Both operations are restricted to
+ * administrators, since the list reveals which networks are blocked.
+ * 
+ * @author Joel Salazar
+ */
+@Component
+@Endpoint(id = "ipaccess")
+@RequiredArgsConstructor
+public class IpAccessEndpoint {
+
+    /** Service holding the active access rules */
+    private final IpAccessListService ipAccessListService;
+
+    /**
+     * Lists the active access rules with their match counts.
+     * 
+     * @return the active rules in file order
+     */
+    @ReadOperation
+    public List<IpAccessRule> rules() {
+        return ipAccessListService.getRules();
+    }
+
+    /**
+     * Reloads the access rules from the rules file, if one is configured.
+     * 
+     * @return the active rules after the reload
+     */
+    @WriteOperation
+    public List<IpAccessRule> reload() {
+        return ipAccessListService.reload();
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.suyos.registration.config;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+
+/**
+ * Rule allowing or denying the clients of one CIDR range.
+ *
+ * Carries a match counter that survives reloads of the rule list as long
+ * as the rule itself is unchanged.
+ *
+ * @author Joel Salazar
+ */
+@Getter
+public class IpAccessRule {
+
+    /** Action taken for matching clients */
+    private final Action action;
+
+    /** Range as written in the rules file */
+    private final String cidr;
+
+    /** Number of requests the rule has decided */
+    @JsonIgnore
+    private final LongAdder matches;
+
+    /**
+     * Creates a rule.
+     *
+     * @param action the action taken for matching clients
+     * @param cidr the range as written in the rules file
+     * @param matches the match counter, shared with the previous version of the rule
+     */
+    public IpAccessRule(Action action, String cidr, LongAdder matches) {
+        this.action = action;
+        this.cidr = cidr;
+        this.matches = matches;
+    }
+
+    /**
+     * Returns the number of requests the rule has decided.
+     *
+     * @return the match count
+     */
+    public long getHits() {
+        return matches.sum();
+    }
+
+    /**
+     * Action taken for the clients of a range.
+     */
+    public enum Action {
+        /** Let the request through */
+        ALLOW,
+        /** Reject the request */
+        DENY
+    }
+
+}
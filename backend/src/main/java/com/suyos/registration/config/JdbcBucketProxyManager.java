@@ -0,0 +1,123 @@
+package com.suyos.registration.config;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+/**
+ * Bucket4j proxy manager storing bucket state in the 'rate_limit_buckets' table.
+ * 
+ * Each operation reads the serialized state of a bucket and writes the new
+ * state back only if the row still holds what was read, retrying on
+ * conflict. Only plain SELECT, INSERT and UPDATE statements are used, so the
+ * same code runs on MySQL and H2.
+ * 
+ * @author Joel Salazar
+ */
+public class JdbcBucketProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    /** JDBC template for bucket state reads and writes */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates a proxy manager on the given JDBC template.
+     * 
+     * @param jdbcTemplate the JDBC template of the shared database
+     */
+    public JdbcBucketProxyManager(JdbcTemplate jdbcTemplate) {
+        super(ClientSideConfig.getDefault());
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                return Optional.ofNullable(jdbcTemplate.query(
+                        "SELECT state FROM rate_limit_buckets WHERE bucket_key = ?",
+                        rs -> rs.next() ? rs.getBytes(1) : null,
+                        key));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                long expiresAt = getExpiresAt(newState);
+                if (originalData == null) {
+                    try {
+                        return jdbcTemplate.update(
+                                "INSERT INTO rate_limit_buckets (bucket_key, state, expires_at) VALUES (?, ?, ?)",
+                                key, newData, expiresAt) == 1;
+                    } catch (DuplicateKeyException e) {
+                        // Another node created the bucket first
+                        return false;
+                    }
+                }
+                return jdbcTemplate.update(
+                        "UPDATE rate_limit_buckets SET state = ?, expires_at = ? WHERE bucket_key = ? AND state = ?",
+                        newData, expiresAt, key, originalData) == 1;
+            }
+        };
+    }
+
+    /**
+     * Not supported; {@link #isAsyncModeSupported()} returns false, so
+     * Bucket4j never requests asynchronous operations from this manager.
+     *
+     * @param key the bucket key
+     * @return never returns normally
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        throw new UnsupportedOperationException("Asynchronous mode is not supported");
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE bucket_key = ?", key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        removeProxy(key);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return false;
+    }
+
+    /**
+     * Deletes buckets that have been idle long enough to be fully refilled.
+     * 
+     * @param nowMillis the current time in epoch milliseconds
+     * @return the number of purged buckets
+     */
+    public int purgeExpired(long nowMillis) {
+        return jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE expires_at < ?", nowMillis);
+    }
+
+    /**
+     * Computes when a bucket state will be fully refilled.
+     * 
+     * @param state the new bucket state
+     * @return the time in epoch milliseconds after which the row can be purged
+     */
+    private static long getExpiresAt(RemoteBucketState state) {
+        long nowMillis = System.currentTimeMillis();
+        long refillNanos = state.calculateFullRefillingTime(TimeUnit.MILLISECONDS.toNanos(nowMillis));
+        return nowMillis + TimeUnit.NANOSECONDS.toMillis(refillNanos);
+    }
+
+}
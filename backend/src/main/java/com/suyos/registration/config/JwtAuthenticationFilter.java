@@ -1,17 +1,23 @@
 package com.suyos.registration.config;
 
 import java.io.IOException;
+import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.suyos.registration.model.VerifiedToken;
+import com.suyos.registration.service.ClientAddressResolver;
 import com.suyos.registration.service.JwtService;
+import com.suyos.registration.service.SessionRevocationService;
 import com.suyos.registration.service.TokenBlacklistService;
 
 import io.jsonwebtoken.JwtException;
@@ -19,6 +25,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -44,6 +51,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     /** Service for managing blacklisted JWT tokens */
     private final TokenBlacklistService tokenBlacklistService;
+    
+    /** Service for checking whether all of a user's sessions have been revoked */
+    private final SessionRevocationService sessionRevocationService;
+    
+    /** Resolver for the client address attached to the authentication */
+    private final ClientAddressResolver clientAddressResolver;
+    
+    /** Whether principals are built from token claims instead of the database */
+    @Value("${app.security.stateless-auth.enabled:false}")
+    private boolean statelessAuthEnabled;
+    
+    /** Base path of the actuator endpoints, whose callers are always loaded from the database */
+    @Value("${management.endpoints.web.base-path:/actuator}")
+    private String actuatorBasePath = "/actuator";
 
     /**
      * Processes each HTTP request to extract, validate, and apply authentication 
@@ -53,12 +74,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * <ol>
      *   <li>Extracts the JWT token from the <code>Authorization</code> header 
      *       if present.</li>
+     *   <li>Verifies the token's signature and decodes its claims exactly once 
+     *       via the {@code jwtService}, storing the resulting 
+     *       {@link VerifiedToken} as a request attribute.</li>
      *   <li>Checks whether the token is blacklisted (e.g., after a logout) using 
      *       the {@code tokenBlacklistService}.</li>
-     *   <li>Validates the token's integrity and extracts the associated user email 
-     *       via the {@code jwtService}.</li>
-     *   <li>Loads user details from the {@code UserDetailsService} and sets the 
-     *       authentication in the {@link SecurityContextHolder} if the token is valid.</li>
+     *   <li>Rejects tokens issued before the user's sessions were revoked 
+     *       (e.g., after an account lock or a log out everywhere) using the 
+     *       {@code sessionRevocationService}.</li>
+     *   <li>In stateless mode, builds the principal directly from the token's 
+     *       user ID and authorities claims, except on actuator endpoints, 
+     *       where the admin role must reflect the account's current 
+     *       state rather than a claim that lives as long as the token.</li>
+     *   <li>Otherwise, or for tokens without identity claims, loads user details 
+     *       from the {@code UserDetailsService}.</li>
+     *   <li>Sets the authentication in the {@link SecurityContextHolder} if the 
+     *       token is valid.</li>
      *   <li>Continues the filter chain by passing the request to the next filter 
      *       regardless of authentication outcome.</li>
      * </ol>
@@ -92,7 +123,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
          // Get the Authorization header from the request
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
+        final VerifiedToken verifiedToken;
 
         // Skip JWT processing if there is no Authorization header or it doesn't start with "Bearer "
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -104,30 +135,52 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7);
         
         try {
+            // Verify signature and decode claims once for the whole request
+            verifiedToken = jwtService.verifyToken(jwt);
+
             // Check if the token is blacklisted (e.g., after logout)
-            if (tokenBlacklistService.isTokenBlacklisted(jwt)) {
+            if (tokenBlacklistService.isTokenBlacklisted(verifiedToken)) {
                 log.debug("Blacklisted token attempted to be used");
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            // Extract the user email (username) from the JWT token
-            userEmail = jwtService.extractUsername(jwt);
+            // Check if all of the user's sessions were revoked after this token was issued
+            Number userId = verifiedToken.getClaim(JwtService.CLAIM_USER_ID, Number.class);
+            if (userId != null && sessionRevocationService.isRevoked(userId.longValue(), verifiedToken.getIssuedAt())) {
+                log.debug("Token issued before the user's sessions were revoked");
+                filterChain.doFilter(request, response);
+                return;
+            }
+
+            // Share the verified token with later code so it is never re-parsed
+            request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, verifiedToken);
+
+            // Extract the user email (username) from the verified token
+            String userEmail = verifiedToken.getSubject();
 
             // Proceed with validation if userEmail is found and no authentication is set in the context
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Load user details from the database
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-                // Validate the JWT token against the user details (checks signature, expiration, etc.)
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                // Build the principal from claims when possible, otherwise load it from the database
+                UserDetails userDetails = statelessAuthEnabled && !isActuatorRequest(request)
+                        ? buildUserDetailsFromClaims(verifiedToken)
+                        : null;
+                if (userDetails == null) {
+                    userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                }
+                // Match the verified token against the user details without re-parsing
+                if (jwtService.isTokenValid(verifiedToken, userDetails)) {
                     // Create an authenticated UsernamePasswordAuthenticationToken
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
                             userDetails.getAuthorities()
                     );
-                    // Attach request details (IP, session, etc.) to the authentication token
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    // Attach request details (resolved client IP, session) to the authentication token
+                    HttpSession session = request.getSession(false);
+                    authToken.setDetails(new WebAuthenticationDetails(
+                            clientAddressResolver.getClientIp(request),
+                            session != null ? session.getId() : null));
                     // Set the authentication in the Spring Security context
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
@@ -142,5 +195,48 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Pass the request to the next filter in the chain (continue processing)
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Checks whether a request targets an actuator endpoint.
+     *
+     * @param request the HTTP request
+     * @return true if the path is under the actuator base path
+     */
+    private boolean isActuatorRequest(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.equals(actuatorBasePath) || path.startsWith(actuatorBasePath + "/");
+    }
+
+    /**
+     * Builds user details from the identity claims of a verified token.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Reads the user ID and authorities claims.</li>
+     *   <li>Returns null for tokens issued without a user ID so the caller 
+     *       falls back to a database lookup.</li>
+     * </ol>
+     *
+     * <hr>
+     *
+     * @param verifiedToken the verified token
+     * @return the user details, or null if the token lacks identity claims
+     */
+    private UserDetails buildUserDetailsFromClaims(VerifiedToken verifiedToken) {
+        if (verifiedToken.getClaim(JwtService.CLAIM_USER_ID, Number.class) == null) {
+            return null;
+        }
+
+        List<?> authorities = verifiedToken.getClaim(JwtService.CLAIM_AUTHORITIES, List.class);
+        String[] authorityNames = authorities == null
+                ? new String[0]
+                : authorities.stream().map(String::valueOf).toArray(String[]::new);
+
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(verifiedToken.getSubject())
+                .password("")
+                .authorities(AuthorityUtils.createAuthorityList(authorityNames))
+                .build();
+    }
     
 }
\ No newline at end of file
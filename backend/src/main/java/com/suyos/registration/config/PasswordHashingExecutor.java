@@ -0,0 +1,552 @@
+package com.suyos.registration.config;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.suyos.registration.exception.ServiceUnavailableException;
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.util.IpAddressParser;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dedicated executor for password hashing and verification.
+ *
+ * Hashing is CPU-bound, so the pool has one thread per core by default and
+ * anything beyond that waits in a bounded queue. Tasks arriving at a full
+ * queue are rejected with a {@link ServiceUnavailableException} instead of
+ * piling up, and servlet threads and database connections are free while a
+ * hash waits or runs. Futures are completed on a separate pool, so the
+ * callers' dependent stages, which save users and write audit records,
+ * never occupy a hashing thread.
+ *
+ * The queue is split into one sub-queue per source subnet, served by
+ * deficit round robin. Every hash costs about the same, so each round
+ * hands one task to every source with waiting work, and a flooding source
+ * gets at most its fair share of the hashing threads while everyone
+ * else's tasks keep moving. Each source may also hold only a few queued
+ * tasks, so a flood is shed at its own sub-queue before it can fill the
+ * shared capacity.
+ *
+ * @author Joel Salazar
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor implements MeterBinder {
+
+    /** Number of hashing threads; 0 uses one per available processor */
+    @Value("${app.auth.hashing.threads:0}")
+    private int threads = 0;
+
+    /** Number of tasks that may wait for a hashing thread */
+    @Value("${app.auth.hashing.queue-capacity:64}")
+    private int queueCapacity = 64;
+
+    /** Number of tasks a single source may have waiting */
+    @Value("${app.auth.hashing.source-queue-capacity:8}")
+    private int sourceQueueCapacity = 8;
+
+    /** Prefix length grouping IPv4 clients into one source */
+    @Value("${app.auth.hashing.ipv4-source-prefix:24}")
+    private int ipv4SourcePrefix = 24;
+
+    /** Prefix length grouping IPv6 clients into one source */
+    @Value("${app.auth.hashing.ipv6-source-prefix:64}")
+    private int ipv6SourcePrefix = 64;
+
+    /** Number of threads completing futures and running the callers' dependent stages */
+    @Value("${app.auth.hashing.completion-threads:8}")
+    private int completionThreads = 8;
+
+    /** Delay clients are asked to wait after a rejection */
+    @Value("${app.auth.hashing.retry-after-seconds:1}")
+    private long retryAfterSeconds = 1;
+
+    /** Guards the sub-queues and the rotation */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when a task is queued or the executor shuts down */
+    private final Condition workAvailable = lock.newCondition();
+
+    /** Sub-queues of the sources with waiting tasks */
+    private final Map<SourceKey, SourceQueue> sources = new HashMap<>();
+
+    /** Sources with waiting tasks, in the order they are served */
+    private final ArrayDeque<SourceQueue> rotation = new ArrayDeque<>();
+
+    /** Number of tasks waiting across all sources */
+    private int queued;
+
+    /** Whether the executor stopped accepting tasks */
+    private boolean shutdown;
+
+    /** Number of tasks running */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /** Number of tasks rejected at a full queue */
+    private final LongAdder rejectedQueueFull = new LongAdder();
+
+    /** Number of tasks rejected at a full source sub-queue */
+    private final LongAdder rejectedSourceFull = new LongAdder();
+
+    /** Timer recording how long tasks wait for a hashing thread */
+    private Timer waitTimer;
+
+    /** Timer recording how long tasks run on a hashing thread */
+    private Timer hashTimer;
+
+    /** Summary of the depth of a source's sub-queue as tasks join it */
+    private DistributionSummary sourceDepthSummary;
+
+    /** Threads running the hashing tasks */
+    private Thread[] workers = new Thread[0];
+
+    /** Pool completing futures off the hashing threads */
+    private ExecutorService completionExecutor;
+
+    /**
+     * Starts the hashing and completion threads.
+     */
+    @PostConstruct
+    public void init() {
+        AtomicInteger completionThreadCount = new AtomicInteger();
+        this.completionExecutor = Executors.newFixedThreadPool(Math.max(1, completionThreads), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-completion-" + completionThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.workers = new Thread[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            workers[i] = new HashingThread(this::runWorker, "password-hashing-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        log.info("Started {} password hashing threads with a queue of {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Stops the hashing threads, letting queued tasks finish.
+     *
+     * Tasks finishing after the completion pool stopped complete their
+     * futures on the hashing thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (completionExecutor != null) {
+            completionExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Runs a hashing task on a hashing thread.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Groups the client into a source by its subnet.</li>
+     *   <li>Appends the task to the source's sub-queue, or fails the
+     *       returned future with a {@link ServiceUnavailableException} if
+     *       the source's sub-queue or the whole queue is full.</li>
+     *   <li>Records the time the task waited for a thread and the time it
+     *       ran.</li>
+     *   <li>Completes the future with the task's result or exception on
+     *       a completion thread, so dependent stages do not hold the
+     *       hashing thread.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Bounds concurrent hashing to the available cores so a login
+     *       flood queues briefly or is shed instead of starving the CPU.</li>
+     *   <li>Keeps hashing latency flat for other clients while one source
+     *       floods.</li>
+     *   <li>Lets callers release their request thread while hashing.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param <T> the task's result type
+     * @param client the client the task runs for, or null if unknown
+     * @param task the hashing task
+     * @return a future completed with the task's result
+     */
+    public <T> CompletableFuture<T> submit(ClientAddress client, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long submitted = System.nanoTime();
+        Runnable runnable = () -> {
+            long start = System.nanoTime();
+            if (waitTimer != null) {
+                waitTimer.record(start - submitted, TimeUnit.NANOSECONDS);
+            }
+            HashingThread thread = (HashingThread) Thread.currentThread();
+            thread.submittedNanos = submitted;
+            T result;
+            try {
+                result = task.get();
+            } catch (Throwable e) {
+                completeOffHashingThread(() -> future.completeExceptionally(e));
+                return;
+            } finally {
+                thread.submittedNanos = 0;
+                if (hashTimer != null) {
+                    hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+            completeOffHashingThread(() -> future.complete(result));
+        };
+
+        SourceKey key = sourceOf(client);
+        int depth;
+        lock.lock();
+        try {
+            SourceQueue source = sources.get(key);
+            if (shutdown || queued >= queueCapacity) {
+                rejectedQueueFull.increment();
+                depth = -1;
+            } else if (source != null && source.tasks.size() >= sourceQueueCapacity) {
+                rejectedSourceFull.increment();
+                depth = -1;
+            } else {
+                if (source == null) {
+                    source = new SourceQueue(key);
+                    sources.put(key, source);
+                    rotation.addLast(source);
+                }
+                source.tasks.addLast(runnable);
+                queued++;
+                depth = source.tasks.size();
+                workAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (depth < 0) {
+            future.completeExceptionally(
+                    new ServiceUnavailableException("Server is busy. Try again later.", retryAfterSeconds));
+        } else if (sourceDepthSummary != null) {
+            sourceDepthSummary.record(depth);
+        }
+        return future;
+    }
+
+    /**
+     * Returns when the task running on the current thread was submitted.
+     *
+     * Lets hashing code measure its latency from submission, including the
+     * time spent waiting in the queue.
+     *
+     * @param fallbackNanos the value to return outside a hashing task
+     * @return the {@link System#nanoTime()} of the submission, or the fallback
+     */
+    public static long submittedAt(long fallbackNanos) {
+        if (Thread.currentThread() instanceof HashingThread thread && thread.submittedNanos != 0) {
+            return thread.submittedNanos;
+        }
+        return fallbackNanos;
+    }
+
+    /**
+     * Returns the number of tasks waiting for a hashing thread.
+     *
+     * @return the queue depth across all sources
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of tasks that may wait for a hashing thread.
+     *
+     * @return the queue capacity across all sources
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Returns the number of tasks waiting for a client's source.
+     *
+     * @param client the client address, or null
+     * @return the depth of the source's sub-queue
+     */
+    public int getSourceQueueDepth(ClientAddress client) {
+        SourceKey key = sourceOf(client);
+        lock.lock();
+        try {
+            SourceQueue source = sources.get(key);
+            return source != null ? source.tasks.size() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of tasks a single source may have waiting.
+     *
+     * @return the capacity of each source's sub-queue
+     */
+    public int getSourceQueueCapacity() {
+        return sourceQueueCapacity;
+    }
+
+    /**
+     * Returns the number of sources with waiting tasks.
+     *
+     * @return the number of non-empty sub-queues
+     */
+    public int getSourceCount() {
+        lock.lock();
+        try {
+            return rotation.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the depth of the deepest source sub-queue.
+     *
+     * @return the largest number of tasks waiting for a single source
+     */
+    public int getMaxSourceQueueDepth() {
+        lock.lock();
+        try {
+            int max = 0;
+            for (SourceQueue source : rotation) {
+                max = Math.max(max, source.tasks.size());
+            }
+            return max;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers queue depth, wait time, hash time and rejection metrics.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.hashing.queue", this, PasswordHashingExecutor::getQueueDepth)
+                .description("Password hashing tasks waiting for a thread")
+                .register(registry);
+        Gauge.builder("auth.hashing.active", active, AtomicInteger::get)
+                .description("Password hashing tasks running")
+                .register(registry);
+        Gauge.builder("auth.hashing.sources", this, PasswordHashingExecutor::getSourceCount)
+                .description("Sources with password hashing tasks waiting")
+                .register(registry);
+        Gauge.builder("auth.hashing.source.queue.max", this, PasswordHashingExecutor::getMaxSourceQueueDepth)
+                .description("Password hashing tasks waiting for the busiest source")
+                .register(registry);
+        this.sourceDepthSummary = DistributionSummary.builder("auth.hashing.source.queue")
+                .description("Depth of a source's sub-queue when a task joins it")
+                .register(registry);
+        this.waitTimer = Timer.builder("auth.hashing.wait")
+                .description("Time password hashing tasks waited for a thread")
+                .register(registry);
+        this.hashTimer = Timer.builder("auth.hashing.duration")
+                .description("Time password hashing tasks ran")
+                .register(registry);
+        FunctionCounter.builder("auth.hashing.rejected", rejectedQueueFull, LongAdder::sum)
+                .description("Password hashing tasks rejected")
+                .tag("reason", "queue-full")
+                .register(registry);
+        FunctionCounter.builder("auth.hashing.rejected", rejectedSourceFull, LongAdder::sum)
+                .description("Password hashing tasks rejected")
+                .tag("reason", "source-full")
+                .register(registry);
+    }
+
+    /**
+     * Hands the completion of a future to the completion pool.
+     *
+     * @param completion the action completing the future
+     */
+    private void completeOffHashingThread(Runnable completion) {
+        try {
+            completionExecutor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    /**
+     * Runs tasks until the executor shuts down and the queue is drained.
+     */
+    private void runWorker() {
+        while (true) {
+            Runnable task;
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+            active.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Takes the next task in round-robin order across sources.
+     *
+     * @return the next task, or null once shut down and drained
+     * @throws InterruptedException if the worker is interrupted while waiting
+     */
+    private Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (rotation.isEmpty()) {
+                if (shutdown) {
+                    return null;
+                }
+                workAvailable.await();
+            }
+            SourceQueue source = rotation.pollFirst();
+            Runnable task = source.tasks.pollFirst();
+            queued--;
+            if (source.tasks.isEmpty()) {
+                sources.remove(source.key);
+            } else {
+                rotation.addLast(source);
+            }
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Derives the source of a client from its subnet.
+     *
+     * @param client the client address, or null
+     * @return the source key; unparsed and unknown clients share one source
+     */
+    private SourceKey sourceOf(ClientAddress client) {
+        if (client == null || !client.isParsed()) {
+            return SourceKey.UNKNOWN;
+        }
+        if (client.getFamily() == IpAddressParser.IPV4) {
+            return new SourceKey(client.getFamily(), 0, client.getLow() & prefixMask(ipv4SourcePrefix + 32));
+        }
+        int prefix = ipv6SourcePrefix;
+        return new SourceKey(client.getFamily(),
+                client.getHigh() & prefixMask(prefix),
+                prefix > 64 ? client.getLow() & prefixMask(prefix - 64) : 0);
+    }
+
+    private static long prefixMask(int bits) {
+        return bits <= 0 ? 0 : bits >= 64 ? -1L : -1L << (64 - bits);
+    }
+
+    /**
+     * Hashing thread remembering when its current task was submitted.
+     */
+    private static final class HashingThread extends Thread {
+
+        /** Submission time of the running task, 0 between tasks */
+        private long submittedNanos;
+
+        private HashingThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+
+    }
+
+    /**
+     * Packed subnet identifying a source.
+     */
+    private static final class SourceKey {
+
+        /** Shared key of clients without a parsed address */
+        private static final SourceKey UNKNOWN = new SourceKey(IpAddressParser.INVALID, 0, 0);
+
+        /** Address family */
+        private final int family;
+
+        /** High 64 bits of the masked address */
+        private final long high;
+
+        /** Low 64 bits of the masked address */
+        private final long low;
+
+        private SourceKey(int family, long high, long low) {
+            this.family = family;
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof SourceKey key && key.family == family && key.high == high && key.low == low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high * 31 + low) * 31 + family;
+        }
+
+    }
+
+    /**
+     * Waiting tasks of one source.
+     */
+    private static final class SourceQueue {
+
+        /** Source the tasks belong to */
+        private final SourceKey key;
+
+        /** Tasks in arrival order */
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        private SourceQueue(SourceKey key) {
+            this.key = key;
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.suyos.registration.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import lombok.Value;
+
+/**
+ * Compiled, immutable rate limiting policy.
+ * 
+ * A reload that leaves a policy unchanged keeps the same instance, so bucket
+ * stores can detect a changed policy with a cheap identity check.
+ * 
+ * @author Joel Salazar
+ */
+@Value
+public class RateLimitPolicy {
+
+    /** Unique policy name, also used to scope its buckets */
+    String name;
+
+    /** Request path prefix the policy applies to */
+    String path;
+
+    /** Upper-case HTTP methods the policy applies to; empty for all methods */
+    List<String> methods;
+
+    /** What a bucket of this policy is keyed by */
+    KeyType keyType;
+
+    /** Number of requests allowed per refill period */
+    long capacity;
+
+    /** Period after which the full capacity is available again */
+    Duration refillPeriod;
+
+    /**
+     * Creates the Bucket4j bandwidth enforcing this policy.
+     * 
+     * @return the bandwidth refilling the full capacity once per refill period
+     */
+    public Bandwidth toBandwidth() {
+        return Bandwidth.builder()
+                .capacity(capacity)
+                .refillIntervally(capacity, refillPeriod)
+                .build();
+    }
+
+    /**
+     * Creates the Bucket4j configuration enforcing this policy.
+     * 
+     * @return the bucket configuration
+     */
+    public BucketConfiguration toBucketConfiguration() {
+        return BucketConfiguration.builder().addLimit(toBandwidth()).build();
+    }
+
+    /**
+     * What a rate limiting bucket is keyed by.
+     */
+    public enum KeyType {
+
+        /** The client IP address */
+        IP,
+
+        /** The account being logged in to, identified by a hash of its email */
+        ACCOUNT
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.suyos.registration.config;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.suyos.registration.service.RateLimitPolicyService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Actuator endpoint for inspecting and reloading rate limiting policies.
+ * 
+ * {@code GET /actuator/ratelimits} lists the active policies and
+ * {@code POST /actuator/ratelimits} reloads them from configuration without
+ * a restart and without resetting existing buckets.
+ * 
+ * @author Joel Salazar
+ */
+@Component
+@Endpoint(id = "ratelimits")
+@RequiredArgsConstructor
+public class RateLimitPolicyEndpoint {
+
+    /** Service holding the active rate limiting policies */
+    private final RateLimitPolicyService rateLimitPolicyService;
+
+    /**
+     * Lists the active rate limiting policies.
+     * 
+     * @return the active policies in declaration order
+     */
+    @ReadOperation
+    public List<RateLimitPolicy> policies() {
+        return rateLimitPolicyService.getPolicies();
+    }
+
+    /**
+     * Reloads the rate limiting policies from configuration.
+     * 
+     * @return the active policies after the reload
+     */
+    @WriteOperation
+    public List<RateLimitPolicy> reload() {
+        return rateLimitPolicyService.reload();
+    }
+
+}
@@ -0,0 +1,217 @@
+package com.suyos.registration.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Immutable prefix trie resolving the rate limiting policies of a request.
+ *
+ * Policy paths are compiled into a character trie at load time. Every node
+ * that ends a policy path holds, per HTTP method, the final list of policies
+ * for requests below it: its own policies plus the inherited policies of
+ * less specific paths whose key type it does not override. Matching a
+ * request is a single walk along its path that returns a precomputed array,
+ * without allocating.
+ *
+ * @author Joel Salazar
+ */
+public final class RateLimitPolicyMatcher {
+
+    /** Method key for policies that apply to every method */
+    private static final String ANY_METHOD = "*";
+
+    /** Result for requests no policy applies to */
+    private static final RateLimitPolicy[] NO_POLICIES = new RateLimitPolicy[0];
+
+    /** Root of the trie, matching the empty path */
+    private final Node root;
+
+    /** Compiled policies in declaration order */
+    private final List<RateLimitPolicy> policies;
+
+    private RateLimitPolicyMatcher(Node root, List<RateLimitPolicy> policies) {
+        this.root = root;
+        this.policies = policies;
+    }
+
+    /**
+     * Compiles policies into a matcher.
+     *
+     * @param policies the policies to compile
+     * @return the compiled matcher
+     * @throws IllegalArgumentException if a policy is invalid or names clash
+     */
+    public static RateLimitPolicyMatcher compile(List<RateLimitPolicy> policies) {
+        Node root = new Node();
+        Set<String> names = new TreeSet<>();
+        Set<String> methods = new TreeSet<>();
+        for (RateLimitPolicy policy : policies) {
+            validate(policy);
+            if (!names.add(policy.getName())) {
+                throw new IllegalArgumentException("Duplicate rate limit policy: " + policy.getName());
+            }
+            methods.addAll(policy.getMethods());
+            Node node = root;
+            for (int i = 0; i < policy.getPath().length(); i++) {
+                node = node.getOrAddChild(policy.getPath().charAt(i));
+            }
+            node.own.add(policy);
+        }
+        methods.add(ANY_METHOD);
+        resolve(root, null, methods);
+        return new RateLimitPolicyMatcher(root, List.copyOf(policies));
+    }
+
+    /**
+     * Returns the policies that apply to a request.
+     *
+     * The returned array is shared and must not be modified.
+     *
+     * @param method the HTTP method
+     * @param path the request path
+     * @return the applicable policies, possibly empty
+     */
+    public RateLimitPolicy[] match(String method, String path) {
+        Node node = root;
+        Node matched = root.effective != null ? root : null;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.getChild(path.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.effective != null) {
+                matched = node;
+            }
+        }
+        if (matched == null) {
+            return NO_POLICIES;
+        }
+        RateLimitPolicy[] result = matched.effective.get(method);
+        return result != null ? result : matched.effective.get(ANY_METHOD);
+    }
+
+    /**
+     * Returns the compiled policies in declaration order.
+     *
+     * @return the unmodifiable list of policies
+     */
+    public List<RateLimitPolicy> getPolicies() {
+        return policies;
+    }
+
+    /**
+     * Computes the effective policies of every policy node below a node.
+     *
+     * @param node the node to resolve
+     * @param inherited effective policies of the nearest ancestor policy node, or null
+     * @param methods all methods mentioned by any policy, plus {@link #ANY_METHOD}
+     */
+    private static void resolve(Node node, Map<String, RateLimitPolicy[]> inherited, Set<String> methods) {
+        if (!node.own.isEmpty()) {
+            Map<String, RateLimitPolicy[]> effective = new HashMap<>();
+            for (String method : methods) {
+                RateLimitPolicy[] parent = NO_POLICIES;
+                if (inherited != null) {
+                    parent = inherited.getOrDefault(method, inherited.get(ANY_METHOD));
+                }
+                effective.put(method, merge(node.own, method, parent));
+            }
+            node.effective = effective;
+            inherited = effective;
+        }
+        for (Node child : node.children) {
+            resolve(child, inherited, methods);
+        }
+    }
+
+    /**
+     * Merges a node's own policies for a method with inherited ones.
+     *
+     * @param own the policies declared on the node
+     * @param method the method, or {@link #ANY_METHOD}
+     * @param parent the inherited policies for the method
+     * @return own policies plus inherited policies of key types not overridden
+     */
+    private static RateLimitPolicy[] merge(List<RateLimitPolicy> own, String method, RateLimitPolicy[] parent) {
+        List<RateLimitPolicy> merged = new ArrayList<>();
+        Set<RateLimitPolicy.KeyType> overridden = EnumSet.noneOf(RateLimitPolicy.KeyType.class);
+        for (RateLimitPolicy policy : own) {
+            if (policy.getMethods().isEmpty() || policy.getMethods().contains(method)) {
+                merged.add(policy);
+                overridden.add(policy.getKeyType());
+            }
+        }
+        for (RateLimitPolicy policy : parent) {
+            if (!overridden.contains(policy.getKeyType())) {
+                merged.add(policy);
+            }
+        }
+        return merged.toArray(NO_POLICIES);
+    }
+
+    /**
+     * Rejects policies that cannot be enforced.
+     *
+     * @param policy the policy to check
+     * @throws IllegalArgumentException if the policy is invalid
+     */
+    private static void validate(RateLimitPolicy policy) {
+        if (policy.getName() == null || policy.getName().isBlank()) {
+            throw new IllegalArgumentException("Rate limit policy name is required");
+        }
+        if (policy.getPath() == null || !policy.getPath().startsWith("/")) {
+            throw new IllegalArgumentException("Rate limit policy path must start with '/': " + policy.getName());
+        }
+        if (policy.getCapacity() <= 0 || policy.getRefillPeriod() == null
+                || policy.getRefillPeriod().isNegative() || policy.getRefillPeriod().isZero()) {
+            throw new IllegalArgumentException("Rate limit policy needs a positive limit: " + policy.getName());
+        }
+    }
+
+    /**
+     * Trie node for one path character.
+     */
+    private static final class Node {
+
+        /** Characters leading to the children, parallel to {@link #children} */
+        private char[] labels = new char[0];
+
+        /** Child nodes, parallel to {@link #labels} */
+        private Node[] children = new Node[0];
+
+        /** Policies declared with exactly this path (compile time only) */
+        private final List<RateLimitPolicy> own = new ArrayList<>();
+
+        /** Effective policies per method; null if no policy ends here */
+        private Map<String, RateLimitPolicy[]> effective;
+
+        private Node getChild(char label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node getOrAddChild(char label) {
+            Node child = getChild(label);
+            if (child == null) {
+                child = new Node();
+                labels = Arrays.copyOf(labels, labels.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                labels[labels.length - 1] = label;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.suyos.registration.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Rate limiting policies as declared under {@code app.rate-limit}.
+ * 
+ * Bound from the environment, and optionally from an external policy file,
+ * each time the policies are loaded or reloaded.
+ * 
+ * @author Joel Salazar
+ */
+@Data
+public class RateLimitProperties {
+
+    /** Declared rate limiting policies */
+    private List<Policy> policies = new ArrayList<>();
+
+    /**
+     * A single declared rate limiting policy.
+     */
+    @Data
+    public static class Policy {
+
+        /** Unique policy name, also used to scope its buckets */
+        private String name;
+
+        /** Request path prefix the policy applies to */
+        private String path;
+
+        /** HTTP methods the policy applies to; empty for all methods */
+        private List<String> methods = new ArrayList<>();
+
+        /** What a bucket of this policy is keyed by */
+        private RateLimitPolicy.KeyType key = RateLimitPolicy.KeyType.IP;
+
+        /** Number of requests allowed per refill period */
+        private long capacity;
+
+        /** Period after which the full capacity is available again */
+        private Duration refillPeriod = Duration.ofMinutes(1);
+
+    }
+
+}
@@ -1,141 +1,290 @@
 package com.suyos.registration.config;
 
-import io.github.bucket4j.Bandwidth;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.TokensInheritanceStrategy;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Configuration class for rate limiting using Bucket4j. 
  * 
- * Provides methods to create and retrieve rate-limiting buckets
+ * Provides methods to create and retrieve rate-limiting buckets for the
+ * policies resolved by {@code RateLimitPolicyService}. Buckets expire once
+ * they have been idle for a full refill period of their policy; by then
+ * they have refilled completely, so recreating them on the next request
+ * changes nothing for the client. Stores are also capped in size to bound
+ * memory. Reaching the cap evicts buckets regardless of their state, so a
+ * throttled client whose bucket is evicted starts again with a full one;
+ * the {@code rate-limit.buckets.size-evictions} counter reports when that
+ * happens and the cap should be raised. When a policy is reloaded with new
+ * limits, existing buckets are reconfigured in place and keep their
+ * consumed tokens.
+ * 
+ * In distributed mode the bucket state lives in the shared database so all
+ * nodes enforce one limit together. Each node may consume a few tokens
+ * locally before synchronizing, which answers most requests without a
+ * database round trip.
  * 
  * @author Joel Salazar
  */
 @Configuration
-public class RateLimitingConfig {
+@Slf4j
+public class RateLimitingConfig implements MeterBinder {
+
+    /** Rough heap cost of one stored bucket including its key and cache entry */
+    private static final long ESTIMATED_BYTES_PER_BUCKET = 400;
+
+    /** Maximum number of buckets kept per store; evicting at the cap may reset active buckets */
+    @Value("${app.rate-limit.bucket-store.max-size:100000}")
+    private long bucketStoreMaxSize = 100000;
+
+    /** Whether bucket state is shared between nodes through the database */
+    @Value("${app.rate-limit.distributed.enabled:false}")
+    private boolean distributedEnabled;
+
+    /** Tokens a node may consume locally before synchronizing with the database */
+    @Value("${app.rate-limit.distributed.max-unsynchronized-tokens:2}")
+    private long maxUnsynchronizedTokens = 2;
+
+    /** Longest time a node may consume locally before synchronizing with the database */
+    @Value("${app.rate-limit.distributed.max-unsynchronized-ms:500}")
+    private long maxUnsynchronizedMillis = 500;
+
+    /** Provider of the JDBC template used in distributed mode */
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
 
-    private final Map<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
-    private final Map<String, Bucket> userBuckets = new ConcurrentHashMap<>();
+    /** Proxy manager for database-backed buckets; null in local mode */
+    private JdbcBucketProxyManager proxyManager;
+
+    /** Local pre-fetch optimization applied to database-backed buckets */
+    private Optimization distributedOptimization;
+
+    /** Buckets of IP-keyed policies, expired after a refill period without requests */
+    private Cache<String, PolicyBucket> ipBuckets;
+
+    /** Buckets of account-keyed policies, expired after a refill period without requests */
+    private Cache<String, PolicyBucket> userBuckets;
+
+    /** Number of IP-keyed buckets evicted by the size cap rather than expiry */
+    private final LongAdder ipSizeEvictions = new LongAdder();
+
+    /** Number of account-keyed buckets evicted by the size cap rather than expiry */
+    private final LongAdder userSizeEvictions = new LongAdder();
 
     /**
-     * Retrieves or creates a rate-limiting bucket associated with a specific 
-     * client IP address.
-     *
-     * <p><b>Behavior:</b></p>
-     * <ol>
-     *   <li>Looks up the existing {@link Bucket} for the given IP in the cache.</li>
-     *   <li>If none exists, creates a new one via {@link #createIpBucket(String)} 
-     *       and stores it.</li>
-     * </ol>
-     *
-     * <p><b>Purpose:</b></p>
-     * <ul>
-     *   <li>Applies per-IP request rate limits to prevent abuse or denial-of-service 
-     *       attacks.</li>
-     *   <li>Ensures fair API usage by limiting excessive requests from a single 
-     *       source.</li>
-     * </ul>
-     *
-     * <hr>
-     *
-     * @param ip the client IP address
-     * @return the {@link Bucket} corresponding to the given IP
+     * Creates a configuration that keeps every bucket in memory.
      */
-    public Bucket getIpBucket(String ip) {
-        return ipBuckets.computeIfAbsent(ip, this::createIpBucket);
+    public RateLimitingConfig() {
+        this(null);
     }
 
     /**
-     * Retrieves or creates a rate-limiting bucket for a specific username.
-     *
-     * <p><b>Behavior:</b></p>
-     * <ol>
-     *   <li>Checks if a {@link Bucket} already exists for the given username.</li>
-     *   <li>If not, creates a new one using {@link #createUserBucket(String)} 
-     *       and caches it.</li>
-     * </ol>
-     *
-     * <p><b>Purpose:</b></p>
-     * <ul>
-     *   <li>Restricts user-specific operations such as login attempts or API 
-     *       actions.</li>
-     *   <li>Prevents brute-force attacks and reduces server load from repeated 
-     *       user actions.</li>
-     * </ul>
-     *
-     * <hr>
+     * Creates a configuration that can share buckets through the database.
+     * 
+     * @param jdbcTemplateProvider provider of the JDBC template of the shared database
+     */
+    @Autowired
+    public RateLimitingConfig(ObjectProvider<JdbcTemplate> jdbcTemplateProvider) {
+        this.jdbcTemplateProvider = jdbcTemplateProvider;
+    }
+
+    /**
+     * Creates the bounded bucket stores and, in distributed mode, the
+     * database-backed proxy manager.
+     */
+    @PostConstruct
+    public void init() {
+        this.ipBuckets = createBucketStore(ipSizeEvictions);
+        this.userBuckets = createBucketStore(userSizeEvictions);
+        JdbcTemplate jdbcTemplate = jdbcTemplateProvider != null ? jdbcTemplateProvider.getIfAvailable() : null;
+        if (distributedEnabled && jdbcTemplate != null) {
+            this.proxyManager = new JdbcBucketProxyManager(jdbcTemplate);
+            this.distributedOptimization = Optimizations.delaying(
+                    new DelayParameters(maxUnsynchronizedTokens, Duration.ofMillis(maxUnsynchronizedMillis)));
+        } else if (distributedEnabled) {
+            log.warn("Distributed rate limiting requires a DataSource, falling back to in-memory buckets");
+        }
+    }
+
+    /**
+     * Deletes database-backed buckets that are fully refilled.
+     * 
+     * Runs periodically on the application scheduler in distributed mode.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.distributed.cleanup-interval-ms:300000}")
+    public void purgeExpiredBuckets() {
+        if (proxyManager != null) {
+            int purged = proxyManager.purgeExpired(System.currentTimeMillis());
+            log.debug("Purged {} idle rate limiting buckets", purged);
+        }
+    }
+
+    /**
+     * Registers entry count, eviction and memory metrics for the bucket stores.
      *
-     * @param username the username associated with the rate-limiting bucket
-     * @return the {@link Bucket} corresponding to the given user
+     * @param registry the meter registry
      */
-    public Bucket getUserBucket(String username) {
-        return userBuckets.computeIfAbsent(username, this::createUserBucket);
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, ipBuckets, "rate-limit.ip-buckets");
+        CaffeineCacheMetrics.monitor(registry, userBuckets, "rate-limit.user-buckets");
+        Gauge.builder("rate-limit.buckets.memory", ipBuckets, store -> store.estimatedSize() * ESTIMATED_BYTES_PER_BUCKET)
+                .tag("store", "ip")
+                .description("Estimated heap held by rate limiting buckets")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("rate-limit.buckets.memory", userBuckets, store -> store.estimatedSize() * ESTIMATED_BYTES_PER_BUCKET)
+                .tag("store", "user")
+                .description("Estimated heap held by rate limiting buckets")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("rate-limit.buckets.size-evictions", ipSizeEvictions, LongAdder::sum)
+                .tag("store", "ip")
+                .description("Buckets evicted at the store size cap, possibly resetting throttled clients")
+                .register(registry);
+        FunctionCounter.builder("rate-limit.buckets.size-evictions", userSizeEvictions, LongAdder::sum)
+                .tag("store", "user")
+                .description("Buckets evicted at the store size cap, possibly resetting throttled clients")
+                .register(registry);
     }
 
     /**
-     * Creates a new rate-limiting bucket for a client IP address.
+     * Retrieves or creates the rate-limiting bucket of a policy for a key.
      *
      * <p><b>Behavior:</b></p>
      * <ol>
-     *   <li>Defines a limit of 10 requests per minute.</li>
-     *   <li>Builds and returns a {@link Bucket} with the configured 
-     *       {@link Bandwidth} constraint.</li>
+     *   <li>Looks up the existing {@link Bucket} for the policy and key in the 
+     *       store of the policy's key type, without locking.</li>
+     *   <li>If none exists, creates one enforcing the policy and stores it 
+     *       until it has been idle for a full refill period, or until the 
+     *       store reaches its size cap and evicts it.</li>
+     *   <li>If the policy was reloaded with different limits since the bucket 
+     *       was created, reconfigures the bucket in place.</li>
      * </ol>
      *
      * <p><b>Purpose:</b></p>
      * <ul>
-     *   <li>Limits general request volume per IP to protect the application 
-     *       against high-frequency traffic.</li>
-     *   <li>Provides a simple, configurable mechanism for IP-based throttling.</li>
+     *   <li>Applies per-IP and per-account limits to prevent abuse, 
+     *       brute-force and denial-of-service attacks.</li>
+     *   <li>Lets policies change at runtime without resetting clients that are 
+     *       currently being throttled.</li>
      * </ul>
      *
      * <hr>
      *
-     * @param ip the client IP address
-     * @return a new {@link Bucket} enforcing IP-level rate limits
+     * @param policy the policy to enforce
+     * @param key the client IP address or account key, depending on the policy
+     * @return the {@link Bucket} of the policy for the given key
      */
-    private Bucket createIpBucket(String ip) {
-        // 10 requests per minute per IP
-        Bandwidth limit = Bandwidth.builder()
-                .capacity(10)
-                .refillIntervally(10, Duration.ofMinutes(1))
-                .build();
-        return Bucket.builder().addLimit(limit).build();
+    public Bucket getBucket(RateLimitPolicy policy, String key) {
+        Cache<String, PolicyBucket> store = policy.getKeyType() == RateLimitPolicy.KeyType.IP ? ipBuckets : userBuckets;
+        PolicyBucket entry = store.get(policy.getName() + ':' + key, scopedKey -> createPolicyBucket(policy, scopedKey));
+        if (entry.policy != policy) {
+            entry.bucket.replaceConfiguration(policy.toBucketConfiguration(), TokensInheritanceStrategy.AS_IS);
+            entry.policy = policy;
+        }
+        return entry.bucket;
     }
 
     /**
-     * Creates a new rate-limiting bucket for a specific user.
+     * Creates a bucket enforcing a policy, local or database-backed depending
+     * on the mode.
      *
-     * <p><b>Behavior:</b></p>
-     * <ol>
-     *   <li>Defines a limit of 5 login attempts every 15 minutes.</li>
-     *   <li>Builds and returns a {@link Bucket} with the configured 
-     *       {@link Bandwidth} restriction.</li>
-     * </ol>
-     *
-     * <p><b>Purpose:</b></p>
-     * <ul>
-     *   <li>Controls authentication attempts to prevent brute-force login 
-     *       attacks.</li>
-     *   <li>Ensures fair use by limiting the frequency of user login requests.</li>
-     * </ul>
+     * @param policy the policy to enforce
+     * @param scopedKey the policy-scoped key identifying the bucket across nodes
+     * @return a new store entry holding the bucket
+     */
+    private PolicyBucket createPolicyBucket(RateLimitPolicy policy, String scopedKey) {
+        Bucket bucket;
+        if (proxyManager == null) {
+            bucket = Bucket.builder().addLimit(policy.toBandwidth()).build();
+        } else {
+            bucket = proxyManager.builder()
+                    .withOptimization(distributedOptimization)
+                    .build(scopedKey, policy::toBucketConfiguration);
+        }
+        return new PolicyBucket(bucket, policy);
+    }
+
+    /**
+     * Creates a bounded bucket store that expires buckets idle for a full
+     * refill period of their policy.
      *
-     * <hr>
+     * Buckets evicted by the size cap instead may still be drained, so
+     * they are counted separately.
      *
-     * @param username the username for which to create a rate limit
-     * @return a new {@link Bucket} enforcing user-level rate limits
+     * @param sizeEvictions counter of buckets evicted by the size cap
+     * @return a new, empty bucket store
      */
-    private Bucket createUserBucket(String username) {
-        // 5 login attempts per 15 minutes per user
-        Bandwidth limit = Bandwidth.builder()
-                .capacity(5)
-                .refillIntervally(5, Duration.ofMinutes(15))
+    private Cache<String, PolicyBucket> createBucketStore(LongAdder sizeEvictions) {
+        return Caffeine.newBuilder()
+                .maximumSize(bucketStoreMaxSize)
+                .evictionListener((String key, PolicyBucket entry, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        sizeEvictions.increment();
+                    }
+                })
+                .expireAfter(new Expiry<String, PolicyBucket>() {
+                    @Override
+                    public long expireAfterCreate(String key, PolicyBucket entry, long currentTime) {
+                        return entry.policy.getRefillPeriod().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, PolicyBucket entry, long currentTime,
+                            long currentDuration) {
+                        return entry.policy.getRefillPeriod().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, PolicyBucket entry, long currentTime,
+                            long currentDuration) {
+                        return entry.policy.getRefillPeriod().toNanos();
+                    }
+                })
+                .recordStats()
                 .build();
-        return Bucket.builder().addLimit(limit).build();
     }
 
-}
\ No newline at end of file
+    /**
+     * Bucket together with the policy version it currently enforces.
+     */
+    private static final class PolicyBucket {
+
+        /** The rate limiting bucket */
+        private final Bucket bucket;
+
+        /** Policy the bucket is currently configured for */
+        private volatile RateLimitPolicy policy;
+
+        private PolicyBucket(Bucket bucket, RateLimitPolicy policy) {
+            this.bucket = bucket;
+            this.policy = policy;
+        }
+
+    }
+
+}
@@ -1,5 +1,12 @@
 package com.suyos.registration.config;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,13 +16,18 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.suyos.registration.filter.AuthChallengeFilter;
+import com.suyos.registration.filter.ConcurrencyLimitFilter;
+import com.suyos.registration.filter.IpAccessFilter;
 import com.suyos.registration.filter.RateLimitingFilter;
 import lombok.RequiredArgsConstructor;
 
@@ -37,6 +49,9 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class SecurityConfig {
     
+    /** Prefix id of BCrypt hashes in the delegating encoder */
+    private static final String BCRYPT_ID = "bcrypt";
+    
     /** JWT authentication filter for processing JWT tokens in requests */
     private final JwtAuthenticationFilter jwtAuthFilter;
     
@@ -45,6 +60,34 @@ public class SecurityConfig {
     
     /** Rate limiting filter for auth endpoints */
     private final RateLimitingFilter rateLimitingFilter;
+    
+    /** IP access list filter rejecting denied networks */
+    private final IpAccessFilter ipAccessFilter;
+    
+    /** Adaptive concurrency limit filter for password-hashing endpoints */
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
+    
+    /** Filter requiring proof of work on password-hashing requests under load */
+    private final AuthChallengeFilter authChallengeFilter;
+    
+    /** Limiter receiving the latency of every password hash */
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    
+    /** Fixed BCrypt strength; 0 calibrates it at startup */
+    @Value("${app.auth.password.bcrypt.strength:0}")
+    private int bcryptStrength = 0;
+    
+    /** Lowest BCrypt strength calibration may choose */
+    @Value("${app.auth.password.bcrypt.min-strength:10}")
+    private int bcryptMinStrength = 10;
+    
+    /** Highest BCrypt strength calibration may choose */
+    @Value("${app.auth.password.bcrypt.max-strength:14}")
+    private int bcryptMaxStrength = 14;
+    
+    /** Hash latency calibration aims for */
+    @Value("${app.auth.password.bcrypt.target-latency-ms:250}")
+    private long bcryptTargetLatencyMs = 250;
 
     /**
      * Configures the main security rules and authentication mechanisms 
@@ -61,6 +104,8 @@ public class SecurityConfig {
      *   <li>Defines authorization rules:
      *     <ul>
      *       <li>Public endpoints: registration, login, and OAuth2 routes.</li>
+     *       <li>Administrative endpoints: actuator endpoints other than health 
+     *           require the admin role.</li>
      *       <li>Protected endpoints: all other requests require authentication.</li>
      *     </ul>
      *   </li>
@@ -70,8 +115,15 @@ public class SecurityConfig {
      *       redirection endpoints, and a custom success handler.</li>
      *   <li>Registers custom filters:
      *     <ul>
+     *       <li>{@code ipAccessFilter} — applied first in the chain to reject 
+     *           denied networks before any other processing.</li>
      *       <li>{@code rateLimitingFilter} — applied before authentication to 
      *           throttle excessive requests.</li>
+     *       <li>{@code authChallengeFilter} — requires a solved proof-of-work 
+     *           challenge on login and registration while hashing is under 
+     *           load.</li>
+     *       <li>{@code concurrencyLimitFilter} — sheds login and registration 
+     *           requests once password hashing saturates the CPU.</li>
      *       <li>{@code jwtAuthFilter} — validates and processes JWT tokens for 
      *           authentication.</li>
      *     </ul>
@@ -119,9 +171,11 @@ public class SecurityConfig {
                 // Allow anyone to register or login
                 .requestMatchers("/api/v1/auth/register", "/api/v1/auth/login").permitAll()
                 // Require authentication for logout
-                .requestMatchers("/api/v1/auth/logout").authenticated()
+                .requestMatchers("/api/v1/auth/logout", "/api/v1/auth/logout-all").authenticated()
                 // Allow anyone to use OAuth2 endpoints
                 .requestMatchers("/oauth2/**").permitAll()
+                // Restrict actuator endpoints that expose or change security settings to administrators
+                .requestMatchers(EndpointRequest.toAnyEndpoint().excluding(HealthEndpoint.class)).hasRole("ADMIN")
                 // All other requests require authentication
                 .anyRequest().authenticated())
             // Use stateless session management (no HTTP session, suitable for JWT)
@@ -134,8 +188,14 @@ public class SecurityConfig {
                 .redirectionEndpoint(redirection -> redirection
                     .baseUri("/oauth2/callback/*"))
                 .successHandler(oauth2SuccessHandler))
+            // Reject denied networks before any other filter runs
+            .addFilterBefore(ipAccessFilter, DisableEncodeUrlFilter.class)
             // Add rate limiting filter before authentication filter
             .addFilterBefore(rateLimitingFilter, UsernamePasswordAuthenticationFilter.class)
+            // Demand proof of work on password-hashing requests under load
+            .addFilterBefore(authChallengeFilter, UsernamePasswordAuthenticationFilter.class)
+            // Shed password-hashing requests beyond the adaptive concurrency limit
+            .addFilterBefore(concurrencyLimitFilter, UsernamePasswordAuthenticationFilter.class)
             // Add JWT authentication filter before authentication filter
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
             .build();
@@ -218,12 +278,69 @@ public class SecurityConfig {
 
     /**
      * Configures the password encoder.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Uses the configured BCrypt strength, or calibrates one against 
+     *       the target hash latency, never going below the minimum.</li>
+     *   <li>Selects encoders by the {@code {id}} prefix of stored hashes and 
+     *       encodes new passwords with {@code {bcrypt}}; unprefixed legacy 
+     *       hashes are verified as BCrypt.</li>
+     *   <li>Asks for a rehash only below the configured strength, or the 
+     *       minimum when calibrating, never below the strength this node 
+     *       measured at startup.</li>
+     *   <li>Reports the latency of every hash to the adaptive concurrency 
+     *       limiter.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Keeps hashing cost predictable across instance types.</li>
+     *   <li>Lets hashes with an outdated algorithm or strength be detected 
+     *       through {@link PasswordEncoder#upgradeEncoding(String)} and 
+     *       rehashed on login, so other algorithms can be added later 
+     *       without a mass reset.</li>
+     *   <li>Keeps one fast or idle node from permanently raising stored 
+     *       hashes to a cost slower nodes cannot serve.</li>
+     * </ul>
+     *
+     * <hr>
      * 
-     * @return the BCrypt password encoder
+     * @return the timed, delegating password encoder
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = bcryptStrength > 0
+                ? bcryptStrength
+                : BCryptStrengthCalibrator.calibrate(bcryptMinStrength, bcryptMaxStrength,
+                        Duration.ofMillis(bcryptTargetLatencyMs));
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        int upgradeFloor = bcryptStrength > 0 ? bcryptStrength : bcryptMinStrength;
+        encoders.put(BCRYPT_ID, new FlooredBCryptPasswordEncoder(strength, upgradeFloor));
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT_ID, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(encoders.get(BCRYPT_ID));
+        return new TimedPasswordEncoder(delegating, concurrencyLimiter);
+    }
+
+    /**
+     * BCrypt encoder that hashes at one strength but only asks for a rehash
+     * below a lower, configured floor.
+     */
+    private static final class FlooredBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+        /** Encoder at the floor strength, deciding which hashes are outdated */
+        private final BCryptPasswordEncoder floor;
+
+        private FlooredBCryptPasswordEncoder(int strength, int floorStrength) {
+            super(strength);
+            this.floor = new BCryptPasswordEncoder(floorStrength);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return floor.upgradeEncoding(encodedPassword);
+        }
+
     }
 
-}
\ No newline at end of file
+}
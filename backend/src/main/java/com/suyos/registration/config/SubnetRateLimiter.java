@@ -0,0 +1,303 @@
+package com.suyos.registration.config;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongBinaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.suyos.registration.util.IpAddressParser;
+import com.suyos.registration.util.LongLongConcurrentMap;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory rate limiter for IP-keyed policies that also limits the
+ * networks a client address belongs to.
+ *
+ * Every request is counted against three levels: the host, its network
+ * (IPv4 /24, IPv6 /64) and its block (IPv4 /16, IPv6 /48). The network and
+ * block levels allow a multiple of the policy's capacity, so a client that
+ * rotates through the addresses of one network is still limited once the
+ * network as a whole exceeds its share.
+ *
+ * Limits follow the generic cell rate algorithm, which is equivalent to a
+ * token bucket but keeps a single long per key: the time at which the key
+ * will be fully refilled. States live in striped primitive-keyed
+ * open-addressing maps, so a check allocates nothing, and fully refilled
+ * states are swept periodically. A full table evicts the keys closest to
+ * being refilled to make room, so new keys are always limited. Unlike
+ * Bucket4j buckets, these states are always local to the node.
+ *
+ * @author Joel Salazar
+ */
+@Component
+@Slf4j
+public class SubnetRateLimiter implements MeterBinder {
+
+    /** Index of the host level */
+    private static final int HOST = 0;
+
+    /** Index of the network level, IPv4 /24 or IPv6 /64 */
+    private static final int NETWORK = 1;
+
+    /** Index of the block level, IPv4 /16 or IPv6 /48 */
+    private static final int BLOCK = 2;
+
+    /** Names of the levels, used as metric tags */
+    private static final String[] LEVEL_NAMES = {"host", "network", "block"};
+
+    /** IPv4 masks of the host, network and block levels */
+    private static final long[] IPV4_MASKS = {0xFFFFFFFFL, 0xFFFFFF00L, 0xFFFF0000L};
+
+    /** Masks of the high 64 IPv6 bits for the host, network and block levels */
+    private static final long[] IPV6_MASKS = {-1L, -1L, 0xFFFFFFFFFFFF0000L};
+
+    /** Number of lock stripes per level and address family */
+    private static final int STRIPES = 16;
+
+    /** Operator taking one request back from a stored refill time */
+    private static final LongBinaryOperator RETREAT = (tat, increment) -> tat - increment;
+
+    /** Multiplier of the policy capacity allowed per network */
+    @Value("${app.rate-limit.subnet.network-multiplier:8}")
+    private long networkMultiplier = 8;
+
+    /** Multiplier of the policy capacity allowed per block */
+    @Value("${app.rate-limit.subnet.block-multiplier:64}")
+    private long blockMultiplier = 64;
+
+    /** Maximum number of tracked keys per level and address family */
+    @Value("${app.rate-limit.subnet.max-entries:100000}")
+    private int maxEntries = 100000;
+
+    /** Secret seed of the IPv6 key hash, so clients cannot craft collisions */
+    private final long seed = new SecureRandom().nextLong();
+
+    /** Time origin keeping all timestamps positive */
+    private final long origin = System.nanoTime() - 1;
+
+    /** Limiter state per policy name, kept across policy reloads */
+    private final ConcurrentMap<String, PolicyState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Checks a request against a policy and records it if allowed.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Derives the host, network and block keys of the address.</li>
+     *   <li>Checks and records the request on each level from host to
+     *       block, atomically per level, so concurrent requests cannot all
+     *       pass one check.</li>
+     *   <li>If a level has no capacity left, rejects the request and gives
+     *       back what the levels before it recorded.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Limits clients by address without allocating per request.</li>
+     *   <li>Stops clients from evading the limit by rotating addresses
+     *       within a network.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param policy the IP-keyed policy to enforce
+     * @param family {@link IpAddressParser#IPV4} or {@link IpAddressParser#IPV6}
+     * @param high the high 64 bits of the address, 0 for IPv4
+     * @param low the low 64 bits of the address
+     * @return the remaining requests if allowed, or the negated nanoseconds
+     *         to wait if rejected
+     */
+    public long tryAcquire(RateLimitPolicy policy, int family, long high, long low) {
+        PolicyState state = states.computeIfAbsent(policy.getName(), name -> new PolicyState());
+        Limits limits = state.limits;
+        if (limits == null || limits.policy != policy) {
+            limits = new Limits(policy, networkMultiplier, blockMultiplier);
+            state.limits = limits;
+        }
+        LongLongConcurrentMap[][] tables = family == IpAddressParser.IPV4 ? state.ipv4 : state.ipv6;
+        long now = System.nanoTime() - origin;
+
+        long remaining = Long.MAX_VALUE;
+        int maxPerStripe = Math.max(1, maxEntries / STRIPES);
+        for (int level = HOST; level <= BLOCK; level++) {
+            long key = keyOf(family, high, low, level);
+            long increment = limits.increment[level];
+            long tolerance = limits.tolerance[level];
+            long tat = stripeOf(tables[level], key).mergeIfAtMost(
+                    key, now + increment, now + tolerance, limits.advance[level], maxPerStripe);
+            if (tat < 0) {
+                for (int recorded = HOST; recorded < level; recorded++) {
+                    long recordedKey = keyOf(family, high, low, recorded);
+                    stripeOf(tables[recorded], recordedKey).merge(recordedKey, limits.increment[recorded], RETREAT);
+                }
+                return -(~tat - now - tolerance);
+            }
+            remaining = Math.min(remaining, (now + tolerance + increment - tat) / increment);
+        }
+        return Math.max(0, remaining);
+    }
+
+    /**
+     * Removes the states of keys that are fully refilled.
+     *
+     * Runs periodically on the application scheduler.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.subnet.cleanup-interval-ms:10000}")
+    public void purgeRefilled() {
+        long now = System.nanoTime() - origin;
+        int purged = 0;
+        for (PolicyState state : states.values()) {
+            for (LongLongConcurrentMap[][] tables : new LongLongConcurrentMap[][][] {state.ipv4, state.ipv6}) {
+                for (LongLongConcurrentMap[] stripes : tables) {
+                    for (LongLongConcurrentMap stripe : stripes) {
+                        purged += stripe.removeIf((key, tat) -> tat <= now);
+                    }
+                }
+            }
+        }
+        log.debug("Purged {} refilled subnet rate limit states", purged);
+    }
+
+    /**
+     * Registers the number of tracked keys per level.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int level = HOST; level <= BLOCK; level++) {
+            int index = level;
+            Gauge.builder("rate-limit.subnet.entries", this, limiter -> limiter.countEntries(index))
+                    .tag("level", LEVEL_NAMES[level])
+                    .description("Keys tracked by the subnet rate limiter")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Counts the tracked keys of a level across policies and families.
+     *
+     * @param level the level index
+     * @return the number of tracked keys
+     */
+    private double countEntries(int level) {
+        long count = 0;
+        for (PolicyState state : states.values()) {
+            for (int i = 0; i < STRIPES; i++) {
+                count += state.ipv4[level][i].size() + state.ipv6[level][i].size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Derives the non-zero map key of an address at a level.
+     *
+     * IPv4 keys are the masked address itself. IPv6 keys are a seeded hash
+     * of the masked address, since 128 bits do not fit a single long.
+     *
+     * @param family the address family
+     * @param high the high 64 bits of the address
+     * @param low the low 64 bits of the address
+     * @param level the level index
+     * @return the map key
+     */
+    private long keyOf(int family, long high, long low, int level) {
+        if (family == IpAddressParser.IPV4) {
+            return (low & IPV4_MASKS[level]) | (1L << 32);
+        }
+        long key = mix(mix(seed ^ (high & IPV6_MASKS[level])) ^ (level == HOST ? low : level));
+        return key != 0 ? key : 1;
+    }
+
+    private static LongLongConcurrentMap stripeOf(LongLongConcurrentMap[] stripes, long key) {
+        return stripes[(int) ((key * 0xC2B2AE3D27D4EB4FL) >>> 60)];
+    }
+
+    /**
+     * Finalizes a 64-bit hash (the SplitMix64 finalizer).
+     *
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Creates the striped tables of one address family.
+     *
+     * @return the tables indexed by level and stripe
+     */
+    private static LongLongConcurrentMap[][] createTables() {
+        LongLongConcurrentMap[][] tables = new LongLongConcurrentMap[BLOCK + 1][STRIPES];
+        for (LongLongConcurrentMap[] stripes : tables) {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new LongLongConcurrentMap(16);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Tracked states of one policy.
+     */
+    private static final class PolicyState {
+
+        /** IPv4 states indexed by level and stripe */
+        private final LongLongConcurrentMap[][] ipv4 = createTables();
+
+        /** IPv6 states indexed by level and stripe */
+        private final LongLongConcurrentMap[][] ipv6 = createTables();
+
+        /** Limits derived from the current policy version */
+        private volatile Limits limits;
+
+    }
+
+    /**
+     * Per-level cell rate parameters derived from a policy.
+     */
+    private static final class Limits {
+
+        /** Policy the limits were derived from */
+        private final RateLimitPolicy policy;
+
+        /** Nanoseconds one request adds to a key's refill time, per level */
+        private final long[] increment = new long[BLOCK + 1];
+
+        /** Largest allowed lead of the refill time over now, per level */
+        private final long[] tolerance = new long[BLOCK + 1];
+
+        /** Operators advancing a stored refill time by one request, per level */
+        private final LongBinaryOperator[] advance = new LongBinaryOperator[BLOCK + 1];
+
+        private Limits(RateLimitPolicy policy, long networkMultiplier, long blockMultiplier) {
+            this.policy = policy;
+            long[] capacities = {
+                    policy.getCapacity(),
+                    policy.getCapacity() * networkMultiplier,
+                    policy.getCapacity() * blockMultiplier};
+            long period = policy.getRefillPeriod().toNanos();
+            for (int level = HOST; level <= BLOCK; level++) {
+                long levelIncrement = Math.max(1, period / capacities[level]);
+                increment[level] = levelIncrement;
+                tolerance[level] = levelIncrement * (capacities[level] - 1);
+                // The merged value is the arrival time plus one increment
+                advance[level] = (tat, next) -> Math.max(tat + levelIncrement, next);
+            }
+        }
+
+    }
+
+}
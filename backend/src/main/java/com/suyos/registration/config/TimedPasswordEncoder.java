@@ -0,0 +1,69 @@
+package com.suyos.registration.config;
+
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoder that reports the latency of every hash to the
+ * {@link AdaptiveConcurrencyLimiter}.
+ *
+ * Hashes running on the {@link PasswordHashingExecutor} are timed from
+ * their submission, so the time spent queuing for a hashing thread counts
+ * as latency and the limiter backs off when the queue grows, not only when
+ * the CPU slows down.
+ *
+ * Verifications against a stored value that is not a BCrypt hash, such as
+ * the empty password of accounts created through OAuth2, return without
+ * hashing and are not reported, so clients cannot feed the limiter
+ * artificially fast samples.
+ *
+ * @author Joel Salazar
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    /** Stored BCrypt hash, with or without the delegating encoder's id prefix */
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\A(\\{bcrypt\\})?\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}\\z");
+
+    /** Encoder doing the actual hashing */
+    private final PasswordEncoder delegate;
+
+    /** Limiter adjusted to the measured latencies */
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Creates a timed encoder.
+     *
+     * @param delegate the encoder doing the actual hashing
+     * @param concurrencyLimiter the limiter receiving latency samples
+     */
+    public TimedPasswordEncoder(PasswordEncoder delegate, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.delegate = delegate;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = PasswordHashingExecutor.submittedAt(System.nanoTime());
+        String encoded = delegate.encode(rawPassword);
+        concurrencyLimiter.recordLatency(System.nanoTime() - start);
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null || !BCRYPT_HASH.matcher(encodedPassword).matches()) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+        long start = PasswordHashingExecutor.submittedAt(System.nanoTime());
+        boolean matches = delegate.matches(rawPassword, encodedPassword);
+        concurrencyLimiter.recordLatency(System.nanoTime() - start);
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.suyos.registration.config;
+
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.suyos.registration.event.UserAccountChangedEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes account change events for bulk updates issued through
+ * {@code UserRepository}.
+ * 
+ * JPQL update queries such as {@code lockAccount} and {@code unlockAccount}
+ * bypass the entity lifecycle, so this aspect announces the change to
+ * listeners holding cached views of the user.
+ * 
+ * @author Joel Salazar
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class UserRepositoryEventAspect {
+
+    /** Publisher for account change events */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Publishes an account change event after a user's lock state is updated.
+     * 
+     * @param email the email of the updated user
+     */
+    @AfterReturning(
+        "(execution(* com.suyos.registration.repository.UserRepository.lockAccount(..)) "
+            + "|| execution(* com.suyos.registration.repository.UserRepository.unlockAccount(..))) "
+            + "&& args(email, ..)")
+    public void afterLockStateChange(String email) {
+        eventPublisher.publishEvent(new UserAccountChangedEvent(email));
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.suyos.registration.controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -12,7 +14,11 @@ import com.suyos.registration.dto.AuthenticationResponseDTO;
 import com.suyos.registration.dto.UserLoginDTO;
 import com.suyos.registration.dto.UserProfileDTO;
 import com.suyos.registration.dto.UserRegistrationDTO;
+import com.suyos.registration.model.VerifiedToken;
 import com.suyos.registration.service.AuthService;
+import com.suyos.registration.service.JwtService;
+import com.suyos.registration.service.LoginThrottleService;
+import com.suyos.registration.service.SessionRevocationService;
 import com.suyos.registration.service.TokenBlacklistService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -42,41 +48,58 @@ public class AuthController {
     
     /** Service for managing blacklisted JWT tokens */
     private final TokenBlacklistService tokenBlacklistService;
+    
+    /** Service for revoking all sessions of a user */
+    private final SessionRevocationService sessionRevocationService;
+    
+    /** Service for throttling login attempts per account */
+    private final LoginThrottleService loginThrottleService;
 
     /**
      * Registers a new user account.
      * 
+     * Completes asynchronously once the password is hashed, releasing the
+     * request thread in the meantime.
+     * 
      * @param registrationDTO the user registration data
-     * @return ResponseEntity containing the created user's profile or error message
+     * @return future ResponseEntity containing the created user's profile or error message
      */
     @PostMapping("/register")
     @Operation(summary = "Register new user", description = "Creates a new user account with the provided information")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "User registered successfully"),
-        @ApiResponse(responseCode = "400", description = "Invalid registration data or email already exists")
+        @ApiResponse(responseCode = "400", description = "Invalid registration data or email already exists"),
+        @ApiResponse(responseCode = "503", description = "Password hashing capacity exhausted")
     })
-    public ResponseEntity<UserProfileDTO> registerUser(@Valid @RequestBody UserRegistrationDTO registrationDTO,
-                                                      HttpServletRequest request) {
-        UserProfileDTO userProfile = authService.registerUser(registrationDTO, request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(userProfile);
+    public CompletableFuture<ResponseEntity<UserProfileDTO>> registerUser(@Valid @RequestBody UserRegistrationDTO registrationDTO,
+                                                                         HttpServletRequest request) {
+        return authService.registerUser(registrationDTO, request)
+                .thenApply(userProfile -> ResponseEntity.status(HttpStatus.CREATED).body(userProfile));
     }
 
     /**
      * Authenticates a user login attempt and returns JWT token.
      * 
+     * The per-account attempt limit is checked first, so throttled attempts
+     * never reach the database or the password check. The response
+     * completes asynchronously once the password is verified.
+     * 
      * @param loginDTO the user login credentials
-     * @return ResponseEntity containing JWT token and user profile or error message
+     * @return future ResponseEntity containing JWT token and user profile or error message
      */
     @PostMapping("/login")
     @Operation(summary = "User login", description = "Authenticates user credentials and returns JWT token")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Login successful, JWT token returned"),
-        @ApiResponse(responseCode = "401", description = "Invalid credentials or account locked")
+        @ApiResponse(responseCode = "401", description = "Invalid credentials or account locked"),
+        @ApiResponse(responseCode = "429", description = "Too many login attempts for this account"),
+        @ApiResponse(responseCode = "503", description = "Password hashing capacity exhausted")
     })
-    public ResponseEntity<AuthenticationResponseDTO> loginUser(@Valid @RequestBody UserLoginDTO loginDTO,
-                                                              HttpServletRequest request) {
-        AuthenticationResponseDTO authResponse = authService.authenticateUser(loginDTO, request);
-        return ResponseEntity.ok(authResponse);
+    public CompletableFuture<ResponseEntity<AuthenticationResponseDTO>> loginUser(@Valid @RequestBody UserLoginDTO loginDTO,
+                                                                                 HttpServletRequest request) {
+        loginThrottleService.checkLoginAttempt(loginDTO.getEmail(), request);
+        return authService.authenticateUser(loginDTO, request)
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -92,6 +115,11 @@ public class AuthController {
         @ApiResponse(responseCode = "400", description = "Invalid or missing token")
     })
     public ResponseEntity<String> logoutUser(HttpServletRequest request) {
+        // Reuse the token already verified by the JWT filter when available
+        if (request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE) instanceof VerifiedToken verifiedToken) {
+            tokenBlacklistService.blacklistToken(verifiedToken);
+            return ResponseEntity.ok("Logout successful");
+        }
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
@@ -100,4 +128,27 @@ public class AuthController {
         }
         return ResponseEntity.badRequest().body("No valid token found");
     }
-}
\ No newline at end of file
+
+    /**
+     * Logs out a user from every session by revoking all of their tokens.
+     * 
+     * @param request the HTTP request carrying the verified JWT token
+     * @return ResponseEntity indicating logout success
+     */
+    @PostMapping("/logout-all")
+    @Operation(summary = "Log out everywhere", description = "Invalidates every JWT token issued to the user so far")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "All sessions revoked"),
+        @ApiResponse(responseCode = "400", description = "Invalid or missing token")
+    })
+    public ResponseEntity<String> logoutAllSessions(HttpServletRequest request) {
+        if (request.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE) instanceof VerifiedToken verifiedToken) {
+            Number userId = verifiedToken.getClaim(JwtService.CLAIM_USER_ID, Number.class);
+            if (userId != null) {
+                sessionRevocationService.revokeAllSessions(userId.longValue());
+                return ResponseEntity.ok("Logged out of all sessions");
+            }
+        }
+        return ResponseEntity.badRequest().body("No valid token found");
+    }
+}
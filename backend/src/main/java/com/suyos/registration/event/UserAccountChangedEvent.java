@@ -0,0 +1,20 @@
+package com.suyos.registration.event;
+
+import lombok.Value;
+
+/**
+ * Application event published whenever a user's account state changes.
+ * 
+ * Signals that any cached view of the user (such as loaded user details)
+ * is stale. Listeners are notified after the surrounding transaction commits
+ * so that a reload always observes the new state.
+ * 
+ * @author Joel Salazar
+ */
+@Value
+public class UserAccountChangedEvent {
+
+    /** Email address identifying the changed user */
+    String email;
+
+}
@@ -0,0 +1,30 @@
+package com.suyos.registration.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when the server sheds work it has no capacity for.
+ * 
+ * Carries the number of seconds clients should wait before retrying so
+ * the response can include a {@code Retry-After} header.
+ * 
+ * @author Joel Salazar
+ */
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+
+    /** Seconds until a retry is worthwhile */
+    private final long retryAfterSeconds;
+
+    /**
+     * Creates a new service unavailable exception.
+     * 
+     * @param message the error message
+     * @param retryAfterSeconds seconds until a retry is worthwhile
+     */
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+}
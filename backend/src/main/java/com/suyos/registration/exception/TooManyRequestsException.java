@@ -0,0 +1,30 @@
+package com.suyos.registration.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when a client exceeds a rate limit.
+ * 
+ * Carries the number of seconds until the limit allows another attempt so
+ * the response can include a {@code Retry-After} header.
+ * 
+ * @author Joel Salazar
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    /** Seconds until another attempt is allowed */
+    private final long retryAfterSeconds;
+
+    /**
+     * Creates a new rate limit exception.
+     * 
+     * @param message the error message
+     * @param retryAfterSeconds seconds until another attempt is allowed
+     */
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.suyos.registration.filter;
+
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.service.AuthChallengeService;
+import com.suyos.registration.service.ClientAddressResolver;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Filter requiring a solved proof-of-work challenge on password-hashing
+ * requests while challenge mode is active.
+ *
+ * Requests without a valid solution in the {@code X-Auth-Challenge} and
+ * {@code X-Auth-Solution} headers get a 428 carrying a fresh challenge and
+ * its difficulty, before the concurrency limit or any password work is
+ * involved.
+ *
+ * @author Joel Salazar
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthChallengeFilter extends OncePerRequestFilter {
+
+    /** Header carrying the challenge token, in both directions */
+    public static final String CHALLENGE_HEADER = "X-Auth-Challenge";
+
+    /** Header carrying the client's solution */
+    public static final String SOLUTION_HEADER = "X-Auth-Solution";
+
+    /** Header carrying the difficulty of an issued challenge */
+    public static final String DIFFICULTY_HEADER = "X-Auth-Challenge-Difficulty";
+
+    /** Resolver for the client address challenges are bound to */
+    private final ClientAddressResolver clientAddressResolver;
+
+    /** Service issuing and verifying the challenges */
+    private final AuthChallengeService authChallengeService;
+
+    /** Paths of the endpoints that hash passwords */
+    @Value("${app.auth.challenge.paths:/api/v1/auth/login,/api/v1/auth/register}")
+    private Set<String> paths = Set.of("/api/v1/auth/login", "/api/v1/auth/register");
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !paths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                  @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        if (!authChallengeService.isActive()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ClientAddress client = clientAddressResolver.resolve(request);
+        String challenge = request.getHeader(CHALLENGE_HEADER);
+        String solution = request.getHeader(SOLUTION_HEADER);
+        if (challenge != null && authChallengeService.verify(challenge, solution, client)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        int difficulty = authChallengeService.getDifficulty(client);
+        String token = authChallengeService.issue(client, difficulty);
+        response.setStatus(HttpStatus.PRECONDITION_REQUIRED.value());
+        response.setHeader(CHALLENGE_HEADER, token);
+        response.setHeader(DIFFICULTY_HEADER, String.valueOf(difficulty));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"Challenge required.\",\"challenge\":\"" + token
+                + "\",\"difficulty\":" + difficulty + ",\"algorithm\":\"SHA-256\"}");
+    }
+}
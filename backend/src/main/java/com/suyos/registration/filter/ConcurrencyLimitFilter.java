@@ -0,0 +1,114 @@
+package com.suyos.registration.filter;
+
+import com.suyos.registration.config.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Filter shedding password-hashing requests beyond the adaptive
+ * concurrency limit.
+ *
+ * Rejected requests get a 503 with {@code Retry-After} before their body
+ * is read, so a login flood costs almost nothing once the CPU is saturated.
+ * Permits of requests that continue asynchronously are held until the
+ * async processing completes, so they cover the hash and not just the
+ * dispatch that started it.
+ *
+ * @author Joel Salazar
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    /** Limiter deciding how many hashing requests may run concurrently */
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /** Paths of the endpoints that hash passwords */
+    @Value("${app.auth.concurrency-limit.paths:/api/v1/auth/login,/api/v1/auth/register}")
+    private Set<String> paths = Set.of("/api/v1/auth/login", "/api/v1/auth/register");
+
+    /** Delay clients are asked to wait after a rejection */
+    @Value("${app.auth.concurrency-limit.retry-after-seconds:1}")
+    private long retryAfterSeconds = 1;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !paths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                  @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Server is busy. Try again later.\"}");
+            return;
+        }
+
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new PermitReleasingListener());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                concurrencyLimiter.release();
+            }
+        }
+    }
+
+    /**
+     * Listener returning the permit of an async request exactly once.
+     */
+    private final class PermitReleasingListener implements AsyncListener {
+
+        /** Whether the permit was already returned */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                concurrencyLimiter.release();
+            }
+        }
+    }
+}
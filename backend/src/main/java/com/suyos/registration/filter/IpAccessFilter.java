@@ -0,0 +1,48 @@
+package com.suyos.registration.filter;
+
+import com.suyos.registration.service.ClientAddressResolver;
+import com.suyos.registration.service.IpAccessListService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filter rejecting clients denied by the IP access list.
+ *
+ * Runs first in the security filter chain, so denied requests never reach
+ * rate limiting, token parsing or the database.
+ *
+ * @author Joel Salazar
+ */
+@Component
+@RequiredArgsConstructor
+public class IpAccessFilter extends OncePerRequestFilter {
+
+    /** Resolver for the client address the rules are matched against */
+    private final ClientAddressResolver clientAddressResolver;
+
+    /** Service holding the compiled access rules */
+    private final IpAccessListService ipAccessListService;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                  @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        if (!ipAccessListService.isAllowed(clientAddressResolver.resolve(request))) {
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Access denied.\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -1,64 +1,112 @@
 package com.suyos.registration.filter;
 
+import com.suyos.registration.config.RateLimitPolicy;
 import com.suyos.registration.config.RateLimitingConfig;
-import io.github.bucket4j.Bucket;
+import com.suyos.registration.config.SubnetRateLimiter;
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.service.ClientAddressResolver;
+import com.suyos.registration.service.RateLimitPolicyService;
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class RateLimitingFilter extends OncePerRequestFilter {
-    
+
     private final RateLimitingConfig rateLimitingConfig;
-    
+
+    private final RateLimitPolicyService rateLimitPolicyService;
+
+    private final SubnetRateLimiter subnetRateLimiter;
+
+    private final ClientAddressResolver clientAddressResolver;
+
+    /** Limiter for IP-keyed policies: "subnet" for the subnet-aware limiter, "bucket" for Bucket4j */
+    @Value("${app.rate-limit.ip-limiter:bucket}")
+    private String ipLimiter = "bucket";
+
+    /** Whether buckets are shared across nodes; the subnet limiter is node-local */
+    @Value("${app.rate-limit.distributed.enabled:false}")
+    private boolean distributedEnabled;
+
+    /** Whether IP-keyed policies use the subnet-aware limiter */
+    private boolean subnet;
+
+    /**
+     * Chooses the limiter for IP-keyed policies.
+     *
+     * The subnet limiter keeps its state on each node, so it falls back to
+     * the shared Bucket4j buckets when distributed rate limiting is on.
+     */
+    @PostConstruct
+    public void init() {
+        this.subnet = "subnet".equals(ipLimiter);
+        if (subnet && distributedEnabled) {
+            log.warn("The subnet IP limiter is node-local; using shared buckets because distributed rate limiting is enabled");
+            this.subnet = false;
+        }
+    }
+
     @Override
-    protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request, @org.springframework.lang.NonNull HttpServletResponse response, 
+    protected void doFilterInternal(@org.springframework.lang.NonNull HttpServletRequest request, @org.springframework.lang.NonNull HttpServletResponse response,
                                   @org.springframework.lang.NonNull FilterChain filterChain) throws ServletException, IOException {
-        
-        String requestURI = request.getRequestURI();
-        
-        // Apply rate limiting only to auth endpoints
-        if (isAuthEndpoint(requestURI)) {
-            String clientIp = getClientIp(request);
-            Bucket ipBucket = rateLimitingConfig.getIpBucket(clientIp);
-            
-            if (!ipBucket.tryConsume(1)) {
+
+        // Resolve the policies of this route and method with a single trie lookup
+        RateLimitPolicy[] policies = rateLimitPolicyService.match(request.getMethod(), request.getRequestURI());
+
+        ClientAddress client = null;
+        long remaining = Long.MAX_VALUE;
+        for (RateLimitPolicy policy : policies) {
+            // Account-keyed policies are enforced once the request body is known
+            if (policy.getKeyType() != RateLimitPolicy.KeyType.IP) {
+                continue;
+            }
+            if (client == null) {
+                client = clientAddressResolver.resolve(request);
+            }
+
+            long result;
+            if (subnet && client.isParsed()) {
+                result = subnetRateLimiter.tryAcquire(policy, client.getFamily(), client.getHigh(), client.getLow());
+            } else {
+                // Clients without a parseable address fall back to string-keyed buckets
+                ConsumptionProbe probe = rateLimitingConfig.getBucket(policy, client.getText())
+                        .tryConsumeAndReturnRemaining(1);
+                result = probe.isConsumed() ? probe.getRemainingTokens() : -Math.max(1, probe.getNanosToWaitForRefill());
+            }
+
+            if (result < 0) {
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(
+                        -result + TimeUnit.SECONDS.toNanos(1) - 1));
                 response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
                 response.setContentType("application/json");
                 response.getWriter().write("{\"error\":\"Too many requests. Try again later.\"}");
                 return;
             }
-            
-            // Add rate limit headers
-            response.setHeader("X-Rate-Limit-Remaining", String.valueOf(ipBucket.getAvailableTokens()));
-        }
-        
-        filterChain.doFilter(request, response);
-    }
-    
-    private boolean isAuthEndpoint(String uri) {
-        return uri.contains("/api/v1/auth/") || uri.contains("/oauth2/");
-    }
-    
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
+            remaining = Math.min(remaining, result);
         }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
+
+        // Add rate limit headers
+        if (remaining != Long.MAX_VALUE) {
+            response.setHeader("X-Rate-Limit-Remaining", String.valueOf(remaining));
         }
-        
-        return request.getRemoteAddr();
+
+        filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
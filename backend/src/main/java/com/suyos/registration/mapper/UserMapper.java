@@ -39,6 +39,7 @@ public interface UserMapper {
     @Mapping(target = "lockedUntil", ignore = true)
     @Mapping(target = "lastLoginAt", ignore = true)
     @Mapping(target = "failedLoginAttempts", ignore = true)
+    @Mapping(target = "tokensRevokedBefore", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "oauth2Provider", ignore = true)
@@ -58,6 +59,7 @@ public interface UserMapper {
     @Mapping(target = "lockedUntil", ignore = true)
     @Mapping(target = "lastLoginAt", ignore = true)
     @Mapping(target = "failedLoginAttempts", ignore = true)
+    @Mapping(target = "tokensRevokedBefore", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "oauth2Provider", ignore = true)
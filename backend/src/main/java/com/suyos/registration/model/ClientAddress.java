@@ -0,0 +1,128 @@
+package com.suyos.registration.model;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import com.suyos.registration.util.IpAddressParser;
+
+/**
+ * Address of the client that originated a request.
+ *
+ * Produced once per request by {@code ClientAddressResolver} and shared
+ * through the {@link #REQUEST_ATTRIBUTE} request attribute, so the rate
+ * limiter, the authentication filter and audit logging all agree on the
+ * client without re-reading forwarding headers. The address is kept in
+ * packed form; its text is only built when first requested.
+ *
+ * @author Joel Salazar
+ */
+public final class ClientAddress {
+
+    /** Request attribute under which the resolved address is stored */
+    public static final String REQUEST_ATTRIBUTE = ClientAddress.class.getName();
+
+    /** {@link IpAddressParser#IPV4}, {@link IpAddressParser#IPV6} or {@link IpAddressParser#INVALID} */
+    private final int family;
+
+    /** High 64 bits of the address, 0 for IPv4 */
+    private final long high;
+
+    /** Low 64 bits of the address */
+    private final long low;
+
+    /** Raw address as reported by the container, used when it cannot be parsed */
+    private final String raw;
+
+    /** Canonical text of the address, built on first use */
+    private String text;
+
+    /**
+     * Creates a client address.
+     *
+     * @param family the address family
+     * @param high the high 64 bits of the address
+     * @param low the low 64 bits of the address
+     * @param raw the raw address text, used if the family is invalid
+     */
+    public ClientAddress(int family, long high, long low, String raw) {
+        this.family = family;
+        this.high = high;
+        this.low = low;
+        this.raw = raw;
+    }
+
+    /**
+     * Returns the address family.
+     *
+     * @return {@link IpAddressParser#IPV4}, {@link IpAddressParser#IPV6} or {@link IpAddressParser#INVALID}
+     */
+    public int getFamily() {
+        return family;
+    }
+
+    /**
+     * Returns the high 64 bits of the address.
+     *
+     * @return the high bits, 0 for IPv4
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Returns the low 64 bits of the address.
+     *
+     * @return the low bits
+     */
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Returns whether the address was parsed into packed form.
+     *
+     * @return true for IPv4 and IPv6 addresses
+     */
+    public boolean isParsed() {
+        return family != IpAddressParser.INVALID;
+    }
+
+    /**
+     * Returns the canonical text of the address.
+     *
+     * @return the dotted IPv4 or full IPv6 notation, or the raw text if unparsed
+     */
+    public String getText() {
+        String result = text;
+        if (result == null) {
+            result = format();
+            text = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getText();
+    }
+
+    private String format() {
+        if (family == IpAddressParser.IPV4) {
+            return (low >>> 24) + "." + ((low >>> 16) & 0xFF) + "." + ((low >>> 8) & 0xFF) + "." + (low & 0xFF);
+        }
+        if (family == IpAddressParser.IPV6) {
+            byte[] bytes = new byte[16];
+            for (int i = 0; i < 8; i++) {
+                bytes[i] = (byte) (high >>> (56 - 8 * i));
+                bytes[8 + i] = (byte) (low >>> (56 - 8 * i));
+            }
+            try {
+                return InetAddress.getByAddress(bytes).getHostAddress();
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return raw;
+    }
+
+}
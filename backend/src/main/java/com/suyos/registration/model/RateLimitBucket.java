@@ -0,0 +1,49 @@
+package com.suyos.registration.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity representing the shared state of a distributed rate limiting bucket.
+ * 
+ * This class maps to the 'rate_limit_buckets' table, which lets every
+ * application node enforce the same limit. The serialized bucket state is
+ * replaced with compare-and-swap updates, so no row locks are held.
+ * 
+ * @author Joel Salazar
+ */
+@Entity
+@Table(name = "rate_limit_buckets", indexes = {
+    @Index(name = "idx_rate_limit_bucket_expiry", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RateLimitBucket {
+
+    /**
+     * Key of the bucket as "policyName:key", where the key is the client
+     * address for IP policies and a hash of the email for account policies
+     * (e.g. "auth-ip:203.0.113.9")
+     */
+    @Id
+    @Column(name = "bucket_key", length = 255)
+    private String bucketKey;
+
+    /** Serialized Bucket4j bucket state */
+    @Column(name = "state", nullable = false, length = 1024)
+    private byte[] state;
+
+    /** Time in epoch milliseconds when the bucket is fully refilled and can be purged */
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+
+}
@@ -0,0 +1,54 @@
+package com.suyos.registration.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity representing a revoked (blacklisted) access token.
+ * 
+ * This class maps to the 'revoked_tokens' table, which persists the token
+ * blacklist so that logged-out tokens stay revoked across restarts. Only the
+ * compact token key and its expiry are stored, never the token itself.
+ * 
+ * The table doubles as a change feed between application nodes: rows are
+ * read in ID order so every node can tail revocations made by the others.
+ * 
+ * @author Joel Salazar
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+    @Index(name = "idx_revoked_token_expiry", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken {
+
+    /** Sequence number of the revocation, ordering the change feed */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Compact key of the revoked token (its signature segment) */
+    @Column(name = "token_key", length = 128, nullable = false, unique = true)
+    private String tokenKey;
+
+    /** Token expiration in epoch milliseconds, after which the row can be purged */
+    @Column(name = "expires_at", nullable = false)
+    private Long expiresAt;
+
+    /** Time of revocation in epoch milliseconds, used to measure propagation lag */
+    @Column(name = "revoked_at", nullable = false)
+    private Long revokedAt;
+
+}
@@ -125,6 +125,15 @@ public class User {
     @Builder.Default
     @Column(name = "failed_login_attempts", nullable = false)
     private int failedLoginAttempts = 0;
+
+    /**
+     * Epoch seconds before which all of the user's access tokens are revoked.
+     * Only changed through {@code UserRepository.updateTokensRevokedBefore}, so
+     * saving a stale entity never undoes a concurrent revocation.
+     */
+    @Builder.Default
+    @Column(name = "tokens_revoked_before", nullable = false, updatable = false)
+    private long tokensRevokedBefore = 0;
     
     /** Timestamp when the user record was first created in the system */
     @CreatedDate
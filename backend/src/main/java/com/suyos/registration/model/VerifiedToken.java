@@ -0,0 +1,67 @@
+package com.suyos.registration.model;
+
+import java.util.Date;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * Immutable view of a JWT whose signature and expiration have been verified.
+ *
+ * Produced exactly once per request by {@code JwtService.verifyToken} and
+ * shared through the {@link #REQUEST_ATTRIBUTE} request attribute so that
+ * downstream components never need to parse the same token again.
+ *
+ * @author Joel Salazar
+ */
+@Value
+@Builder
+public class VerifiedToken {
+
+    /** Request attribute under which the filter stores the verified token */
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    /** Raw compact JWT string as received from the client */
+    @ToString.Exclude
+    String token;
+
+    /** Token subject (the user's email address) */
+    String subject;
+
+    /** Unique token identifier ({@code jti}), may be null for legacy tokens */
+    String id;
+
+    /** Timestamp when the token was issued */
+    Date issuedAt;
+
+    /** Timestamp when the token expires */
+    Date expiration;
+
+    /** Unmodifiable map of non-registered claims carried by the token */
+    Map<String, Object> claims;
+
+    /**
+     * Returns a custom claim converted to the requested type.
+     *
+     * @param <T> the expected claim type
+     * @param name the claim name
+     * @param type the expected claim class
+     * @return the claim value, or null if absent or of a different type
+     */
+    public <T> T getClaim(String name, Class<T> type) {
+        Object value = claims.get(name);
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    /**
+     * Checks whether the token has expired since it was verified.
+     *
+     * @return true if the expiration time is in the past or missing
+     */
+    public boolean isExpired() {
+        return expiration == null || expiration.before(new Date());
+    }
+
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.suyos.registration.model.User;
 
@@ -90,6 +91,42 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("UPDATE User u SET u.failedLoginAttempts = :attempts WHERE u.email = :email")
     void updateFailedLoginAttempts(@Param("email") String email, @Param("attempts") Integer attempts);
     
+    /**
+     * Atomically records a failed login attempt and applies the lock threshold.
+     * 
+     * Increments the counter in the database instead of writing back a value
+     * read earlier, so concurrent failures are never lost. The same statement
+     * locks the account once the incremented count reaches the threshold and
+     * sets the lock expiry only if the account was not already locked. Lock
+     * columns are assigned before the counter so every expression sees the
+     * pre-increment row on databases that evaluate assignments in order.
+     * 
+     * @param id The ID of the user
+     * @param threshold The failed attempt count at which the account locks
+     * @param lockedUntil The lock expiry to set if this attempt locks the account
+     */
+    @Modifying
+    @Query("UPDATE User u SET "
+            + "u.lockedUntil = CASE WHEN u.failedLoginAttempts + 1 >= :threshold AND u.accountLocked = false "
+            + "THEN :lockedUntil ELSE u.lockedUntil END, "
+            + "u.accountLocked = CASE WHEN u.failedLoginAttempts + 1 >= :threshold THEN true ELSE u.accountLocked END, "
+            + "u.failedLoginAttempts = u.failedLoginAttempts + 1 "
+            + "WHERE u.id = :id")
+    void incrementFailedLoginAttempts(@Param("id") Long id, @Param("threshold") int threshold,
+                                      @Param("lockedUntil") LocalDateTime lockedUntil);
+    
+    /**
+     * Finds the failed login attempts count of a user.
+     * 
+     * Selects only the counter column; read within the transaction of an
+     * increment, it returns the value that increment produced.
+     * 
+     * @param id The ID of the user
+     * @return Optional containing the count if the user exists
+     */
+    @Query("SELECT u.failedLoginAttempts FROM User u WHERE u.id = :id")
+    Optional<Integer> findFailedLoginAttemptsById(@Param("id") Long id);
+    
     /**
      * Locks a user account until the specified time.
      * 
@@ -112,9 +149,48 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param email The email of the user to unlock
      */
     @Modifying
+    @Transactional
     @Query("UPDATE User u SET u.accountLocked = false, u.lockedUntil = null, u.failedLoginAttempts = 0 WHERE u.email = :email")
     void unlockAccount(@Param("email") String email);
     
+    /**
+     * Replaces a user's password hash if it is still the expected one.
+     * 
+     * Used to store an upgraded hash of the same password without
+     * overwriting a password changed in the meantime.
+     * 
+     * @param id The ID of the user
+     * @param currentHash The hash the upgrade was computed from
+     * @param upgradedHash The new hash of the same password
+     * @return the number of updated rows, 0 if the hash changed meanwhile
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :upgradedHash WHERE u.id = :id AND u.password = :currentHash")
+    int upgradePasswordHash(@Param("id") Long id, @Param("currentHash") String currentHash,
+                            @Param("upgradedHash") String upgradedHash);
+    
+    /**
+     * Finds the time before which a user's access tokens are revoked.
+     * 
+     * Selects only the timestamp column so revocation checks stay lightweight.
+     * 
+     * @param id The ID of the user
+     * @return Optional containing the epoch seconds if the user exists
+     */
+    @Query("SELECT u.tokensRevokedBefore FROM User u WHERE u.id = :id")
+    Optional<Long> findTokensRevokedBeforeById(@Param("id") Long id);
+    
+    /**
+     * Revokes every access token issued to a user before the given time.
+     * 
+     * @param id The ID of the user
+     * @param revokedBefore The cutoff in epoch seconds
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.tokensRevokedBefore = :revokedBefore WHERE u.id = :id")
+    void updateTokensRevokedBefore(@Param("id") Long id, @Param("revokedBefore") long revokedBefore);
+    
     /**
      * Finds a user by OAuth2 provider and provider ID.
      * 
@@ -0,0 +1,368 @@
+package com.suyos.registration.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.suyos.registration.config.AdaptiveConcurrencyLimiter;
+import com.suyos.registration.config.PasswordHashingExecutor;
+import com.suyos.registration.model.ClientAddress;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service issuing and verifying proof-of-work challenges for the
+ * password-hashing endpoints.
+ *
+ * Challenge mode switches on while the hashing load, the larger of the
+ * hashing queue's fill and the concurrency limiter's utilization, is at or
+ * above a threshold. A challenge is a stateless HMAC-signed token binding an
+ * expiry, a difficulty and the client address. A client solves it by finding
+ * a value whose SHA-256 hash, taken over the token, a colon and the value,
+ * starts with the required number of zero bits. Verification costs one HMAC
+ * and one SHA-256, while solving costs the client about 2^difficulty hashes.
+ * The difficulty grows with the load and with the backlog of the client's
+ * subnet in the hashing queue. Solved tokens are remembered until they expire
+ * so each solution is spent once.
+ *
+ * @author Joel Salazar
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuthChallengeService implements MeterBinder {
+
+    /** Number of bytes of the HMAC kept in a token */
+    private static final int TAG_LENGTH = 16;
+
+    /** Number of bytes of a token's signed payload */
+    private static final int PAYLOAD_LENGTH = 25;
+
+    /** Longest accepted solution, bounding the cost of a verification */
+    private static final int MAX_SOLUTION_LENGTH = 64;
+
+    /** Per-thread SHA-256 instance for checking solutions */
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    /** Per-thread HMAC instance, initialized with the signing key */
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    /** Source of challenge identifiers */
+    private final SecureRandom random = new SecureRandom();
+
+    /** Executor whose queue contributes to the load signal */
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    /** Limiter whose utilization contributes to the load signal */
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /** Whether challenge mode may switch on at all */
+    @Value("${app.auth.challenge.enabled:false}")
+    private boolean enabled = false;
+
+    /** Base64 signing secret; a random per-node secret is used if empty */
+    @Value("${app.auth.challenge.secret:}")
+    private String secret = "";
+
+    /** Load at or above which clients must solve a challenge */
+    @Value("${app.auth.challenge.activation-load:0.8}")
+    private double activationLoad = 0.8;
+
+    /** Leading zero bits required when challenge mode switches on */
+    @Value("${app.auth.challenge.base-difficulty:16}")
+    private int baseDifficulty = 16;
+
+    /** Additional bits required at full load */
+    @Value("${app.auth.challenge.load-difficulty:4}")
+    private int loadDifficulty = 4;
+
+    /** Additional bits required from a subnet whose hashing sub-queue is full */
+    @Value("${app.auth.challenge.reputation-difficulty:4}")
+    private int reputationDifficulty = 4;
+
+    /** Highest difficulty ever required */
+    @Value("${app.auth.challenge.max-difficulty:24}")
+    private int maxDifficulty = 24;
+
+    /** Lifetime of a challenge */
+    @Value("${app.auth.challenge.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    /** Maximum number of spent challenges remembered */
+    @Value("${app.auth.challenge.replay-cache-size:100000}")
+    private long replayCacheSize = 100000;
+
+    /** HMAC key signing the challenges */
+    private SecretKeySpec signingKey;
+
+    /** Identifiers of solved, unexpired challenges */
+    private Cache<Long, Boolean> spentChallenges;
+
+    /** Number of challenges handed out */
+    private final LongAdder issued = new LongAdder();
+
+    /** Number of accepted solutions */
+    private final LongAdder solved = new LongAdder();
+
+    /** Number of rejected tokens or solutions */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Decodes the signing secret and creates the replay cache.
+     *
+     * @throws IllegalArgumentException if the secret is not valid Base64
+     */
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes;
+        if (secret.isBlank()) {
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+            if (enabled) {
+                log.warn("No challenge secret configured; challenges are only valid on the node that issued them");
+            }
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret.trim());
+        }
+        this.signingKey = new SecretKeySpec(keyBytes, "HmacSHA256");
+        this.spentChallenges = Caffeine.newBuilder()
+                .maximumSize(replayCacheSize)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, ttlSeconds)))
+                .build();
+    }
+
+    /**
+     * Returns the current hashing load.
+     *
+     * @return the larger of the hashing queue's fill and the concurrency
+     *         limiter's utilization, from 0 upward
+     */
+    public double getLoad() {
+        double queueLoad = (double) passwordHashingExecutor.getQueueDepth()
+                / Math.max(1, passwordHashingExecutor.getQueueCapacity());
+        double limiterLoad = (double) concurrencyLimiter.getInflight() / Math.max(1, concurrencyLimiter.getLimit());
+        return Math.max(queueLoad, limiterLoad);
+    }
+
+    /**
+     * Checks whether clients currently have to solve a challenge.
+     *
+     * @return true if challenge mode is enabled and the load is at or above the threshold
+     */
+    public boolean isActive() {
+        return enabled && getLoad() >= activationLoad;
+    }
+
+    /**
+     * Computes the difficulty of a challenge for a client.
+     *
+     * @param client the client address
+     * @return the number of leading zero bits a solution must have
+     */
+    public int getDifficulty(ClientAddress client) {
+        double overload = activationLoad < 1 ? (getLoad() - activationLoad) / (1 - activationLoad) : 1;
+        double backlog = (double) passwordHashingExecutor.getSourceQueueDepth(client)
+                / Math.max(1, passwordHashingExecutor.getSourceQueueCapacity());
+        int difficulty = baseDifficulty
+                + (int) Math.ceil(loadDifficulty * Math.max(0, Math.min(1, overload)))
+                + (int) Math.ceil(reputationDifficulty * Math.min(1, backlog));
+        return Math.min(maxDifficulty, difficulty);
+    }
+
+    /**
+     * Issues a challenge for a client.
+     *
+     * @param client the client address the challenge is bound to
+     * @param difficulty the number of leading zero bits a solution must have
+     * @return the signed challenge token
+     */
+    public String issue(ClientAddress client, int difficulty) {
+        ByteBuffer token = ByteBuffer.allocate(PAYLOAD_LENGTH + TAG_LENGTH);
+        token.putLong(System.currentTimeMillis() / 1000 + ttlSeconds);
+        token.put((byte) difficulty);
+        token.putLong(bindingOf(client));
+        token.putLong(random.nextLong());
+        token.put(sign(token.array()), 0, TAG_LENGTH);
+        issued.increment();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.array());
+    }
+
+    /**
+     * Verifies a client's solution to a challenge.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Decodes the token and checks its signature in constant
+     *       time.</li>
+     *   <li>Rejects expired tokens and tokens issued to another
+     *       address.</li>
+     *   <li>Checks that the SHA-256 hash of the token, a colon and the
+     *       solution starts with the token's number of zero bits.</li>
+     *   <li>Marks the challenge as spent so the solution cannot be
+     *       replayed.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Admits a request to password hashing only after the client
+     *       has done work, using no server-side state besides the replay
+     *       cache.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param challenge the token from {@link #issue(ClientAddress, int)}
+     * @param solution the client's solution
+     * @param client the address of the client presenting the solution
+     * @return true if the solution is valid and not yet spent
+     */
+    public boolean verify(String challenge, String solution, ClientAddress client) {
+        if (challenge == null || solution == null || solution.isEmpty() || solution.length() > MAX_SOLUTION_LENGTH) {
+            rejected.increment();
+            return false;
+        }
+        byte[] token;
+        try {
+            token = Base64.getUrlDecoder().decode(challenge);
+        } catch (IllegalArgumentException e) {
+            rejected.increment();
+            return false;
+        }
+        if (token.length != PAYLOAD_LENGTH + TAG_LENGTH) {
+            rejected.increment();
+            return false;
+        }
+
+        byte[] expectedTag = Arrays.copyOf(sign(Arrays.copyOf(token, PAYLOAD_LENGTH)), TAG_LENGTH);
+        byte[] tag = Arrays.copyOfRange(token, PAYLOAD_LENGTH, token.length);
+        ByteBuffer payload = ByteBuffer.wrap(token, 0, PAYLOAD_LENGTH);
+        long expiresAt = payload.getLong();
+        int difficulty = payload.get() & 0xFF;
+        long binding = payload.getLong();
+        long id = payload.getLong();
+        if (!MessageDigest.isEqual(tag, expectedTag)
+                || expiresAt < System.currentTimeMillis() / 1000
+                || binding != bindingOf(client)
+                || !hasLeadingZeroBits(challenge, solution, difficulty)
+                || spentChallenges.asMap().putIfAbsent(id, Boolean.TRUE) != null) {
+            rejected.increment();
+            return false;
+        }
+        solved.increment();
+        return true;
+    }
+
+    /**
+     * Registers challenge mode, load and outcome metrics.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.challenge.active", this, service -> service.isActive() ? 1 : 0)
+                .description("Whether clients must solve a challenge before password hashing")
+                .register(registry);
+        Gauge.builder("auth.challenge.load", this, AuthChallengeService::getLoad)
+                .description("Hashing load driving challenge mode")
+                .register(registry);
+        FunctionCounter.builder("auth.challenge.issued", issued, LongAdder::sum)
+                .description("Challenges handed out")
+                .register(registry);
+        FunctionCounter.builder("auth.challenge.verified", solved, LongAdder::sum)
+                .description("Challenge solutions checked")
+                .tag("result", "solved")
+                .register(registry);
+        FunctionCounter.builder("auth.challenge.verified", rejected, LongAdder::sum)
+                .description("Challenge solutions checked")
+                .tag("result", "rejected")
+                .register(registry);
+    }
+
+    /**
+     * Signs a token's payload.
+     *
+     * @param token buffer holding the payload in its first bytes
+     * @return the full HMAC of the payload
+     */
+    private byte[] sign(byte[] token) {
+        Mac mac = macs.get();
+        mac.update(token, 0, PAYLOAD_LENGTH);
+        return mac.doFinal();
+    }
+
+    /**
+     * Derives the value binding a challenge to a client address.
+     *
+     * @param client the client address
+     * @return a hash of the packed address
+     */
+    private static long bindingOf(ClientAddress client) {
+        if (client == null || !client.isParsed()) {
+            return 0;
+        }
+        long h = client.getHigh() * 0x9E3779B97F4A7C15L ^ client.getLow();
+        h = (h ^ (h >>> 31)) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29) ^ client.getFamily();
+    }
+
+    /**
+     * Checks whether a solution's hash starts with enough zero bits.
+     *
+     * @param challenge the challenge token
+     * @param solution the client's solution
+     * @param difficulty the required number of leading zero bits
+     * @return true if the solution meets the difficulty
+     */
+    private static boolean hasLeadingZeroBits(String challenge, String solution, int difficulty) {
+        MessageDigest digest = DIGESTS.get();
+        digest.update(challenge.getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        byte[] hash = digest.digest(solution.getBytes(StandardCharsets.UTF_8));
+        int bits = 0;
+        for (byte b : hash) {
+            if (b != 0) {
+                bits += Integer.numberOfLeadingZeros(b & 0xFF) - 24;
+                break;
+            }
+            bits += 8;
+        }
+        return bits >= difficulty;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize challenge signing", e);
+        }
+    }
+
+}
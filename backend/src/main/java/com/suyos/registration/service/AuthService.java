@@ -1,21 +1,31 @@
 package com.suyos.registration.service;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.suyos.registration.config.PasswordHashingExecutor;
 import com.suyos.registration.dto.AuthenticationResponseDTO;
 import com.suyos.registration.dto.UserLoginDTO;
 import com.suyos.registration.dto.UserProfileDTO;
 import com.suyos.registration.dto.UserRegistrationDTO;
+import com.suyos.registration.event.UserAccountChangedEvent;
 import com.suyos.registration.mapper.UserMapper;
+import com.suyos.registration.model.ClientAddress;
 import com.suyos.registration.model.User;
 import com.suyos.registration.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for handling authentication and user registration operations.
@@ -27,7 +37,7 @@ import lombok.RequiredArgsConstructor;
  */
 @Service
 @RequiredArgsConstructor
-@Transactional
+@Slf4j
 public class AuthService {
 
     /** Service for handling failed login attempts and account locking */
@@ -47,49 +57,107 @@ public class AuthService {
     
     /** Security audit service for logging security events */
     private final SecurityAuditService securityAuditService;
+    
+    /** Resolver for the client address recorded in audit events */
+    private final ClientAddressResolver clientAddressResolver;
+    
+    /** Write-behind buffer for last login times */
+    private final LastLoginRecorder lastLoginRecorder;
+    
+    /** Opt-in cache of recent successful password verifications */
+    private final CredentialVerificationCache credentialVerificationCache;
+    
+    /** Executor running password hashing off the request thread */
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    
+    /** Publisher for account change events that invalidate cached user details */
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /** Service providing the authorities embedded in access tokens */
+    private final CustomUserDetailsService customUserDetailsService;
 
     /**
-     * Registers a new user account. asdasdasd
+     * Registers a new user account.
+     * 
+     * The password is hashed on the {@link PasswordHashingExecutor}, queued
+     * fairly with other work from the client's subnet, so
+     * neither the request thread nor a database connection is held while
+     * hashing; the email check and the insert each run in their own short
+     * repository transaction.
      * 
-     * @param registrationDTO the registration information
-     * @return the created user's profile information
+     * @param userRegistrationDTO the registration information
+     * @param request the HTTP request, used for audit logging
+     * @return a future completed with the created user's profile information
      * @throws RuntimeException if email already exists
      */
-    public UserProfileDTO registerUser(UserRegistrationDTO userRegistrationDTO, jakarta.servlet.http.HttpServletRequest request) {
+    public CompletableFuture<UserProfileDTO> registerUser(UserRegistrationDTO userRegistrationDTO, jakarta.servlet.http.HttpServletRequest request) {
         if (userRepository.existsByEmail(userRegistrationDTO.getEmail())) {
             throw new RuntimeException("Email already registered");
         }
         
-        User user = userMapper.toEntity(userRegistrationDTO);
+        // Capture request data before leaving the request thread
+        String clientIp = clientAddressResolver.getClientIp(request);
+        String userAgent = securityAuditService.getUserAgent(request);
         
-        user.setPassword(passwordEncoder.encode(userRegistrationDTO.getPassword()));
-        user.setAccountEnabled(true);
-        user.setEmailVerified(false);
-        user.setFailedLoginAttempts(0);
-        user.setTermsAcceptedAt(LocalDateTime.now());
-        user.setPrivacyPolicyAcceptedAt(LocalDateTime.now());
-        
-        User savedUser = userRepository.save(user);
-        
-        // Log registration event
-        securityAuditService.logRegistration(
-            savedUser.getUsername(), 
-            savedUser.getEmail(),
-            securityAuditService.getClientIp(request),
-            securityAuditService.getUserAgent(request)
-        );
-        
-        return userMapper.toProfileDTO(savedUser);
+        return passwordHashingExecutor.submit(clientAddressResolver.resolve(request),
+                        () -> passwordEncoder.encode(userRegistrationDTO.getPassword()))
+                .thenApply(encodedPassword -> {
+                    User user = userMapper.toEntity(userRegistrationDTO);
+                    
+                    user.setPassword(encodedPassword);
+                    user.setAccountEnabled(true);
+                    user.setEmailVerified(false);
+                    user.setFailedLoginAttempts(0);
+                    user.setTermsAcceptedAt(LocalDateTime.now());
+                    user.setPrivacyPolicyAcceptedAt(LocalDateTime.now());
+                    
+                    User savedUser = userRepository.save(user);
+                    
+                    // Log registration event
+                    securityAuditService.logRegistration(
+                        savedUser.getUsername(), 
+                        savedUser.getEmail(),
+                        clientIp,
+                        userAgent
+                    );
+                    
+                    return userMapper.toProfileDTO(savedUser);
+                });
     }
 
     /**
      * Authenticates a user login attempt and generates JWT token.
      * 
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Loads the user and rejects locked accounts on the request
+     *       thread.</li>
+     *   <li>Skips the hash if the same credentials were verified against
+     *       the same stored hash within the credential cache's TTL.</li>
+     *   <li>Otherwise verifies the password on the {@link PasswordHashingExecutor},
+     *       queued fairly against other client subnets, without holding a
+     *       database connection.</li>
+     *   <li>Records a failed attempt, or clears failure state with a
+     *       targeted update if there is any and hands the login time to the
+     *       write-behind {@link LastLoginRecorder}.</li>
+     *   <li>Schedules a rehash if the stored hash uses an outdated
+     *       algorithm or strength, without delaying the response.</li>
+     * </ol>
+     * 
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Keeps request threads and the connection pool available while
+     *       the CPU-bound hash runs.</li>
+     * </ul>
+     * 
+     * <hr>
+     * 
      * @param userLoginDTO the login credentials
-     * @return authentication response with JWT token and user profile
+     * @param request the HTTP request, used for audit logging
+     * @return a future completed with the JWT token and user profile
      * @throws RuntimeException if authentication fails
      */
-    public AuthenticationResponseDTO authenticateUser(UserLoginDTO userLoginDTO, jakarta.servlet.http.HttpServletRequest request) {
+    public CompletableFuture<AuthenticationResponseDTO> authenticateUser(UserLoginDTO userLoginDTO, jakarta.servlet.http.HttpServletRequest request) {
         Optional<User> userOpt = userRepository.findActiveUserByEmail(userLoginDTO.getEmail());
         
         if (userOpt.isEmpty()) {
@@ -103,45 +171,89 @@ public class AuthService {
             throw new RuntimeException("Account is locked. Try again later.");
         }
         
-        if (!passwordEncoder.matches(userLoginDTO.getPassword(), user.getPassword())) {
-            loginAttemptService.recordFailedAttempt(user);
-            securityAuditService.logLoginAttempt(
-                userLoginDTO.getEmail(),
-                securityAuditService.getClientIp(request),
-                securityAuditService.getUserAgent(request),
-                false
-            );
-            throw new RuntimeException("Invalid email or password");
-        }
+        // Capture request data before leaving the request thread
+        String clientIp = clientAddressResolver.getClientIp(request);
+        String userAgent = securityAuditService.getUserAgent(request);
         
-        user.setFailedLoginAttempts(0);
-        user.setLastLoginAt(LocalDateTime.now());
-        user.setAccountLocked(false);
-        user.setLockedUntil(null);
+        ClientAddress client = clientAddressResolver.resolve(request);
         
-        userRepository.save(user);
-        
-        var userDetails = org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .authorities(new java.util.ArrayList<>())
-                .build();
-        
-        String jwtToken = jwtService.generateToken(userDetails);
-        
-        // Log successful login
-        securityAuditService.logLoginAttempt(
-            user.getEmail(),
-            securityAuditService.getClientIp(request),
-            securityAuditService.getUserAgent(request),
-            true
-        );
+        String email = user.getEmail();
+        String storedHash = user.getPassword();
+        CompletableFuture<Boolean> verification;
+        if (credentialVerificationCache.matches(email, userLoginDTO.getPassword(), storedHash)) {
+            verification = CompletableFuture.completedFuture(true);
+        } else {
+            verification = passwordHashingExecutor.submit(client, () -> {
+                boolean matches = passwordEncoder.matches(userLoginDTO.getPassword(), storedHash);
+                if (matches) {
+                    credentialVerificationCache.record(email, userLoginDTO.getPassword(), storedHash);
+                }
+                return matches;
+            });
+        }
         
-        return AuthenticationResponseDTO.builder()
-                .accessToken(jwtToken)
-                .expiresIn(jwtService.getExpirationTime())
-                .user(userMapper.toProfileDTO(user))
-                .build();
+        return verification
+                .thenApply(matches -> {
+                    if (!matches) {
+                        loginAttemptService.recordFailedAttempt(user);
+                        securityAuditService.logLoginAttempt(userLoginDTO.getEmail(), clientIp, userAgent, false);
+                        throw new RuntimeException("Invalid email or password");
+                    }
+                    
+                    // Clear failure state synchronously only when there is some
+                    if (user.getFailedLoginAttempts() > 0 || Boolean.TRUE.equals(user.getAccountLocked())
+                            || user.getLockedUntil() != null) {
+                        userRepository.unlockAccount(user.getEmail());
+                    }
+                    user.setFailedLoginAttempts(0);
+                    user.setAccountLocked(false);
+                    user.setLockedUntil(null);
+                    user.setLastLoginAt(LocalDateTime.now());
+                    lastLoginRecorder.record(user.getId(), user.getLastLoginAt());
+                    
+                    if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+                        upgradePasswordHash(user, userLoginDTO.getPassword(), client);
+                    }
+                    
+                    String jwtToken = generateAccessToken(user);
+                    
+                    // Log successful login
+                    securityAuditService.logLoginAttempt(user.getEmail(), clientIp, userAgent, true);
+                    
+                    return AuthenticationResponseDTO.builder()
+                            .accessToken(jwtToken)
+                            .expiresIn(jwtService.getExpirationTime())
+                            .user(userMapper.toProfileDTO(user))
+                            .build();
+                });
+    }
+
+    /**
+     * Rehashes a verified password with the current encoder in the background.
+     * 
+     * The new hash is computed on the {@link PasswordHashingExecutor} after
+     * the login completes and is only stored if the user's hash is still the
+     * one that was verified. Failures, including a full hashing queue, leave
+     * the old hash in place for the next login to retry.
+     * 
+     * @param user the user whose password was just verified
+     * @param rawPassword the verified password
+     * @param client the client that logged in
+     */
+    private void upgradePasswordHash(User user, String rawPassword, ClientAddress client) {
+        Long userId = user.getId();
+        String email = user.getEmail();
+        String currentHash = user.getPassword();
+        passwordHashingExecutor.submit(client, () -> passwordEncoder.encode(rawPassword))
+                .thenAccept(upgradedHash -> {
+                    if (userRepository.upgradePasswordHash(userId, currentHash, upgradedHash) > 0) {
+                        eventPublisher.publishEvent(new UserAccountChangedEvent(email));
+                    }
+                })
+                .exceptionally(e -> {
+                    log.warn("Deferred password rehash for user {} failed: {}", userId, e.getMessage());
+                    return null;
+                });
     }
 
     /**
@@ -155,6 +267,7 @@ public class AuthService {
      * @param providerId unique identifier from Google
      * @return authentication response with JWT token and user profile
      */
+    @Transactional
     public AuthenticationResponseDTO processGoogleOAuth2User(String email, String name, String providerId) {
         // First check if user exists by OAuth2 provider and ID
         Optional<User> oauth2User = userRepository.findByOauth2ProviderAndOauth2ProviderId("google", providerId);
@@ -172,6 +285,7 @@ public class AuthService {
                 user.setOauth2ProviderId(providerId);
                 user.setEmailVerified(true); // Google emails are verified
                 userRepository.save(user);
+                eventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
             } else {
                 // Create new user
                 user = createGoogleOAuth2User(email, name, providerId);
@@ -183,13 +297,7 @@ public class AuthService {
         userRepository.save(user);
         
         // Generate JWT token (same as traditional authentication)
-        var userDetails = org.springframework.security.core.userdetails.User.builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .authorities(new java.util.ArrayList<>())
-                .build();
-        
-        String jwtToken = jwtService.generateToken(userDetails);
+        String jwtToken = generateAccessToken(user);
         
         return AuthenticationResponseDTO.builder()
                 .accessToken(jwtToken)
@@ -198,6 +306,33 @@ public class AuthService {
                 .build();
     }
 
+    /**
+     * Generates an access token carrying the user's identity.
+     * 
+     * Embeds the user ID and granted authorities so the JWT filter can
+     * authenticate requests without loading the user.
+     * 
+     * @param user the authenticated user
+     * @return the generated JWT token
+     */
+    private String generateAccessToken(User user) {
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+                .username(user.getEmail())
+                .password(user.getPassword())
+                .authorities(customUserDetailsService.getAuthorities(user))
+                .build();
+        
+        List<String> authorities = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        
+        Map<String, Object> claims = Map.of(
+                JwtService.CLAIM_USER_ID, user.getId(),
+                JwtService.CLAIM_AUTHORITIES, authorities);
+        
+        return jwtService.generateToken(claims, userDetails);
+    }
+
     /**
      * Creates a new user from Google OAuth2 provider information.
      * 
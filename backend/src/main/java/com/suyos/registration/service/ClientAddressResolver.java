@@ -0,0 +1,330 @@
+package com.suyos.registration.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.util.CidrTree;
+import com.suyos.registration.util.IpAddressParser;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service resolving the address of the client behind a request.
+ *
+ * Forwarding headers are only honored when the request arrives from a
+ * configured trusted proxy, and only the one header that proxy is
+ * configured to set is read: {@code X-Forwarded-For}, the RFC 7239
+ * {@code Forwarded} header or {@code X-Real-IP}. Proxies usually pass the
+ * other headers through unchanged, so reading them would let clients pick
+ * their own address. List headers are read right to left, skipping every
+ * hop that is itself a trusted proxy, so the first untrusted hop is the
+ * client; anything a client writes into the header lies to the left of
+ * that hop and is ignored.
+ *
+ * Addresses are parsed in place into packed primitives and the result is
+ * cached as a request attribute, so each request is resolved only once.
+ *
+ * @author Joel Salazar
+ */
+@Service
+@Slf4j
+public class ClientAddressResolver {
+
+    /** Per-thread buffer receiving packed addresses while parsing */
+    private static final ThreadLocal<long[]> ADDRESS_BUFFER = ThreadLocal.withInitial(() -> new long[2]);
+
+    /** Comma-separated CIDR ranges of the proxies whose forwarding headers are trusted */
+    @Value("${app.client-address.trusted-proxies:127.0.0.0/8,::1/128}")
+    private String trustedProxies = "127.0.0.0/8,::1/128";
+
+    /** Forwarding header set by the trusted proxies; all others are ignored */
+    @Value("${app.client-address.forwarded-header:X-Forwarded-For}")
+    private String forwardedHeader = "X-Forwarded-For";
+
+    /** Ranges of the trusted proxies */
+    private CidrTree<Boolean> trustedRanges = new CidrTree<>();
+
+    /** Parsed form of the configured forwarding header */
+    private ForwardingHeader forwardingHeader = ForwardingHeader.X_FORWARDED_FOR;
+
+    /**
+     * Parses the trusted proxy ranges and the forwarding header.
+     *
+     * @throws IllegalArgumentException if a range or the header is not recognized
+     */
+    @PostConstruct
+    public void init() {
+        this.forwardingHeader = ForwardingHeader.of(forwardedHeader);
+        CidrTree<Boolean> ranges = new CidrTree<>();
+        long[] range = new long[3];
+        for (String cidr : trustedProxies.split(",")) {
+            cidr = cidr.trim();
+            if (cidr.isEmpty()) {
+                continue;
+            }
+            int family = IpAddressParser.parseCidr(cidr, range);
+            if (family == IpAddressParser.INVALID) {
+                throw new IllegalArgumentException("Invalid trusted proxy range: " + cidr);
+            }
+            ranges.put(family, range[0], range[1], (int) range[2], Boolean.TRUE);
+        }
+        this.trustedRanges = ranges;
+        log.info("Trusting {} from {} proxy ranges", forwardingHeader.headerName, ranges.size());
+    }
+
+    /**
+     * Resolves the client address of a request.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Returns the address cached on the request, if any.</li>
+     *   <li>Uses the connection's remote address if it is not a trusted
+     *       proxy.</li>
+     *   <li>Otherwise reads only the configured forwarding header. For
+     *       {@code Forwarded} and {@code X-Forwarded-For}, walks the hops
+     *       from right to left and picks the first hop that is not a
+     *       trusted proxy, or the leftmost hop if all of them are.</li>
+     *   <li>Stops at the last trusted hop if a hop cannot be parsed, so
+     *       clients cannot choose their identity with garbage values.</li>
+     *   <li>Caches the result as a request attribute.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Gives the rate limiter and audit log a client identity that
+     *       clients cannot spoof through forwarding headers.</li>
+     *   <li>Resolves each request once, without allocating on the common
+     *       path.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param request the HTTP request
+     * @return the client address
+     */
+    public ClientAddress resolve(HttpServletRequest request) {
+        Object cached = request.getAttribute(ClientAddress.REQUEST_ATTRIBUTE);
+        if (cached instanceof ClientAddress clientAddress) {
+            return clientAddress;
+        }
+
+        long[] address = ADDRESS_BUFFER.get();
+        String remoteAddr = request.getRemoteAddr();
+        int family = remoteAddr != null
+                ? IpAddressParser.parse(remoteAddr, 0, remoteAddr.length(), address)
+                : IpAddressParser.INVALID;
+        if (isTrusted(family, address[0], address[1])) {
+            family = resolveForwarded(request, family, address);
+        }
+
+        ClientAddress clientAddress = new ClientAddress(family, address[0], address[1], remoteAddr);
+        request.setAttribute(ClientAddress.REQUEST_ATTRIBUTE, clientAddress);
+        return clientAddress;
+    }
+
+    /**
+     * Resolves the text of the client address of a request.
+     *
+     * @param request the HTTP request
+     * @return the client address text
+     */
+    public String getClientIp(HttpServletRequest request) {
+        return resolve(request).getText();
+    }
+
+    /**
+     * Checks whether an address belongs to a trusted proxy.
+     *
+     * @param family the address family
+     * @param high the high 64 bits of the address
+     * @param low the low 64 bits of the address
+     * @return true if the address is in a trusted range
+     */
+    public boolean isTrusted(int family, long high, long low) {
+        return trustedRanges.match(family, high, low) != null;
+    }
+
+    /**
+     * Walks the forwarding headers of a request from a trusted proxy.
+     *
+     * @param request the HTTP request
+     * @param family the family of the proxy's address
+     * @param address buffer holding the proxy's address, receiving the client's
+     * @return the family of the resolved client address
+     */
+    private int resolveForwarded(HttpServletRequest request, int family, long[] address) {
+        if (forwardingHeader == ForwardingHeader.X_REAL_IP) {
+            String xRealIp = request.getHeader(forwardingHeader.headerName);
+            if (xRealIp != null) {
+                long high = address[0];
+                long low = address[1];
+                int realFamily = IpAddressParser.parse(xRealIp, 0, xRealIp.length(), address);
+                if (realFamily != IpAddressParser.INVALID) {
+                    return realFamily;
+                }
+                address[0] = high;
+                address[1] = low;
+            }
+            return family;
+        }
+
+        boolean forwarded = forwardingHeader == ForwardingHeader.FORWARDED;
+        List<String> values = getHeaderValues(request, forwardingHeader.headerName);
+        if (values == null) {
+            return family;
+        }
+
+        for (int v = values.size() - 1; v >= 0; v--) {
+            String value = values.get(v);
+            int end = value.length();
+            while (end >= 0) {
+                int start = lastElementStart(value, end);
+                long high = address[0];
+                long low = address[1];
+                int hopFamily = forwarded
+                        ? parseForwardedFor(value, start, end, address)
+                        : IpAddressParser.parse(value, start, end, address);
+                if (hopFamily == IpAddressParser.INVALID) {
+                    // Keep the last trusted hop rather than a client-chosen value
+                    address[0] = high;
+                    address[1] = low;
+                    return family;
+                }
+                family = hopFamily;
+                if (!isTrusted(family, address[0], address[1])) {
+                    return family;
+                }
+                end = start - 1;
+            }
+        }
+        return family;
+    }
+
+    /**
+     * Finds the start of the last comma-separated element before an index,
+     * ignoring commas inside quoted strings.
+     *
+     * @param value the header value
+     * @param end the index after the element
+     * @return the index of the element's first character
+     */
+    private static int lastElementStart(String value, int end) {
+        boolean quoted = false;
+        for (int i = end - 1; i >= 0; i--) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Parses the {@code for} parameter of a {@code Forwarded} element.
+     *
+     * @param value the header value
+     * @param from the index of the element's first character
+     * @param to the index after the element
+     * @param address buffer receiving the packed address
+     * @return the address family, or {@link IpAddressParser#INVALID}
+     */
+    private static int parseForwardedFor(String value, int from, int to, long[] address) {
+        int pair = from;
+        while (pair < to) {
+            int pairEnd = value.indexOf(';', pair);
+            if (pairEnd < 0 || pairEnd > to) {
+                pairEnd = to;
+            }
+            int start = pair;
+            while (start < pairEnd && Character.isWhitespace(value.charAt(start))) {
+                start++;
+            }
+            if (value.regionMatches(true, start, "for=", 0, 4)) {
+                int valueStart = start + 4;
+                int valueEnd = pairEnd;
+                while (valueEnd > valueStart && Character.isWhitespace(value.charAt(valueEnd - 1))) {
+                    valueEnd--;
+                }
+                if (valueEnd - valueStart >= 2 && value.charAt(valueStart) == '"' && value.charAt(valueEnd - 1) == '"') {
+                    valueStart++;
+                    valueEnd--;
+                }
+                return IpAddressParser.parse(value, valueStart, valueEnd, address);
+            }
+            pair = pairEnd + 1;
+        }
+        return IpAddressParser.INVALID;
+    }
+
+    /**
+     * Returns all values of a header, or null if it is absent.
+     *
+     * @param request the HTTP request
+     * @param name the header name
+     * @return the header values in order of appearance, or null
+     */
+    private static List<String> getHeaderValues(HttpServletRequest request, String name) {
+        Enumeration<String> headers = request.getHeaders(name);
+        if (headers == null || !headers.hasMoreElements()) {
+            return null;
+        }
+        String first = headers.nextElement();
+        if (!headers.hasMoreElements()) {
+            return Collections.singletonList(first);
+        }
+        List<String> values = new ArrayList<>();
+        values.add(first);
+        values.addAll(Collections.list(headers));
+        return values;
+    }
+
+    /**
+     * Forwarding headers a trusted proxy can be configured to set.
+     */
+    private enum ForwardingHeader {
+
+        /** De facto standard list header appended to by most proxies */
+        X_FORWARDED_FOR("X-Forwarded-For"),
+
+        /** RFC 7239 list header */
+        FORWARDED("Forwarded"),
+
+        /** Single-address header overwritten by the proxy */
+        X_REAL_IP("X-Real-IP");
+
+        /** Name of the HTTP header */
+        private final String headerName;
+
+        ForwardingHeader(String headerName) {
+            this.headerName = headerName;
+        }
+
+        /**
+         * Finds the header with a name, ignoring case.
+         *
+         * @param name the configured header name
+         * @return the matching header
+         * @throws IllegalArgumentException if the name is not a supported header
+         */
+        private static ForwardingHeader of(String name) {
+            for (ForwardingHeader header : values()) {
+                if (header.headerName.equalsIgnoreCase(name.trim())) {
+                    return header;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported forwarding header: " + name);
+        }
+
+    }
+
+}
@@ -0,0 +1,170 @@
+package com.suyos.registration.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.suyos.registration.event.UserAccountChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Short-lived cache of successful password verifications.
+ *
+ * Holds, per email, an HMAC of the email, the password and the stored hash
+ * it was verified against. A repeat login with the same credentials within the TTL matches
+ * the HMAC and skips the password hash; a changed password or upgraded
+ * hash no longer matches. Entries are dropped whenever a
+ * {@link UserAccountChangedEvent} is published, which covers locking,
+ * failed attempts and rehashing. The key is generated at startup and never
+ * leaves the process, so cached entries cannot be used to recover or test
+ * passwords offline.
+ *
+ * @author Joel Salazar
+ */
+@Service
+public class CredentialVerificationCache implements MeterBinder {
+
+    /** Whether successful verifications are cached */
+    @Value("${app.auth.credential-cache.enabled:false}")
+    private boolean enabled = false;
+
+    /** Maximum number of users kept in the cache */
+    @Value("${app.auth.credential-cache.max-size:10000}")
+    private long maxSize = 10000;
+
+    /** Time after which a cached verification must be repeated */
+    @Value("${app.auth.credential-cache.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    /** Per-thread HMAC instance, initialized with the process-local key */
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    /** Process-local HMAC key */
+    private SecretKeySpec key;
+
+    /** Credential HMACs keyed by email; null when caching is disabled */
+    private Cache<String, byte[]> verifications;
+
+    /**
+     * Generates the HMAC key and creates the cache when enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            byte[] keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
+            this.verifications = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    /**
+     * Checks whether credentials were recently verified against a stored hash.
+     *
+     * @param email the user's email
+     * @param rawPassword the presented password
+     * @param storedHash the user's current password hash
+     * @return true if the same credentials were verified within the TTL
+     */
+    public boolean matches(String email, String rawPassword, String storedHash) {
+        if (verifications == null) {
+            return false;
+        }
+        byte[] cached = verifications.getIfPresent(email);
+        return cached != null && MessageDigest.isEqual(cached, digest(email, rawPassword, storedHash));
+    }
+
+    /**
+     * Records a successful verification.
+     *
+     * @param email the user's email
+     * @param rawPassword the verified password
+     * @param storedHash the hash the password was verified against
+     */
+    public void record(String email, String rawPassword, String storedHash) {
+        if (verifications != null) {
+            verifications.put(email, digest(email, rawPassword, storedHash));
+        }
+    }
+
+    /**
+     * Drops a user's cached verification once their account change has committed.
+     *
+     * @param event the account change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        if (verifications != null) {
+            verifications.invalidate(event.getEmail());
+        }
+    }
+
+    /**
+     * Registers hit rate metrics for the cache.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (verifications != null) {
+            CaffeineCacheMetrics.monitor(registry, verifications, "auth.credential-verifications");
+        }
+    }
+
+    /**
+     * Computes the HMAC of a credential triple.
+     *
+     * Fields are length-prefixed so no two triples share an input.
+     *
+     * @param email the user's email
+     * @param rawPassword the password
+     * @param storedHash the stored hash
+     * @return the HMAC
+     */
+    private byte[] digest(String email, String rawPassword, String storedHash) {
+        Mac mac = macs.get();
+        update(mac, email);
+        update(mac, rawPassword);
+        update(mac, storedHash);
+        return mac.doFinal();
+    }
+
+    private static void update(Mac mac, String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        mac.update((byte) (bytes.length >>> 24));
+        mac.update((byte) (bytes.length >>> 16));
+        mac.update((byte) (bytes.length >>> 8));
+        mac.update((byte) bytes.length);
+        mac.update(bytes);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialize credential HMAC", e);
+        }
+    }
+
+}
@@ -1,53 +1,176 @@
 package com.suyos.registration.service;
 
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.suyos.registration.event.UserAccountChangedEvent;
 import com.suyos.registration.model.User;
 import com.suyos.registration.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 
 /**
  * Custom UserDetailsService implementation for Spring Security authentication.
- * 
+ *
  * Loads user details from the database for authentication and authorization.
- * Integrates with Spring Security's authentication mechanism.
- * 
+ * Integrates with Spring Security's authentication mechanism. Optionally keeps
+ * a bounded, TTL-based cache of loaded users that is invalidated whenever a
+ * {@link UserAccountChangedEvent} is published. Users whose email is listed
+ * in {@code app.security.admin-emails} are granted the admin role once
+ * they have verified that email, so registering a listed address before
+ * its owner grants nothing.
+ *
  * @author Joel Salazar
  */
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, MeterBinder {
+
+    /** Authority granting access to administrative endpoints */
+    public static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
 
     /** Repository for user data access */
     private final UserRepository userRepository;
 
+    /** Emails of users granted the admin role */
+    @Value("${app.security.admin-emails:}")
+    private Set<String> adminEmails = Set.of();
+
+    /** Whether loaded user details are cached in memory */
+    @Value("${app.security.user-details-cache.enabled:false}")
+    private boolean cacheEnabled;
+
+    /** Maximum number of users kept in the cache */
+    @Value("${app.security.user-details-cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    /** Time after which a cached user is reloaded, bounding staleness */
+    @Value("${app.security.user-details-cache.ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    /** Loaded user details keyed by email; null when caching is disabled */
+    private Cache<String, UserDetails> userDetailsCache;
+
+    /**
+     * Creates the user details cache when enabled.
+     */
+    @PostConstruct
+    public void init() {
+        if (cacheEnabled) {
+            this.userDetailsCache = Caffeine.newBuilder()
+                    .maximumSize(cacheMaxSize)
+                    .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    /**
+     * Registers hit rate and load time metrics for the user details cache.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (userDetailsCache != null) {
+            CaffeineCacheMetrics.monitor(registry, userDetailsCache, "security.user-details");
+        }
+    }
+
     /**
      * Loads user details by email for authentication.
-     * 
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Returns a copy of the cached user details when present.</li>
+     *   <li>Otherwise queries the database for an active user and caches the
+     *       result. Missing users are never cached.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Removes the repeated active-user query from every authenticated
+     *       request while keeping lock and disable changes visible within the
+     *       configured TTL, or immediately when an event is published.</li>
+     * </ul>
+     *
+     * <hr>
+     *
      * @param email the user's email address
      * @return UserDetails object for Spring Security
      * @throws UsernameNotFoundException if user not found
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        if (userDetailsCache == null) {
+            return loadFromDatabase(email);
+        }
+        // Hand out copies so credential erasure never mutates the cached entry
+        UserDetails cached = userDetailsCache.get(email, this::loadFromDatabase);
+        return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+    }
+
+    /**
+     * Evicts a user from the cache once their account change has committed.
+     *
+     * @param event the account change event
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAccountChanged(UserAccountChangedEvent event) {
+        if (userDetailsCache != null) {
+            userDetailsCache.invalidate(event.getEmail());
+        }
+    }
+
+    /**
+     * Returns the authorities granted to a user.
+     *
+     * @param user the user
+     * @return the admin authority for configured administrators with a
+     *         verified email, otherwise none
+     */
+    public List<GrantedAuthority> getAuthorities(User user) {
+        return Boolean.TRUE.equals(user.getEmailVerified()) && adminEmails.contains(user.getEmail())
+                ? AuthorityUtils.createAuthorityList(ADMIN_AUTHORITY)
+                : AuthorityUtils.NO_AUTHORITIES;
+    }
+
+    /**
+     * Loads user details from the database.
+     *
+     * @param email the user's email address
+     * @return UserDetails object for Spring Security
+     * @throws UsernameNotFoundException if user not found
+     */
+    private UserDetails loadFromDatabase(String email) {
         User user = userRepository.findActiveUserByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
 
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getEmail())
                 .password(user.getPassword())
-                .authorities(new ArrayList<>())
+                .authorities(getAuthorities(user))
                 .accountExpired(false)
                 .accountLocked(user.getAccountLocked())
                 .credentialsExpired(false)
                 .disabled(!user.getAccountEnabled())
                 .build();
     }
-    
-}
\ No newline at end of file
+
+}
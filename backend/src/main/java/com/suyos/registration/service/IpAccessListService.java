@@ -0,0 +1,246 @@
+package com.suyos.registration.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.suyos.registration.config.IpAccessRule;
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.util.CidrTree;
+import com.suyos.registration.util.IpAddressParser;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service deciding whether a client address may use the application.
+ *
+ * Rules are read from a local file with one rule per line, an action and a
+ * CIDR range, for example {@code deny 203.0.113.0/24} or
+ * {@code allow 2001:db8::/32}; text after {@code #} is a comment. The most
+ * specific matching range decides, and addresses matching no rule get the
+ * configured default action. Rules are compiled into a {@link CidrTree}
+ * and the file is checked for changes periodically; a file that fails to
+ * parse leaves the current rules active.
+ *
+ * @author Joel Salazar
+ */
+@Service
+@Slf4j
+public class IpAccessListService implements MeterBinder {
+
+    /** Path of the rules file; access control is off if empty */
+    @Value("${app.ip-access.rules-file:}")
+    private String rulesFile = "";
+
+    /** Action for addresses that match no rule */
+    @Value("${app.ip-access.default-action:ALLOW}")
+    private IpAccessRule.Action defaultAction = IpAccessRule.Action.ALLOW;
+
+    /** Number of requests rejected by the access list */
+    private final LongAdder denied = new LongAdder();
+
+    /** Currently active rules */
+    private volatile Rules rules = new Rules(new CidrTree<>(), List.of(), -1, -1);
+
+    /**
+     * Loads the rules at startup.
+     */
+    @PostConstruct
+    public void init() {
+        if (!rulesFile.isBlank()) {
+            reload();
+        }
+    }
+
+    /**
+     * Reloads the rules if the rules file changed since the last load.
+     *
+     * Runs periodically on the application scheduler.
+     */
+    @Scheduled(fixedDelayString = "${app.ip-access.reload-interval-ms:5000}")
+    public void reloadIfChanged() {
+        if (rulesFile.isBlank()) {
+            return;
+        }
+        try {
+            Path path = Path.of(rulesFile);
+            Rules current = rules;
+            if (Files.getLastModifiedTime(path).toMillis() != current.lastModified || Files.size(path) != current.fileSize) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to reload IP access rules from {}: {}", rulesFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads and compiles the rules file.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Keeps the current rules when no rules file is configured.</li>
+     *   <li>Parses every rule of the file, rejecting malformed lines and
+     *       duplicate ranges.</li>
+     *   <li>Compiles the ranges into a radix tree.</li>
+     *   <li>Carries the match counters of unchanged rules over.</li>
+     *   <li>Atomically activates the new rules.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Lets operators block or admit networks without a restart.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @return the active rules after the reload
+     * @throws IllegalStateException if the file cannot be read
+     * @throws IllegalArgumentException if a rule is malformed
+     */
+    public synchronized List<IpAccessRule> reload() {
+        if (rulesFile.isBlank()) {
+            return rules.list;
+        }
+        Path path = Path.of(rulesFile);
+        List<String> lines;
+        long lastModified;
+        long fileSize;
+        try {
+            lastModified = Files.getLastModifiedTime(path).toMillis();
+            fileSize = Files.size(path);
+            lines = Files.readAllLines(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read IP access rules from " + rulesFile, e);
+        }
+
+        Map<String, LongAdder> counters = new HashMap<>();
+        for (IpAccessRule rule : rules.list) {
+            counters.put(rule.getAction() + " " + rule.getCidr(), rule.getMatches());
+        }
+
+        CidrTree<IpAccessRule> tree = new CidrTree<>();
+        List<IpAccessRule> list = new ArrayList<>();
+        long[] range = new long[3];
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            String[] parts = (comment < 0 ? line : line.substring(0, comment)).trim().split("\\s+");
+            if (parts.length == 1 && parts[0].isEmpty()) {
+                continue;
+            }
+
+            IpAccessRule.Action action = parseAction(parts[0]);
+            int family = parts.length == 2 ? IpAddressParser.parseCidr(parts[1], range) : IpAddressParser.INVALID;
+            if (action == null || family == IpAddressParser.INVALID) {
+                throw new IllegalArgumentException("Invalid IP access rule on line " + (i + 1) + ": " + line.trim());
+            }
+            String key = action + " " + parts[1];
+            IpAccessRule rule = new IpAccessRule(action, parts[1], counters.getOrDefault(key, new LongAdder()));
+            if (tree.put(family, range[0], range[1], (int) range[2], rule) != null) {
+                throw new IllegalArgumentException("Duplicate IP access range on line " + (i + 1) + ": " + parts[1]);
+            }
+            list.add(rule);
+        }
+
+        this.rules = new Rules(tree, List.copyOf(list), lastModified, fileSize);
+        log.info("Loaded {} IP access rules from {}", list.size(), rulesFile);
+        return rules.list;
+    }
+
+    /**
+     * Decides whether a client may proceed and counts the decision.
+     *
+     * @param address the resolved client address
+     * @return true if the client is allowed
+     */
+    public boolean isAllowed(ClientAddress address) {
+        Rules current = rules;
+        IpAccessRule rule = current.tree.size() == 0 || !address.isParsed()
+                ? null
+                : current.tree.match(address.getFamily(), address.getHigh(), address.getLow());
+        IpAccessRule.Action action = defaultAction;
+        if (rule != null) {
+            rule.getMatches().increment();
+            action = rule.getAction();
+        }
+        if (action == IpAccessRule.Action.DENY) {
+            denied.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the active rules in file order.
+     *
+     * @return the unmodifiable list of rules
+     */
+    public List<IpAccessRule> getRules() {
+        return rules.list;
+    }
+
+    /**
+     * Registers rule count and rejection metrics.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ip-access.rules", this, service -> service.rules.list.size())
+                .description("Active IP access rules")
+                .register(registry);
+        FunctionCounter.builder("ip-access.denied", denied, LongAdder::sum)
+                .description("Requests rejected by the IP access list")
+                .register(registry);
+    }
+
+    private static IpAccessRule.Action parseAction(String text) {
+        try {
+            return IpAccessRule.Action.valueOf(text.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compiled snapshot of the rules file.
+     */
+    private static final class Rules {
+
+        /** Rules indexed by range */
+        private final CidrTree<IpAccessRule> tree;
+
+        /** Rules in file order */
+        private final List<IpAccessRule> list;
+
+        /** Modification time of the loaded file */
+        private final long lastModified;
+
+        /** Size of the loaded file */
+        private final long fileSize;
+
+        private Rules(CidrTree<IpAccessRule> tree, List<IpAccessRule> list, long lastModified, long fileSize) {
+            this.tree = tree;
+            this.list = list;
+            this.lastModified = lastModified;
+            this.fileSize = fileSize;
+        }
+
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.suyos.registration.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.ObjLongConsumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.suyos.registration.model.RevokedToken;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Database-backed {@link TokenRevocationStore} using group-committed batches.
+ * 
+ * Revocations are queued in memory and written to the 'revoked_tokens' table
+ * as one JDBC batch per flush window, so logout never waits on the database.
+ * Startup restores the blacklist with a single sequential scan of unexpired
+ * rows.
+ * 
+ * The table is also tailed as a change feed: each node remembers the highest
+ * row ID it has read and periodically fetches newer rows. IDs that are
+ * skipped, for example by a batch that has not committed yet, hold the mark
+ * back until they appear or the gap timeout passes.
+ * 
+ * @author Joel Salazar
+ */
+@Service
+@ConditionalOnProperty(name = "app.token-blacklist.persistence.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class JdbcTokenRevocationStore implements TokenRevocationStore {
+
+    /** Statement used for batched revocation inserts */
+    private static final String INSERT_SQL =
+            "INSERT INTO revoked_tokens (token_key, expires_at, revoked_at) VALUES (?, ?, ?)";
+
+    /** Statement used to tail revocations past the high-water mark */
+    private static final String SELECT_CHANGES_SQL =
+            "SELECT id, token_key, expires_at, revoked_at FROM revoked_tokens WHERE id > ? ORDER BY id LIMIT ?";
+
+    /** JDBC template for batched writes and streaming reads */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Maximum number of rows read per change feed poll */
+    @Value("${app.token-blacklist.replication.batch-size:1000}")
+    private int changeBatchSize = 1000;
+
+    /** How long a missing row ID may hold back the high-water mark */
+    @Value("${app.token-blacklist.replication.gap-timeout-ms:5000}")
+    private long gapTimeoutMillis = 5000;
+
+    /** Revocations waiting for the next group commit */
+    private final Queue<RevokedToken> pendingRevocations = new ConcurrentLinkedQueue<>();
+
+    /** Highest row ID up to which the change feed has been fully read */
+    private long highWaterMark;
+
+    /** When the gap currently holding back the mark was first seen, or 0 */
+    private long gapDetectedAt;
+
+    @Override
+    public void append(String tokenKey, long expiresAtMillis) {
+        pendingRevocations.add(RevokedToken.builder()
+                .tokenKey(tokenKey)
+                .expiresAt(expiresAtMillis)
+                .revokedAt(System.currentTimeMillis())
+                .build());
+    }
+
+    /**
+     * Writes all queued revocations as a single batch.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Drains the pending queue and writes it with one JDBC batch.</li>
+     *   <li>If the batch hits an already persisted key, retries row by row
+     *       and skips the duplicates.</li>
+     *   <li>On any other database error, puts the unwritten revocations back
+     *       in the queue so the next flush retries them.</li>
+     *   <li>Runs once per flush window and a final time on shutdown.</li>
+     * </ol>
+     *
+     * <hr>
+     */
+    @Scheduled(fixedDelayString = "${app.token-blacklist.persistence.flush-interval-ms:50}")
+    @PreDestroy
+    public void flush() {
+        List<RevokedToken> batch = new ArrayList<>();
+        RevokedToken next;
+        while ((next = pendingRevocations.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            writeBatch(batch);
+        } catch (DuplicateKeyException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                RevokedToken revokedToken = batch.get(i);
+                try {
+                    jdbcTemplate.update(INSERT_SQL, revokedToken.getTokenKey(), revokedToken.getExpiresAt(),
+                            revokedToken.getRevokedAt());
+                } catch (DuplicateKeyException ignored) {
+                    // Already persisted, nothing to do
+                } catch (DataAccessException rowFailure) {
+                    requeue(batch.subList(i, batch.size()), rowFailure);
+                    return;
+                }
+            }
+        } catch (DataAccessException e) {
+            requeue(batch, e);
+        }
+    }
+
+    /**
+     * Returns revocations that failed to persist to the pending queue.
+     *
+     * Revocations that have expired in the meantime are dropped, since the
+     * tokens they block are no longer accepted anyway.
+     *
+     * @param failed the revocations that were not written
+     * @param cause the database error
+     */
+    private void requeue(List<RevokedToken> failed, DataAccessException cause) {
+        long now = System.currentTimeMillis();
+        int requeued = 0;
+        for (RevokedToken revokedToken : failed) {
+            if (revokedToken.getExpiresAt() > now) {
+                pendingRevocations.add(revokedToken);
+                requeued++;
+            }
+        }
+        log.error("Failed to persist {} revoked tokens, retrying on next flush: {}", requeued, cause.getMessage());
+    }
+
+    @Override
+    public synchronized void loadUnexpired(long nowMillis, ObjLongConsumer<String> consumer) {
+        // Position the feed first so rows appended during the scan are read again rather than lost
+        Long latestId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM revoked_tokens", Long.class);
+        highWaterMark = latestId != null ? latestId : 0;
+        gapDetectedAt = 0;
+        jdbcTemplate.query(
+                "SELECT token_key, expires_at FROM revoked_tokens WHERE expires_at > ?",
+                rs -> {
+                    consumer.accept(rs.getString(1), rs.getLong(2));
+                },
+                nowMillis);
+    }
+
+    /**
+     * Reads revocations appended by any node since the previous call.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Fetches up to one batch of rows with an ID above the high-water
+     *       mark, in ID order, and hands each one to the handler.</li>
+     *   <li>Advances the mark to the last row of the batch when the IDs are
+     *       contiguous.</li>
+     *   <li>Otherwise advances it only up to the first missing ID, so rows
+     *       committed late are still read, until the gap has persisted for
+     *       the gap timeout and is skipped.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Propagates logouts to every node through the shared database,
+     *       without a message broker and off the request path.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param handler receives each revocation in append order
+     * @return the number of revocations read
+     */
+    @Override
+    public synchronized int readChanges(ChangeHandler handler) {
+        long mark = highWaterMark;
+        long[] contiguous = {mark};
+        long[] highest = {mark};
+        int[] read = {0};
+        jdbcTemplate.query(SELECT_CHANGES_SQL, rs -> {
+            long id = rs.getLong(1);
+            handler.accept(rs.getString(2), rs.getLong(3), rs.getLong(4));
+            if (id == contiguous[0] + 1) {
+                contiguous[0] = id;
+            }
+            highest[0] = id;
+            read[0]++;
+        }, mark, changeBatchSize);
+
+        long now = System.currentTimeMillis();
+        if (contiguous[0] < highest[0]) {
+            if (contiguous[0] != mark || gapDetectedAt == 0) {
+                gapDetectedAt = now;
+            }
+            if (now - gapDetectedAt < gapTimeoutMillis) {
+                highWaterMark = contiguous[0];
+                return read[0];
+            }
+            log.warn("Skipping missing revocation IDs after {}", contiguous[0]);
+        }
+        gapDetectedAt = 0;
+        highWaterMark = highest[0];
+        return read[0];
+    }
+
+    @Override
+    public int purgeExpired(long nowMillis) {
+        return jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at <= ?", nowMillis);
+    }
+
+    /**
+     * Inserts a batch of revocations with a single JDBC batch statement.
+     * 
+     * @param batch the revocations to insert
+     */
+    private void writeBatch(List<RevokedToken> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, revokedToken) -> {
+            ps.setString(1, revokedToken.getTokenKey());
+            ps.setLong(2, revokedToken.getExpiresAt());
+            ps.setLong(3, revokedToken.getRevokedAt());
+        });
+    }
+
+}
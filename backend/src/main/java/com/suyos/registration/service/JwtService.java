@@ -1,23 +1,38 @@
 package com.suyos.registration.service;
 
+import java.time.Duration;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 
+import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.suyos.registration.model.VerifiedToken;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -30,7 +45,18 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Service
 @Slf4j
-public class JwtService {
+public class JwtService implements MeterBinder {
+
+    /** Claim carrying the user's database ID */
+    public static final String CLAIM_USER_ID = "uid";
+
+    /** Claim carrying the user's granted authorities */
+    public static final String CLAIM_AUTHORITIES = "roles";
+
+    /** Registered claim names that are exposed as dedicated fields on {@link VerifiedToken} */
+    private static final Set<String> REGISTERED_CLAIMS = Set.of(
+            Claims.SUBJECT, Claims.ID, Claims.ISSUED_AT, Claims.EXPIRATION,
+            Claims.NOT_BEFORE, Claims.ISSUER, Claims.AUDIENCE);
 
     /** JWT secret key from application properties */
     @Value("${jwt.secret}")
@@ -40,6 +66,173 @@ public class JwtService {
     @Value("${jwt.expiration:86400000}")
     private Long jwtExpiration;
 
+    /** Whether successfully verified tokens are cached in memory */
+    @Value("${app.jwt.verified-cache.enabled:false}")
+    private boolean verifiedCacheEnabled;
+
+    /** Maximum number of verified tokens kept in the cache */
+    @Value("${app.jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+
+    /** HMAC signing key decoded once from {@code jwt.secret} at startup */
+    private SecretKey signingKey;
+
+    /** Immutable, thread-safe parser configured with the signing key */
+    private JwtParser jwtParser;
+
+    /** Verified tokens keyed by their signature segment; null when caching is disabled */
+    private Cache<String, VerifiedToken> verifiedTokenCache;
+
+    /**
+     * Resolves the signing key and builds the shared JWT parser.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Decodes and validates {@code jwt.secret} exactly once, logging any
+     *       configuration warnings a single time at startup.</li>
+     *   <li>Builds one {@link JwtParser} bound to the decoded key. The parser is
+     *       immutable and safe to share across request threads.</li>
+     *   <li>Creates the size-bounded verified-token cache when enabled. Each
+     *       entry expires no later than the token's own {@code exp}.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Removes Base64 decoding, key construction and parser building from
+     *       the per-request authentication path.</li>
+     *   <li>Fails fast on startup if the JWT secret is misconfigured.</li>
+     * </ul>
+     *
+     * <hr>
+     */
+    @PostConstruct
+    public void init() {
+        this.signingKey = getSignInKey();
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        if (verifiedCacheEnabled) {
+            this.verifiedTokenCache = Caffeine.newBuilder()
+                    .maximumSize(verifiedCacheMaxSize)
+                    .expireAfter(Expiry.creating((String key, VerifiedToken value) -> Duration.ofMillis(
+                            Math.max(0, value.getExpiration().getTime() - System.currentTimeMillis()))))
+                    .recordStats()
+                    .build();
+        }
+    }
+
+    /**
+     * Registers hit, miss and eviction metrics for the verified-token cache.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (verifiedTokenCache != null) {
+            CaffeineCacheMetrics.monitor(registry, verifiedTokenCache, "jwt.verified-tokens");
+        }
+    }
+
+    /**
+     * Verifies a JWT token and decodes its claims in a single pass.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Returns the cached result when the same token was verified before
+     *       and has not yet expired or been evicted.</li>
+     *   <li>Otherwise checks the HMAC signature and expiration of the token
+     *       exactly once using the shared parser.</li>
+     *   <li>Copies the subject, identifier, timestamps and custom claims into an
+     *       immutable {@link VerifiedToken}.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Replaces repeated calls to {@link #extractUsername(String)} and
+     *       {@link #isTokenValid(String, UserDetails)}, each of which would
+     *       otherwise re-verify and re-decode the same token.</li>
+     *   <li>Gives the filter, logout and blacklist code one object to share
+     *       for the lifetime of a request.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param token the JWT token
+     * @return the verified token
+     * @throws JwtException if the token is invalid, expired or malformed
+     */
+    public VerifiedToken verifyToken(String token) {
+        if (verifiedTokenCache == null) {
+            return parseVerifiedToken(token);
+        }
+
+        String cacheKey = getTokenKey(token);
+        if (cacheKey == null) {
+            return parseVerifiedToken(token);
+        }
+
+        // The full token must match, so a reused signature segment never yields foreign claims
+        VerifiedToken cached = verifiedTokenCache.getIfPresent(cacheKey);
+        if (cached != null && cached.getToken().equals(token) && !cached.isExpired()) {
+            return cached;
+        }
+
+        VerifiedToken verifiedToken = parseVerifiedToken(token);
+        verifiedTokenCache.put(cacheKey, verifiedToken);
+        return verifiedToken;
+    }
+
+    /**
+     * Removes a token from the verified-token cache.
+     * 
+     * Called when a token is blacklisted so that it no longer occupies a
+     * cache slot for the rest of its lifetime.
+     * 
+     * @param token the JWT token to evict
+     */
+    public void evictVerifiedToken(String token) {
+        if (verifiedTokenCache != null && token != null) {
+            String cacheKey = getTokenKey(token);
+            if (cacheKey != null) {
+                verifiedTokenCache.invalidate(cacheKey);
+            }
+        }
+    }
+
+    /**
+     * Verifies and decodes a token without consulting the cache.
+     * 
+     * Tokens without an expiration are rejected; every issued token carries
+     * one, and later checks rely on it.
+     * 
+     * @param token the JWT token
+     * @return the verified token
+     * @throws JwtException if the token is invalid, expired, malformed or
+     *         has no expiration
+     */
+    private VerifiedToken parseVerifiedToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new JwtException("JWT token has no expiration");
+        }
+
+        Map<String, Object> customClaims = new HashMap<>();
+        claims.forEach((name, value) -> {
+            if (!REGISTERED_CLAIMS.contains(name)) {
+                customClaims.put(name, value);
+            }
+        });
+
+        return VerifiedToken.builder()
+                .token(token)
+                .subject(claims.getSubject())
+                .id(claims.getId())
+                .issuedAt(claims.getIssuedAt())
+                .expiration(claims.getExpiration())
+                .claims(Collections.unmodifiableMap(customClaims))
+                .build();
+    }
+
     /**
      * Extracts username from JWT token.
      * 
@@ -135,8 +328,7 @@ public class JwtService {
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+            return isTokenValid(verifyToken(token), userDetails);
         } catch (JwtException e) {
             log.warn("Token validation failed: {}", e.getMessage());
             return false;
@@ -147,13 +339,18 @@ public class JwtService {
     }
 
     /**
-     * Checks if JWT token is expired.
+     * Validates an already verified token against user details.
      * 
-     * @param token the JWT token
-     * @return true if token is expired, false otherwise
+     * Performs no parsing or signature verification.
+     * 
+     * @param verifiedToken the verified token
+     * @param userDetails the user details to validate against
+     * @return true if the token belongs to the user and has not expired
      */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(VerifiedToken verifiedToken, UserDetails userDetails) {
+        return verifiedToken.getSubject() != null
+                && verifiedToken.getSubject().equals(userDetails.getUsername())
+                && !verifiedToken.isExpired();
     }
 
     /**
@@ -165,9 +362,7 @@ public class JwtService {
      */
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSignInKey())
-                    .build()
+            return jwtParser
                     .parseSignedClaims(token)
                     .getPayload();
         } catch (ExpiredJwtException e) {
@@ -185,6 +380,25 @@ public class JwtService {
         }
     }
 
+    /**
+     * Derives the compact key identifying a token.
+     * 
+     * The signature segment is an HMAC-SHA256 digest of the header and
+     * payload, so it is already a compact, collision-resistant key and costs
+     * no additional hashing. Used by the verified-token cache and the token
+     * blacklist.
+     * 
+     * @param token the JWT token
+     * @return the signature segment, or null if the token has no signature
+     */
+    public static String getTokenKey(String token) {
+        int separator = token.lastIndexOf('.');
+        if (separator < 0 || separator == token.length() - 1) {
+            return null;
+        }
+        return token.substring(separator + 1);
+    }
+
     /**
      * Builds JWT token with specified claims and expiration.
      * 
@@ -197,18 +411,21 @@ public class JwtService {
         return Jwts.builder()
                 .claims(extraClaims)
                 .subject(userDetails.getUsername())
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     /**
-     * Gets the signing key for JWT token operations.
+     * Decodes the signing key for JWT token operations.
+     * 
+     * Only invoked from {@link #init()}; callers use the cached key.
      * 
      * @return the signing key
      */
-    private javax.crypto.SecretKey getSignInKey() {
+    private SecretKey getSignInKey() {
         try {
             byte[] keyBytes;
             try {
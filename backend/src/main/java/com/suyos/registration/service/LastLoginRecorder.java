@@ -0,0 +1,137 @@
+package com.suyos.registration.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind buffer for users' last login times.
+ *
+ * Logins only record the time in memory, coalesced per user so repeated
+ * logins between flushes cost a single row update. Pending times are
+ * written periodically as one JDBC batch touching only the
+ * {@code last_login_at} column, and a final time on shutdown. A crash loses
+ * at most one flush interval of login times, which are informational.
+ *
+ * @author Joel Salazar
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LastLoginRecorder implements MeterBinder {
+
+    /** Statement used for batched last login updates */
+    private static final String UPDATE_SQL = "UPDATE users SET last_login_at = ? WHERE id = ?";
+
+    /** JDBC template for batched writes */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Latest unflushed login time per user ID */
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    /** Number of rows written */
+    private final LongAdder flushed = new LongAdder();
+
+    /**
+     * Records a login, replacing any earlier unflushed login of the same user.
+     *
+     * @param userId the ID of the user who logged in
+     * @param loginAt the time of the login
+     */
+    public void record(Long userId, LocalDateTime loginAt) {
+        pending.merge(userId, loginAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * Writes all pending login times as a single batch.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Removes each pending entry and collects it into one batch.</li>
+     *   <li>Writes the batch with one JDBC batch statement.</li>
+     *   <li>On failure, puts the entries back unless a newer login was
+     *       recorded meanwhile, so the next flush retries them.</li>
+     *   <li>Runs once per flush interval and a final time on shutdown.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Takes the login bookkeeping write out of the login path and
+     *       replaces one full-row update per login with one narrow batched
+     *       update per user and interval.</li>
+     * </ul>
+     *
+     * <hr>
+     */
+    @Scheduled(fixedDelayString = "${app.auth.last-login.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> userIds = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (Long userId : pending.keySet()) {
+            LocalDateTime loginAt = pending.remove(userId);
+            if (loginAt != null) {
+                userIds.add(userId);
+                batch.add(new Object[] {Timestamp.valueOf(loginAt), userId});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch);
+            flushed.add(batch.size());
+        } catch (DataAccessException e) {
+            log.error("Failed to write {} last login times: {}", batch.size(), e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                record(userIds.get(i), ((Timestamp) batch.get(i)[0]).toLocalDateTime());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of users with an unflushed login.
+     *
+     * @return the number of pending updates
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Registers pending and flushed update metrics.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.last-login.pending", this, LastLoginRecorder::getPendingCount)
+                .description("Users whose last login time awaits the next flush")
+                .register(registry);
+        FunctionCounter.builder("auth.last-login.flushed", flushed, LongAdder::sum)
+                .description("Last login times written to the database")
+                .register(registry);
+    }
+
+}
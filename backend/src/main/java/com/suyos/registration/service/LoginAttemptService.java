@@ -2,10 +2,11 @@ package com.suyos.registration.service;
 
 import java.time.LocalDateTime;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.suyos.registration.event.UserAccountChangedEvent;
 import com.suyos.registration.model.User;
 import com.suyos.registration.repository.UserRepository;
 
@@ -16,8 +17,8 @@ import lombok.RequiredArgsConstructor;
  * 
  * Manages failed login attempts, implements account locking mechanisms,
  * and provides security features to prevent brute force attacks.
- * Uses separate transactions to ensure failed attempts are recorded
- * even when authentication fails.
+ * Counters are incremented in the database rather than written back from
+ * the entity, so concurrent failures against one account are all counted.
  * 
  * @author Joel Salazar
  */
@@ -27,6 +28,12 @@ public class LoginAttemptService {
     
     /** Repository for user data access operations */
     private final UserRepository userRepository;
+    
+    /** Service for revoking outstanding tokens when an account is locked */
+    private final SessionRevocationService sessionRevocationService;
+    
+    /** Publisher for account change events that invalidate cached user details */
+    private final ApplicationEventPublisher eventPublisher;
 
     /** Maximum allowed failed login attempts before account lock */
     private static final int MAX_FAILED_ATTEMPTS = 5;
@@ -37,25 +44,51 @@ public class LoginAttemptService {
     /**
      * Records a failed login attempt and implements account locking security.
      * 
-     * Increments the failed login attempt counter for the user and automatically
-     * locks the account if the maximum number of failed attempts is reached.
-     * Uses REQUIRES_NEW transaction propagation to ensure the failed attempt
-     * is saved even if the calling transaction rolls back.
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Increments the counter and applies the lock threshold in one
+     *       atomic update, then reads back the resulting count in the same
+     *       transaction.</li>
+     *   <li>Revokes every token previously issued to the user when this
+     *       attempt is the one that reached the threshold.</li>
+     *   <li>Mirrors the new state onto the given entity, which is not
+     *       saved.</li>
+     *   <li>Joins the caller's transaction if there is one; authentication
+     *       runs outside a transaction, so the attempt commits on its own
+     *       without holding a second connection.</li>
+     * </ol>
+     * 
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Prevents lost updates when several failures for the same account
+     *       race, which a read-modify-write of the entity allowed.</li>
+     * </ul>
+     * 
+     * <hr>
      * 
      * @param user the user who had a failed login attempt
      * @throws IllegalArgumentException if user is null
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Transactional
     public void recordFailedAttempt(User user) {
-        int attempts = user.getFailedLoginAttempts() + 1;
+        LocalDateTime lockedUntil = LocalDateTime.now().plusHours(LOCK_DURATION_HOURS);
+        userRepository.incrementFailedLoginAttempts(user.getId(), MAX_FAILED_ATTEMPTS, lockedUntil);
+        int attempts = userRepository.findFailedLoginAttemptsById(user.getId())
+                .orElse(user.getFailedLoginAttempts() + 1);
         user.setFailedLoginAttempts(attempts);
 
         if (attempts >= MAX_FAILED_ATTEMPTS) {
+            // Increments are serialized by the row lock, so only one attempt sees the threshold
+            if (attempts == MAX_FAILED_ATTEMPTS) {
+                sessionRevocationService.revokeAllSessions(user.getId());
+            }
+            if (!Boolean.TRUE.equals(user.getAccountLocked()) || user.getLockedUntil() == null) {
+                user.setLockedUntil(lockedUntil);
+            }
             user.setAccountLocked(true);
-            user.setLockedUntil(LocalDateTime.now().plusHours(LOCK_DURATION_HOURS));
         }
 
-        userRepository.save(user);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.suyos.registration.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+
+import com.suyos.registration.config.RateLimitPolicy;
+import com.suyos.registration.config.RateLimitingConfig;
+import com.suyos.registration.exception.TooManyRequestsException;
+
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for throttling login attempts per account.
+ * 
+ * Limits how often any client may try to log in to the same account,
+ * regardless of source IP. Runs before the user is loaded or the password is
+ * hashed, so a distributed credential-stuffing attack against one account
+ * cannot consume database or CPU time beyond the allowed attempts.
+ * 
+ * @author Joel Salazar
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoginThrottleService {
+
+    /** Configuration holding the per-account rate limiting buckets */
+    private final RateLimitingConfig rateLimitingConfig;
+
+    /** Service resolving the account-keyed policies of the login route */
+    private final RateLimitPolicyService rateLimitPolicyService;
+
+    /**
+     * Consumes one login attempt for an account.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Normalizes and hashes the email to obtain the account key.</li>
+     *   <li>Consumes one token from the account's bucket of every
+     *       account-keyed policy matching the request.</li>
+     *   <li>Throws if the bucket is empty, reporting when the next attempt
+     *       will be allowed.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Stops brute-force attempts on a single account before any
+     *       password hashing or database access.</li>
+     *   <li>Keeps raw email addresses out of the rate limiting store.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param email the email address the client is logging in with
+     * @param request the login request, used to resolve the route's policies
+     * @throws TooManyRequestsException if the account has no attempts left
+     */
+    public void checkLoginAttempt(String email, HttpServletRequest request) {
+        String accountKey = null;
+        for (RateLimitPolicy policy : rateLimitPolicyService.match(request.getMethod(), request.getRequestURI())) {
+            if (policy.getKeyType() != RateLimitPolicy.KeyType.ACCOUNT) {
+                continue;
+            }
+            if (accountKey == null) {
+                accountKey = getAccountKey(email);
+            }
+            ConsumptionProbe probe = rateLimitingConfig.getBucket(policy, accountKey).tryConsumeAndReturnRemaining(1);
+            if (!probe.isConsumed()) {
+                // Round up so clients never retry before the bucket has refilled
+                long retryAfterSeconds = Math.max(1,
+                        (probe.getNanosToWaitForRefill() + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+                log.warn("Login attempts throttled for account by policy {}, retry after {}s",
+                        policy.getName(), retryAfterSeconds);
+                throw new TooManyRequestsException("Too many login attempts. Try again later.", retryAfterSeconds);
+            }
+        }
+    }
+
+    /**
+     * Derives the rate limiting key of an account from its email.
+     *
+     * Emails are trimmed and lower-cased so case variations share one bucket,
+     * then hashed so the key has a fixed size.
+     *
+     * @param email the email address
+     * @return the account key
+     */
+    private static String getAccountKey(String email) {
+        String normalized = email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
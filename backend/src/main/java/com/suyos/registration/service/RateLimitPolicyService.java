@@ -0,0 +1,204 @@
+package com.suyos.registration.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.stereotype.Service;
+
+import com.suyos.registration.config.RateLimitPolicy;
+import com.suyos.registration.config.RateLimitPolicyMatcher;
+import com.suyos.registration.config.RateLimitProperties;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service resolving which rate limiting policies apply to a request.
+ *
+ * Policies are declared under {@code app.rate-limit.policies} and compiled
+ * into a {@link RateLimitPolicyMatcher} at startup. They can be reloaded at
+ * runtime, in which case an optional external policy file takes precedence
+ * over the application properties. Requests always see a complete matcher,
+ * either the old or the new one.
+ *
+ * @author Joel Salazar
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitPolicyService {
+
+    /** Property prefix the policies are bound from */
+    private static final String PROPERTY_PREFIX = "app.rate-limit";
+
+    /** Environment holding the application properties */
+    private final ConfigurableEnvironment environment;
+
+    /** Loader for the external policy file */
+    private final ResourceLoader resourceLoader;
+
+    /** Optional external policy file, re-read on every reload */
+    @Value("${app.rate-limit.policy-location:}")
+    private String policyLocation = "";
+
+    /** Currently active compiled policies */
+    private volatile RateLimitPolicyMatcher matcher;
+
+    /**
+     * Loads the policies at startup.
+     */
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * Reloads and recompiles all rate limiting policies.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Binds the declared policies from the external policy file, if
+     *       any, and the application properties.</li>
+     *   <li>Falls back to the legacy per-IP and per-user limits when no
+     *       policies are declared.</li>
+     *   <li>Keeps the previous instance of every unchanged policy, so its
+     *       buckets are left untouched.</li>
+     *   <li>Compiles and atomically activates the new matcher. An invalid
+     *       declaration leaves the current policies active.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Allows tuning limits during an incident without a restart and
+     *       without resetting clients that are currently throttled.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @return the active policies after the reload
+     * @throws IllegalArgumentException if the declared policies are invalid
+     */
+    public synchronized List<RateLimitPolicy> reload() {
+        Binder binder = createBinder();
+        RateLimitProperties properties = binder.bind(PROPERTY_PREFIX, RateLimitProperties.class)
+                .orElseGet(RateLimitProperties::new);
+
+        List<RateLimitPolicy> declared = new ArrayList<>();
+        for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+            declared.add(toPolicy(policy));
+        }
+        if (declared.isEmpty()) {
+            declared = getLegacyPolicies(binder);
+        }
+
+        Map<String, RateLimitPolicy> previous = new HashMap<>();
+        if (matcher != null) {
+            matcher.getPolicies().forEach(policy -> previous.put(policy.getName(), policy));
+        }
+        List<RateLimitPolicy> policies = new ArrayList<>();
+        for (RateLimitPolicy policy : declared) {
+            RateLimitPolicy unchanged = previous.get(policy.getName());
+            policies.add(policy.equals(unchanged) ? unchanged : policy);
+        }
+
+        this.matcher = RateLimitPolicyMatcher.compile(policies);
+        log.info("Loaded {} rate limit policies", policies.size());
+        return matcher.getPolicies();
+    }
+
+    /**
+     * Returns the policies that apply to a request.
+     *
+     * The returned array is shared and must not be modified.
+     *
+     * @param method the HTTP method
+     * @param path the request path
+     * @return the applicable policies, possibly empty
+     */
+    public RateLimitPolicy[] match(String method, String path) {
+        return matcher.match(method, path);
+    }
+
+    /**
+     * Returns the active policies in declaration order.
+     *
+     * @return the unmodifiable list of policies
+     */
+    public List<RateLimitPolicy> getPolicies() {
+        return matcher.getPolicies();
+    }
+
+    /**
+     * Creates a binder over the policy file and the application properties.
+     *
+     * @return the binder, resolving placeholders against the environment
+     */
+    private Binder createBinder() {
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        if (policyLocation != null && !policyLocation.isBlank()) {
+            Resource resource = resourceLoader.getResource(policyLocation);
+            if (resource.exists()) {
+                try {
+                    Properties properties = PropertiesLoaderUtils.loadProperties(resource);
+                    sources.add(new MapConfigurationPropertySource(properties));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to read rate limit policies from " + policyLocation, e);
+                }
+            }
+        }
+        ConfigurationPropertySources.get(environment).forEach(sources::add);
+        return new Binder(sources, new PropertySourcesPlaceholdersResolver(environment));
+    }
+
+    /**
+     * Converts a declared policy into its compiled form.
+     *
+     * @param declared the declared policy
+     * @return the compiled policy
+     */
+    private static RateLimitPolicy toPolicy(RateLimitProperties.Policy declared) {
+        List<String> methods = declared.getMethods().stream()
+                .map(method -> method.trim().toUpperCase(Locale.ROOT))
+                .distinct()
+                .sorted()
+                .toList();
+        return new RateLimitPolicy(declared.getName(), declared.getPath(), methods, declared.getKey(),
+                declared.getCapacity(), declared.getRefillPeriod());
+    }
+
+    /**
+     * Builds the policies implied by the legacy per-IP and per-user limits.
+     *
+     * @param binder the binder to read the legacy limits from
+     * @return the legacy policies
+     */
+    private static List<RateLimitPolicy> getLegacyPolicies(Binder binder) {
+        long ipLimit = binder.bind(PROPERTY_PREFIX + ".ip.requests-per-minute", Long.class).orElse(10L);
+        long userLimit = binder.bind(PROPERTY_PREFIX + ".user.requests-per-15-minutes", Long.class).orElse(5L);
+        return List.of(
+                new RateLimitPolicy("auth-ip", "/api/v1/auth/", List.of(), RateLimitPolicy.KeyType.IP,
+                        ipLimit, Duration.ofMinutes(1)),
+                new RateLimitPolicy("oauth2-ip", "/oauth2/", List.of(), RateLimitPolicy.KeyType.IP,
+                        ipLimit, Duration.ofMinutes(1)),
+                new RateLimitPolicy("login-account", "/api/v1/auth/login", List.of("POST"),
+                        RateLimitPolicy.KeyType.ACCOUNT, userLimit, Duration.ofMinutes(15)));
+    }
+
+}
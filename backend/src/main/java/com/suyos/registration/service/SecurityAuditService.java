@@ -202,45 +202,6 @@ public class SecurityAuditService {
         log.info("USER_LOGOUT: user={}, ip={}, userAgent={}", username, ip, userAgent);
     }
 
-    /**
-     * Extracts the client's IP address from the given HTTP request, checking 
-     * common proxy headers before falling back to the remote address.
-     *
-     * <p><b>Behavior:</b></p>
-     * <ol>
-     *   <li>Checks the <code>X-Forwarded-For</code> header for proxy-provided 
-     *       IP information.</li>
-     *   <li>If unavailable, checks the <code>X-Real-IP</code> header.</li>
-     *   <li>If neither is present, returns the IP from 
-     *       {@link HttpServletRequest#getRemoteAddr()}.</li>
-     * </ol>
-     *
-     * <p><b>Purpose:</b></p>
-     * <ul>
-     *   <li>Retrieves the true client IP address for accurate audit logging.</li>
-     *   <li>Supports environments with reverse proxies or load balancers 
-     *       that forward IP information via headers.</li>
-     * </ul>
-     *
-     * <hr>
-     * 
-     * @param request the HTTP request containing potential IP headers
-     * @return the resolved client IP address
-     */
-    public String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-
-        return request.getRemoteAddr();
-    }
-
     /**
      * Retrieves the client's user agent string from the HTTP request headers.
      *
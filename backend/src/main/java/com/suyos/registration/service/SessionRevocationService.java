@@ -0,0 +1,150 @@
+package com.suyos.registration.service;
+
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.suyos.registration.repository.UserRepository;
+import com.suyos.registration.util.LongLongConcurrentMap;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Service for revoking all outstanding sessions of a user at once.
+ *
+ * Each user has a revoked-before timestamp; every access token issued before
+ * it is rejected. Locking an account or logging out everywhere only moves
+ * this timestamp forward, so mass revocation costs one entry per user
+ * instead of one blacklist entry per token. Timestamps are kept in a
+ * primitive-keyed map so the per-request check needs no database lookup.
+ * Cached timestamps are reloaded once they are older than the TTL, so a
+ * revocation made on another node takes effect here within that time.
+ *
+ * @author Joel Salazar
+ */
+@Service
+@RequiredArgsConstructor
+public class SessionRevocationService {
+
+    /** Marker for users whose timestamp has not been loaded yet */
+    private static final long NOT_LOADED = Long.MIN_VALUE;
+
+    /** Timestamp reported for users that no longer exist, rejects every token */
+    private static final long UNKNOWN_USER = Long.MAX_VALUE;
+
+    /** Repository for user data access operations */
+    private final UserRepository userRepository;
+
+    /** How long a cached timestamp is trusted before it is reloaded */
+    @Value("${app.security.revoked-before.ttl-ms:5000}")
+    private long ttlMillis = 5000;
+
+    /** In-memory map of user ID to revoked-before epoch seconds */
+    private final LongLongConcurrentMap revokedBefore = new LongLongConcurrentMap(1024);
+
+    /** In-memory map of user ID to the epoch millis its timestamp was loaded */
+    private final LongLongConcurrentMap loadedAt = new LongLongConcurrentMap(1024);
+
+    /**
+     * Checks whether a token was issued before its user's sessions were revoked.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Looks up the user's revoked-before timestamp in memory.</li>
+     *   <li>On the first lookup for a user, or once the cached timestamp is
+     *       older than the TTL, loads it from the database and remembers
+     *       it.</li>
+     *   <li>Compares it with the token's issued-at time. Tokens without an
+     *       issued-at time count as issued at the epoch.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Lets the JWT filter reject every token of a locked or logged-out
+     *       user in constant time, touching the database at most once per
+     *       user and TTL.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param userId the user's ID from the token
+     * @param issuedAt the token's issued-at time, may be null
+     * @return true if the token has been revoked
+     */
+    public boolean isRevoked(long userId, Date issuedAt) {
+        long issuedAtSeconds = issuedAt != null ? issuedAt.getTime() / 1000 : 0;
+        return issuedAtSeconds < getRevokedBefore(userId);
+    }
+
+    /**
+     * Gets the revoked-before timestamp of a user.
+     *
+     * @param userId the user's ID
+     * @return the timestamp in epoch seconds, 0 if never revoked, or
+     *         {@link Long#MAX_VALUE} if the user does not exist
+     */
+    public long getRevokedBefore(long userId) {
+        long now = System.currentTimeMillis();
+        long epochSeconds = revokedBefore.get(userId, NOT_LOADED);
+        if (epochSeconds == NOT_LOADED || now - loadedAt.get(userId, 0) > ttlMillis) {
+            long loaded = userRepository.findTokensRevokedBeforeById(userId).orElse(UNKNOWN_USER);
+            // Keep the later timestamp in case a revocation raced with the load
+            epochSeconds = revokedBefore.merge(userId, loaded, Math::max);
+            loadedAt.merge(userId, now, Math::max);
+        }
+        return epochSeconds;
+    }
+
+    /**
+     * Drops cached timestamps that have outlived the TTL.
+     *
+     * Users who are no longer active stop taking up memory; active users
+     * would reload on their next request anyway.
+     */
+    @Scheduled(fixedDelayString = "${app.security.revoked-before.ttl-ms:5000}")
+    public void evictExpired() {
+        long cutoff = System.currentTimeMillis() - ttlMillis;
+        // Timestamps go first; a timestamp whose load time is missing is reloaded before use
+        revokedBefore.removeIf((userId, epochSeconds) -> loadedAt.get(userId, 0) < cutoff);
+        loadedAt.removeIf((userId, loaded) -> loaded < cutoff);
+    }
+
+    /**
+     * Logs a user out of every session by revoking all outstanding tokens.
+     *
+     * @param userId the user's ID
+     */
+    @Transactional
+    public void revokeAllSessions(long userId) {
+        long epochSeconds = nextEpochSecond();
+        userRepository.updateTokensRevokedBefore(userId, epochSeconds);
+        remember(userId, epochSeconds);
+    }
+
+    /**
+     * Caches a timestamp set by this node as freshly loaded.
+     *
+     * @param userId the user's ID
+     * @param epochSeconds the revoked-before timestamp
+     */
+    private void remember(long userId, long epochSeconds) {
+        revokedBefore.merge(userId, epochSeconds, Math::max);
+        loadedAt.merge(userId, System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Gets the start of the next second.
+     *
+     * Token issue times only have second precision, so tokens issued during
+     * the current second are revoked as well.
+     *
+     * @return the next second in epoch seconds
+     */
+    private static long nextEpochSecond() {
+        return System.currentTimeMillis() / 1000 + 1;
+    }
+
+}
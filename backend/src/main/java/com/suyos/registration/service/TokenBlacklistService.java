@@ -1,78 +1,465 @@
 package com.suyos.registration.service;
 
 import java.util.Date;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.suyos.registration.model.VerifiedToken;
+import com.suyos.registration.util.BloomFilter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for managing blacklisted JWT tokens.
- * 
+ *
  * Provides functionality to blacklist tokens on logout and check if tokens
  * are blacklisted during authentication. Uses in-memory storage for simplicity.
- * 
+ *
+ * Tokens are stored by their compact signature key inside time buckets that
+ * are indexed by expiration. Once a bucket's time range has passed, all of
+ * its tokens have expired and the whole bucket is dropped at once. Each
+ * bucket is fronted by a Bloom filter so the common "not revoked" answer
+ * costs a few bit probes and the exact set is only consulted on a hit.
+ *
+ * When a {@link TokenRevocationStore} is available, new revocations are also
+ * handed to it and the unexpired ones are reloaded on startup, so logged-out
+ * tokens stay revoked across restarts. With replication enabled the store's
+ * change feed is also polled in the background, keeping this in-memory index
+ * a local replica of revocations made on every node.
+ *
  * @author Joel Salazar
  */
 @Service
 @Slf4j
-public class TokenBlacklistService {
-    
-    /** Thread-safe set of blacklisted JWT tokens */
-    private final Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
-    
+public class TokenBlacklistService implements MeterBinder {
+
+    /** Width of each expiry bucket in seconds */
+    @Value("${app.token-blacklist.bucket-seconds:300}")
+    private long bucketSeconds = 300;
+
+    /** JWT token lifetime in milliseconds, used to size the Bloom filters */
+    @Value("${jwt.expiration:86400000}")
+    private long tokenLifetimeMillis = 86400000L;
+
+    /** Expected number of revocations over one token lifetime */
+    @Value("${app.token-blacklist.bloom.expected-revocations:100000}")
+    private long expectedRevocations = 100000;
+
+    /** Target false positive rate of each bucket's Bloom filter */
+    @Value("${app.token-blacklist.bloom.false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate = 0.01;
+
+    /** Whether revocations made on other nodes are pulled from the store */
+    @Value("${app.token-blacklist.replication.enabled:false}")
+    private boolean replicationEnabled;
+
+    /** Expiry buckets of blacklisted token keys, ordered by bucket index */
+    private final NavigableMap<Long, ExpiryBucket> expiryBuckets = new ConcurrentSkipListMap<>();
+
+    /** Lookups answered by the Bloom filter alone */
+    private final LongAdder bloomNegatives = new LongAdder();
+
+    /** Bloom filter hits confirmed by the exact set */
+    private final LongAdder bloomTruePositives = new LongAdder();
+
+    /** Bloom filter hits rejected by the exact set */
+    private final LongAdder bloomFalsePositives = new LongAdder();
+
+    /** Number of token keys currently held across all buckets */
+    private final AtomicLong blacklistSize = new AtomicLong();
+
+    /** Timer recording the duration of each cleanup run */
+    private Timer purgeTimer;
+
+    /** Timer recording the delay between a remote revocation and its arrival here */
+    private Timer replicationLagTimer;
+
     /** JWT service for token validation and expiration checking */
     private final JwtService jwtService;
-    
+
+    /** Durable store of revocations; null when persistence is disabled */
+    private final TokenRevocationStore revocationStore;
+
     public TokenBlacklistService(JwtService jwtService) {
+        this(jwtService, (TokenRevocationStore) null);
+    }
+
+    @Autowired
+    public TokenBlacklistService(JwtService jwtService, ObjectProvider<TokenRevocationStore> revocationStore) {
+        this(jwtService, revocationStore.getIfAvailable());
+    }
+
+    public TokenBlacklistService(JwtService jwtService, TokenRevocationStore revocationStore) {
         this.jwtService = jwtService;
+        this.revocationStore = revocationStore;
+    }
+
+    /**
+     * Restores unexpired revocations from the durable store.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Streams every unexpired revocation from the store in one query.</li>
+     *   <li>Adds each one to its expiry bucket without writing it back.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Keeps logged-out tokens revoked after a restart or redeploy.</li>
+     * </ul>
+     *
+     * <hr>
+     */
+    @PostConstruct
+    public void loadPersistedRevocations() {
+        if (revocationStore == null) {
+            return;
+        }
+        revocationStore.loadUnexpired(System.currentTimeMillis(), this::addToBucket);
+        log.info("Restored {} revoked tokens from persistent storage", blacklistSize.get());
+    }
+
+    /**
+     * Registers blacklist size, purge time and Bloom filter metrics.
+     *
+     * @param registry the meter registry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("token.blacklist.size", blacklistSize, AtomicLong::get)
+                .description("Number of blacklisted tokens awaiting expiry")
+                .register(registry);
+        this.purgeTimer = Timer.builder("token.blacklist.purge")
+                .description("Time spent dropping expired blacklist buckets")
+                .register(registry);
+        Gauge.builder("token.blacklist.bloom.memory", this, TokenBlacklistService::getBloomMemoryBytes)
+                .description("Bytes held by the blacklist Bloom filters")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("token.blacklist.bloom.expected-fpp", this, TokenBlacklistService::getBloomFalsePositiveRate)
+                .description("Highest expected false positive rate across live Bloom filters")
+                .register(registry);
+        this.replicationLagTimer = Timer.builder("token.blacklist.replication.lag")
+                .description("Delay between a revocation on another node and its arrival in the local replica")
+                .register(registry);
+        FunctionCounter.builder("token.blacklist.bloom.checks", bloomNegatives, LongAdder::sum)
+                .tag("result", "negative")
+                .register(registry);
+        FunctionCounter.builder("token.blacklist.bloom.checks", bloomTruePositives, LongAdder::sum)
+                .tag("result", "true-positive")
+                .register(registry);
+        FunctionCounter.builder("token.blacklist.bloom.checks", bloomFalsePositives, LongAdder::sum)
+                .tag("result", "false-positive")
+                .register(registry);
     }
-    
+
     /**
      * Blacklists a JWT token.
-     * 
+     *
+     * Tokens that fail verification, lack an expiration or have already
+     * expired cannot authenticate, so they are not stored; otherwise
+     * forged tokens would fill the blacklist and, with persistence, the
+     * shared table.
+     *
      * @param token the JWT token to blacklist
      */
     public void blacklistToken(String token) {
+        if (token == null) {
+            return;
+        }
         try {
             Date expiration = jwtService.extractExpiration(token);
             if (expiration.after(new Date())) {
-                blacklistedTokens.add(token);
+                revoke(getBlacklistKey(token), expiration.getTime());
+                jwtService.evictVerifiedToken(token);
                 log.debug("Token blacklisted successfully");
             }
         } catch (Exception e) {
-            log.warn("Failed to blacklist token: {}", e.getMessage());
-            blacklistedTokens.add(token);
+            log.warn("Not blacklisting unverifiable token: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Blacklists an already verified JWT token.
+     *
+     * Uses the expiration carried by the verified token, so the token is not
+     * parsed again.
+     *
+     * @param verifiedToken the verified token to blacklist
+     */
+    public void blacklistToken(VerifiedToken verifiedToken) {
+        if (!verifiedToken.isExpired()) {
+            revoke(getBlacklistKey(verifiedToken.getToken()), verifiedToken.getExpiration().getTime());
+            jwtService.evictVerifiedToken(verifiedToken.getToken());
+            log.debug("Token blacklisted successfully");
         }
     }
-    
+
     /**
      * Checks if a token is blacklisted.
-     * 
+     *
+     * The expiration of a raw token is unknown here, so every live bucket is
+     * consulted. Prefer {@link #isTokenBlacklisted(VerifiedToken)}.
+     *
      * @param token the JWT token to check
      * @return true if token is blacklisted, false otherwise
      */
     public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        if (token == null) {
+            return false;
+        }
+        long hash = hashBlacklistKey(token);
+        String key = getBlacklistKey(token);
+        for (ExpiryBucket bucket : expiryBuckets.values()) {
+            if (bucket.bloom.mightContain(hash) && bucket.keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a verified token is blacklisted.
+     *
+     * Only the single bucket covering the token's expiration is consulted,
+     * and its exact set is only read when the Bloom filter reports a hit.
+     *
+     * @param verifiedToken the verified token to check
+     * @return true if token is blacklisted, false otherwise
+     */
+    public boolean isTokenBlacklisted(VerifiedToken verifiedToken) {
+        ExpiryBucket bucket = expiryBuckets.get(getBucketIndex(verifiedToken.getExpiration().getTime()));
+        if (bucket == null) {
+            return false;
+        }
+        String token = verifiedToken.getToken();
+        if (!bucket.bloom.mightContain(hashBlacklistKey(token))) {
+            bloomNegatives.increment();
+            return false;
+        }
+        if (bucket.keys.contains(getBlacklistKey(token))) {
+            bloomTruePositives.increment();
+            return true;
+        }
+        bloomFalsePositives.increment();
+        return false;
     }
-    
+
+    /**
+     * Pulls revocations made on other nodes into the local replica.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Reads new revocations from the store's change feed.</li>
+     *   <li>Adds the unexpired ones to their expiry buckets without writing
+     *       them back to the store.</li>
+     *   <li>Records the propagation lag of every revocation not seen before.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Makes a logout on one node effective on all nodes while request
+     *       checks stay purely in memory.</li>
+     * </ul>
+     *
+     * <hr>
+     */
+    @Scheduled(fixedDelayString = "${app.token-blacklist.replication.poll-interval-ms:1000}")
+    public void syncReplicatedRevocations() {
+        if (revocationStore == null || !replicationEnabled) {
+            return;
+        }
+        try {
+            revocationStore.readChanges((key, expiresAtMillis, revokedAtMillis) -> {
+                long now = System.currentTimeMillis();
+                if (expiresAtMillis > now && addToBucket(key, expiresAtMillis) && replicationLagTimer != null) {
+                    replicationLagTimer.record(Math.max(0, now - revokedAtMillis), TimeUnit.MILLISECONDS);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to sync replicated revocations: {}", e.getMessage());
+        }
+    }
+
     /**
      * Cleans up expired tokens from blacklist.
-     * This method should be called periodically to prevent memory leaks.
+     *
+     * Runs periodically on the application scheduler. Every bucket whose time
+     * range ends before now is removed as a whole without inspecting or
+     * re-parsing the tokens it contains. Expired rows are also purged from
+     * the durable store, if any.
      */
+    @Scheduled(fixedDelayString = "${app.token-blacklist.cleanup-interval-ms:60000}")
     public void cleanupExpiredTokens() {
-        Date now = new Date();
-        blacklistedTokens.removeIf(token -> {
+        long start = System.nanoTime();
+        // Buckets strictly below the current one only hold tokens that have already expired
+        Map<Long, ExpiryBucket> expired = expiryBuckets.headMap(getBucketIndex(System.currentTimeMillis()));
+        long purged = 0;
+        for (Long index : expired.keySet()) {
+            ExpiryBucket bucket = expiryBuckets.remove(index);
+            if (bucket != null) {
+                purged += bucket.keys.size();
+            }
+        }
+        blacklistSize.addAndGet(-purged);
+        if (revocationStore != null) {
             try {
-                Date expiration = jwtService.extractExpiration(token);
-                return expiration.before(now);
+                revocationStore.purgeExpired(System.currentTimeMillis());
             } catch (Exception e) {
-                return false;
+                log.warn("Failed to purge persisted revocations: {}", e.getMessage());
             }
-        });
-        log.debug("Cleaned up expired blacklisted tokens");
+        }
+        if (purgeTimer != null) {
+            purgeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        log.debug("Cleaned up {} expired blacklisted tokens", purged);
+    }
+
+    /**
+     * Gets the number of blacklisted tokens awaiting expiry.
+     *
+     * @return the number of blacklisted tokens
+     */
+    public long getBlacklistSize() {
+        return blacklistSize.get();
+    }
+
+    /**
+     * Gets the memory held by all live Bloom filters.
+     *
+     * @return the Bloom filter memory in bytes
+     */
+    public long getBloomMemoryBytes() {
+        long total = 0;
+        for (ExpiryBucket bucket : expiryBuckets.values()) {
+            total += bucket.bloom.memoryBytes();
+        }
+        return total;
     }
-    
-}
\ No newline at end of file
+
+    /**
+     * Gets the highest expected false positive rate across live Bloom filters.
+     *
+     * @return the expected false positive probability
+     */
+    public double getBloomFalsePositiveRate() {
+        double highest = 0;
+        for (ExpiryBucket bucket : expiryBuckets.values()) {
+            highest = Math.max(highest, bucket.bloom.expectedFalsePositiveRate());
+        }
+        return highest;
+    }
+
+    /**
+     * Revokes a token key in memory and hands new revocations to the store.
+     *
+     * @param key the compact token key
+     * @param expirationMillis the token expiration in epoch milliseconds
+     */
+    private void revoke(String key, long expirationMillis) {
+        if (addToBucket(key, expirationMillis) && revocationStore != null) {
+            revocationStore.append(key, expirationMillis);
+        }
+    }
+
+    /**
+     * Adds a token key to the bucket covering its expiration.
+     *
+     * @param key the compact token key
+     * @param expirationMillis the token expiration in epoch milliseconds
+     * @return true if the key was not already blacklisted
+     */
+    private boolean addToBucket(String key, long expirationMillis) {
+        ExpiryBucket bucket = expiryBuckets.computeIfAbsent(getBucketIndex(expirationMillis),
+                index -> new ExpiryBucket(createBloomFilter()));
+        // Publish to the Bloom filter first so a visible key is never reported absent
+        bucket.bloom.put(BloomFilter.hash(key, 0));
+        if (bucket.keys.add(key)) {
+            blacklistSize.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates a Bloom filter sized for one bucket's share of the expected
+     * revocations over a token lifetime.
+     *
+     * @return a new, empty Bloom filter
+     */
+    private BloomFilter createBloomFilter() {
+        long bucketsPerLifetime = Math.max(1, tokenLifetimeMillis / TimeUnit.SECONDS.toMillis(bucketSeconds));
+        return new BloomFilter(Math.max(1, expectedRevocations / bucketsPerLifetime), bloomFalsePositiveRate);
+    }
+
+    /**
+     * Maps a point in time to the index of the bucket covering it.
+     *
+     * @param epochMillis the time in epoch milliseconds
+     * @return the bucket index
+     */
+    private long getBucketIndex(long epochMillis) {
+        return epochMillis / TimeUnit.SECONDS.toMillis(bucketSeconds);
+    }
+
+    /**
+     * Derives the compact key under which a token is blacklisted.
+     *
+     * @param token the JWT token
+     * @return the token's signature segment, or the token itself if unsigned
+     */
+    private String getBlacklistKey(String token) {
+        String key = JwtService.getTokenKey(token);
+        return key != null ? key : token;
+    }
+
+    /**
+     * Hashes the blacklist key of a token in place, without extracting it.
+     *
+     * Produces the same value as hashing {@link #getBlacklistKey(String)}.
+     *
+     * @param token the JWT token
+     * @return the 64-bit hash of the token's blacklist key
+     */
+    private long hashBlacklistKey(String token) {
+        int separator = token.lastIndexOf('.');
+        boolean signed = separator >= 0 && separator < token.length() - 1;
+        return BloomFilter.hash(token, signed ? separator + 1 : 0);
+    }
+
+    /**
+     * Blacklisted token keys sharing one expiry time range.
+     */
+    private static final class ExpiryBucket {
+
+        /** Exact set of blacklisted token keys */
+        private final Set<String> keys = ConcurrentHashMap.newKeySet();
+
+        /** Probabilistic front for {@link #keys} */
+        private final BloomFilter bloom;
+
+        private ExpiryBucket(BloomFilter bloom) {
+            this.bloom = bloom;
+        }
+
+    }
+
+}
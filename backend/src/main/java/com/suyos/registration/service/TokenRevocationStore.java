@@ -0,0 +1,75 @@
+package com.suyos.registration.service;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Durable storage backend for the token blacklist.
+ *
+ * Implementations persist revocations so that {@link TokenBlacklistService}
+ * can restore its in-memory index after a restart. Appends must not block
+ * the caller on I/O; they are written in batches.
+ *
+ * The store is also the transport between application nodes: revocations
+ * appended on any node are handed back in order by {@link #readChanges}, so
+ * each node can keep its local blacklist replica in sync.
+ *
+ * @author Joel Salazar
+ */
+public interface TokenRevocationStore {
+
+    /**
+     * Queues a revocation for the next batched write.
+     *
+     * @param tokenKey the compact token key
+     * @param expiresAtMillis the token expiration in epoch milliseconds
+     */
+    void append(String tokenKey, long expiresAtMillis);
+
+    /**
+     * Streams every revocation that has not yet expired.
+     *
+     * Also positions the change feed so that {@link #readChanges} only
+     * returns revocations appended after this snapshot.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param consumer receives each token key and its expiration
+     */
+    void loadUnexpired(long nowMillis, ObjLongConsumer<String> consumer);
+
+    /**
+     * Reads revocations appended by any node since the previous call.
+     *
+     * Revocations may be delivered more than once; consumers must apply
+     * them idempotently.
+     *
+     * @param handler receives each revocation in append order
+     * @return the number of revocations read
+     */
+    int readChanges(ChangeHandler handler);
+
+    /**
+     * Deletes revocations whose tokens have expired.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @return the number of purged revocations
+     */
+    int purgeExpired(long nowMillis);
+
+    /**
+     * Callback receiving revocations read from the change feed.
+     */
+    @FunctionalInterface
+    interface ChangeHandler {
+
+        /**
+         * Handles one revocation.
+         *
+         * @param tokenKey the compact token key
+         * @param expiresAtMillis the token expiration in epoch milliseconds
+         * @param revokedAtMillis the time of revocation in epoch milliseconds
+         */
+        void accept(String tokenKey, long expiresAtMillis, long revokedAtMillis);
+
+    }
+
+}
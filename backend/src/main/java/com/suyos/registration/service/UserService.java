@@ -1,5 +1,6 @@
 package com.suyos.registration.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -7,6 +8,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.suyos.registration.dto.UserProfileDTO;
 import com.suyos.registration.dto.UserUpdateDTO;
+import com.suyos.registration.event.UserAccountChangedEvent;
 import com.suyos.registration.mapper.UserMapper;
 import com.suyos.registration.model.User;
 import com.suyos.registration.repository.UserRepository;
@@ -31,6 +33,9 @@ public class UserService {
     
     /** Mapper for converting between entities and DTOs */
     private final UserMapper userMapper;
+    
+    /** Publisher for account change events that invalidate cached user details */
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Retrieves a user's profile information.
@@ -85,6 +90,7 @@ public class UserService {
         }
         
         User savedUser = userRepository.save(existingUser);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(savedUser.getEmail()));
         return userMapper.toProfileDTO(savedUser);
     }
 
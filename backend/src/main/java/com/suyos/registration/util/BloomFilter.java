@@ -0,0 +1,133 @@
+package com.suyos.registration.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over pre-computed 64-bit hashes.
+ * 
+ * Answers "definitely absent" or "possibly present" with a handful of bit
+ * probes. Callers hash their keys once and pass the hash, which keeps the
+ * common negative lookup free of allocation. Bits are stored in an
+ * {@link AtomicLongArray} so concurrent inserts and lookups need no locking.
+ * 
+ * @author Joel Salazar
+ */
+public class BloomFilter {
+
+    /** Bit array backing the filter */
+    private final AtomicLongArray bits;
+
+    /** Number of addressable bits */
+    private final long bitSize;
+
+    /** Number of bit probes per key */
+    private final int hashFunctions;
+
+    /**
+     * Creates a Bloom filter sized for an expected number of insertions.
+     * 
+     * @param expectedInsertions the number of keys the filter is sized for
+     * @param falsePositiveRate the target false positive probability
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = words * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    /**
+     * Records a key hash in the filter.
+     * 
+     * @param hash the 64-bit hash of the key
+     */
+    public void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = bitIndex(h1 + i * h2);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((bits.get(word) & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a key hash may have been recorded.
+     * 
+     * @param hash the 64-bit hash of the key
+     * @return false if the key was definitely never recorded
+     */
+    public boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long bit = bitIndex(h1 + i * h2);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the current false positive probability from the fill ratio.
+     * 
+     * @return the expected false positive probability
+     */
+    public double expectedFalsePositiveRate() {
+        long setBits = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            setBits += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) setBits / bitSize, hashFunctions);
+    }
+
+    /**
+     * Gets the approximate memory used by the bit array.
+     * 
+     * @return the size of the bit array in bytes
+     */
+    public long memoryBytes() {
+        return bitSize / 8;
+    }
+
+    /**
+     * Maps a probe hash to a bit index.
+     * 
+     * @param combinedHash the probe hash
+     * @return a bit index within the filter
+     */
+    private long bitIndex(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % bitSize;
+    }
+
+    /**
+     * Computes a well-mixed 64-bit hash of a character range.
+     * 
+     * Uses FNV-1a over the characters followed by the MurmurHash3 finalizer,
+     * without allocating a substring.
+     * 
+     * @param value the source string
+     * @param from the index of the first character to hash
+     * @return the 64-bit hash
+     */
+    public static long hash(CharSequence value, int from) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = from; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.suyos.registration.util;
+
+/**
+ * Binary radix (Patricia) tree mapping CIDR ranges to values.
+ *
+ * IPv4 and IPv6 ranges live in separate trees over 32-bit and 128-bit keys.
+ * Nodes only exist where ranges begin or branch, and each node skips over
+ * the bits its whole subtree shares, so a lookup compares at most one node
+ * per differing bit and costs time proportional to the address length
+ * regardless of the number of ranges. Lookups return the value of the
+ * longest matching range.
+ *
+ * The tree is built single-threaded and must not be modified once it is
+ * shared; concurrent lookups on a shared tree are safe.
+ *
+ * @param <V> the type of the values
+ *
+ * @author Joel Salazar
+ */
+public class CidrTree<V> {
+
+    /** Root of the IPv4 tree, keys aligned to the high bits */
+    private Node<V> ipv4Root;
+
+    /** Root of the IPv6 tree */
+    private Node<V> ipv6Root;
+
+    /** Number of ranges in the tree */
+    private int size;
+
+    /**
+     * Maps a range to a value, replacing the value of an identical range.
+     *
+     * @param family {@link IpAddressParser#IPV4} or {@link IpAddressParser#IPV6}
+     * @param high the high 64 bits of the network, 0 for IPv4
+     * @param low the low 64 bits of the network
+     * @param prefixLength the prefix length of the range
+     * @param value the value, not null
+     * @return the replaced value, or null if the range was new
+     * @throws IllegalArgumentException if the family or prefix length is invalid
+     */
+    public V put(int family, long high, long low, int prefixLength, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value is required");
+        }
+        int maxBits = maxBits(family);
+        if (prefixLength < 0 || prefixLength > maxBits) {
+            throw new IllegalArgumentException("Invalid prefix length: " + prefixLength);
+        }
+        long keyHigh = keyHigh(family, high, low) & highMask(prefixLength);
+        long keyLow = keyLow(family, low) & lowMask(prefixLength);
+
+        Node<V> root = family == IpAddressParser.IPV4 ? ipv4Root : ipv6Root;
+        Object[] replaced = new Object[1];
+        root = insert(root, keyHigh, keyLow, prefixLength, value, replaced);
+        if (family == IpAddressParser.IPV4) {
+            ipv4Root = root;
+        } else {
+            ipv6Root = root;
+        }
+        if (replaced[0] == null) {
+            size++;
+        }
+        @SuppressWarnings("unchecked")
+        V previous = (V) replaced[0];
+        return previous;
+    }
+
+    /**
+     * Returns the value of the longest range containing an address.
+     *
+     * @param family {@link IpAddressParser#IPV4} or {@link IpAddressParser#IPV6}
+     * @param high the high 64 bits of the address, 0 for IPv4
+     * @param low the low 64 bits of the address
+     * @return the value of the most specific matching range, or null
+     */
+    public V match(int family, long high, long low) {
+        Node<V> node;
+        if (family == IpAddressParser.IPV4) {
+            node = ipv4Root;
+        } else if (family == IpAddressParser.IPV6) {
+            node = ipv6Root;
+        } else {
+            return null;
+        }
+        long keyHigh = keyHigh(family, high, low);
+        long keyLow = keyLow(family, low);
+
+        V best = null;
+        while (node != null) {
+            if ((keyHigh & node.highMask) != node.high || (keyLow & node.lowMask) != node.low) {
+                break;
+            }
+            if (node.value != null) {
+                best = node.value;
+            }
+            if (node.length == 128) {
+                break;
+            }
+            node = node.children[bitAt(keyHigh, keyLow, node.length)];
+        }
+        return best;
+    }
+
+    /**
+     * Returns the number of ranges in the tree.
+     *
+     * @return the number of ranges
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Inserts a range below a node.
+     *
+     * @param node the subtree root, or null
+     * @param high the high key bits of the range
+     * @param low the low key bits of the range
+     * @param length the key length of the range
+     * @param value the value
+     * @param replaced single-element holder receiving a replaced value
+     * @return the new subtree root
+     */
+    private static <V> Node<V> insert(Node<V> node, long high, long low, int length, V value, Object[] replaced) {
+        if (node == null) {
+            return new Node<>(high, low, length, value);
+        }
+        int common = Math.min(Math.min(commonPrefixLength(node.high, node.low, high, low), node.length), length);
+        if (common == node.length) {
+            if (length == node.length) {
+                replaced[0] = node.value;
+                node.value = value;
+                return node;
+            }
+            int bit = bitAt(high, low, node.length);
+            node.children[bit] = insert(node.children[bit], high, low, length, value, replaced);
+            return node;
+        }
+
+        // The range diverges inside the node's skipped bits: branch above it
+        Node<V> branch = new Node<>(high & highMask(common), low & lowMask(common), common, null);
+        branch.children[bitAt(node.high, node.low, common)] = node;
+        if (common == length) {
+            branch.value = value;
+        } else {
+            branch.children[bitAt(high, low, common)] = new Node<>(high, low, length, value);
+        }
+        return branch;
+    }
+
+    private static int commonPrefixLength(long high1, long low1, long high2, long low2) {
+        if (high1 != high2) {
+            return Long.numberOfLeadingZeros(high1 ^ high2);
+        }
+        return 64 + Long.numberOfLeadingZeros(low1 ^ low2);
+    }
+
+    private static int bitAt(long high, long low, int index) {
+        return index < 64 ? (int) ((high >>> (63 - index)) & 1) : (int) ((low >>> (127 - index)) & 1);
+    }
+
+    private static long highMask(int length) {
+        return length >= 64 ? -1L : length == 0 ? 0 : -1L << (64 - length);
+    }
+
+    private static long lowMask(int length) {
+        return length <= 64 ? 0 : length == 128 ? -1L : -1L << (128 - length);
+    }
+
+    private static long keyHigh(int family, long high, long low) {
+        return family == IpAddressParser.IPV4 ? low << 32 : high;
+    }
+
+    private static long keyLow(int family, long low) {
+        return family == IpAddressParser.IPV4 ? 0 : low;
+    }
+
+    private static int maxBits(int family) {
+        if (family == IpAddressParser.IPV4) {
+            return 32;
+        }
+        if (family == IpAddressParser.IPV6) {
+            return 128;
+        }
+        throw new IllegalArgumentException("Invalid address family: " + family);
+    }
+
+    /**
+     * Tree node covering every key that starts with its prefix.
+     */
+    private static final class Node<V> {
+
+        /** High bits of the prefix */
+        private final long high;
+
+        /** Low bits of the prefix */
+        private final long low;
+
+        /** Mask selecting the prefix in the high bits */
+        private final long highMask;
+
+        /** Mask selecting the prefix in the low bits */
+        private final long lowMask;
+
+        /** Prefix length in bits */
+        private final int length;
+
+        /** Value of the range ending here, or null for a pure branch */
+        private V value;
+
+        /** Subtrees for a 0 and a 1 at bit {@link #length} */
+        @SuppressWarnings("unchecked")
+        private final Node<V>[] children = new Node[2];
+
+        private Node(long high, long low, int length, V value) {
+            this.high = high;
+            this.low = low;
+            this.highMask = highMask(length);
+            this.lowMask = lowMask(length);
+            this.length = length;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,325 @@
+package com.suyos.registration.util;
+
+/**
+ * Allocation-free parser for textual IP addresses.
+ *
+ * Parses an IPv4 or IPv6 address out of a region of a character sequence,
+ * typically a slice of a forwarding header, into packed primitives: an IPv4
+ * address becomes the low 32 bits of a long, an IPv6 address the high and
+ * low 64 bits of two longs. Surrounding whitespace, brackets, ports and
+ * IPv6 zone IDs are ignored, and IPv4-mapped IPv6 addresses are reported as
+ * IPv4 so both notations of a client share one identity.
+ *
+ * @author Joel Salazar
+ */
+public final class IpAddressParser {
+
+    /** Result for text that is not an IP address */
+    public static final int INVALID = 0;
+
+    /** Result for an IPv4 address */
+    public static final int IPV4 = 4;
+
+    /** Result for an IPv6 address */
+    public static final int IPV6 = 6;
+
+    /** High 64 bits of every IPv4-mapped IPv6 address, ::ffff:0:0/96 */
+    private static final long MAPPED_IPV4_PREFIX = 0xFFFFL;
+
+    private IpAddressParser() {
+    }
+
+    /**
+     * Parses an IP address from a region of a character sequence.
+     *
+     * <p><b>Behavior:</b></p>
+     * <ol>
+     *   <li>Trims whitespace from the region.</li>
+     *   <li>Parses a dotted IPv4 address, optionally followed by a port.</li>
+     *   <li>Otherwise parses an IPv6 address, optionally in brackets with a
+     *       port or followed by a zone ID.</li>
+     *   <li>Writes the high and low 64 bits of the address to the output
+     *       array; the high bits are 0 for IPv4.</li>
+     * </ol>
+     *
+     * <p><b>Purpose:</b></p>
+     * <ul>
+     *   <li>Lets per-request code key limits on client addresses without
+     *       creating intermediate strings or address objects.</li>
+     * </ul>
+     *
+     * <hr>
+     *
+     * @param text the text containing the address
+     * @param from the index of the first character of the region
+     * @param to the index after the last character of the region
+     * @param out array of at least two longs receiving the high and low bits
+     * @return {@link #IPV4}, {@link #IPV6} or {@link #INVALID}
+     */
+    public static int parse(CharSequence text, int from, int to, long[] out) {
+        while (from < to && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+            to--;
+        }
+        if (from == to) {
+            return INVALID;
+        }
+
+        if (text.charAt(from) == '[') {
+            int close = indexOf(text, ']', from + 1, to);
+            if (close < 0 || (close + 1 < to && (text.charAt(close + 1) != ':' || !isPort(text, close + 2, to)))) {
+                return INVALID;
+            }
+            return parseIpv6(text, from + 1, close, out);
+        }
+
+        int colon = indexOf(text, ':', from, to);
+        int dot = indexOf(text, '.', from, to);
+        if (colon < 0 || (dot >= 0 && dot < colon)) {
+            if (colon >= 0 && !isPort(text, colon + 1, to)) {
+                return INVALID;
+            }
+            long address = parseIpv4(text, from, colon < 0 ? to : colon);
+            if (address < 0) {
+                return INVALID;
+            }
+            out[0] = 0;
+            out[1] = address;
+            return IPV4;
+        }
+
+        int zone = indexOf(text, '%', from, to);
+        return parseIpv6(text, from, zone < 0 ? to : zone, out);
+    }
+
+    /**
+     * Parses a CIDR range such as {@code 10.0.0.0/8} or {@code 2001:db8::/32}.
+     *
+     * A bare address is a range of one address. Host bits beyond the
+     * prefix are cleared.
+     *
+     * @param text the range text
+     * @param out array of at least three longs receiving the high and low
+     *            bits of the network and the prefix length
+     * @return {@link #IPV4}, {@link #IPV6} or {@link #INVALID}
+     */
+    public static int parseCidr(CharSequence text, long[] out) {
+        int slash = indexOf(text, '/', 0, text.length());
+        int family = parse(text, 0, slash < 0 ? text.length() : slash, out);
+        if (family == INVALID) {
+            return INVALID;
+        }
+        int maxPrefix = family == IPV4 ? 32 : 128;
+        int prefix = maxPrefix;
+        if (slash >= 0) {
+            int from = slash + 1;
+            int to = text.length();
+            while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+                to--;
+            }
+            if (from == to || to - from > 3) {
+                return INVALID;
+            }
+            prefix = 0;
+            for (int i = from; i < to; i++) {
+                if (!isDigit(text.charAt(i))) {
+                    return INVALID;
+                }
+                prefix = prefix * 10 + (text.charAt(i) - '0');
+            }
+            if (prefix > maxPrefix) {
+                return INVALID;
+            }
+        }
+        if (family == IPV4) {
+            out[1] &= prefix == 0 ? 0 : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+        } else {
+            out[0] &= prefix >= 64 ? -1L : prefix == 0 ? 0 : -1L << (64 - prefix);
+            out[1] &= prefix <= 64 ? 0 : prefix == 128 ? -1L : -1L << (128 - prefix);
+        }
+        out[2] = prefix;
+        return family;
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address.
+     *
+     * @param text the text containing the address
+     * @param from the index of the first character
+     * @param to the index after the last character
+     * @return the address as an unsigned 32-bit value, or -1 if invalid
+     */
+    private static long parseIpv4(CharSequence text, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int i = from;
+        while (i < to) {
+            int start = i;
+            int octet = 0;
+            while (i < to && i - start < 3 && isDigit(text.charAt(i))) {
+                octet = octet * 10 + (text.charAt(i) - '0');
+                i++;
+            }
+            if (i == start || octet > 255 || ++octets > 4) {
+                return -1;
+            }
+            address = (address << 8) | octet;
+            if (i < to) {
+                if (text.charAt(i) != '.' || i + 1 == to) {
+                    return -1;
+                }
+                i++;
+            }
+        }
+        return octets == 4 ? address : -1;
+    }
+
+    /**
+     * Parses an IPv6 address, including compressed and IPv4-suffixed forms.
+     *
+     * Groups before a "::" are accumulated in one 128-bit register and
+     * groups after it in another; the first is then shifted into place so
+     * the compressed zero groups fall between them.
+     *
+     * @param text the text containing the address
+     * @param from the index of the first character
+     * @param to the index after the last character
+     * @param out array receiving the high and low bits
+     * @return {@link #IPV6}, {@link #IPV4} for mapped addresses, or {@link #INVALID}
+     */
+    private static int parseIpv6(CharSequence text, int from, int to, long[] out) {
+        long leftHigh = 0;
+        long leftLow = 0;
+        long rightHigh = 0;
+        long rightLow = 0;
+        int leftGroups = 0;
+        int rightGroups = 0;
+        boolean compressed = false;
+
+        int i = from;
+        if (i < to && text.charAt(i) == ':') {
+            if (i + 1 >= to || text.charAt(i + 1) != ':') {
+                return INVALID;
+            }
+            compressed = true;
+            i += 2;
+        }
+        while (i < to) {
+            int start = i;
+            int group = 0;
+            int digit;
+            while (i < to && i - start < 4 && (digit = Character.digit(text.charAt(i), 16)) >= 0) {
+                group = (group << 4) | digit;
+                i++;
+            }
+            int groups = 1;
+            long value = group;
+            if (i < to && text.charAt(i) == '.') {
+                // A trailing IPv4 address fills the last two groups
+                value = parseIpv4(text, start, to);
+                if (value < 0) {
+                    return INVALID;
+                }
+                groups = 2;
+                i = to;
+            } else if (i == start) {
+                return INVALID;
+            }
+
+            if (leftGroups + rightGroups + groups > 8) {
+                return INVALID;
+            }
+            int shift = 16 * groups;
+            if (compressed) {
+                rightHigh = (rightHigh << shift) | (rightLow >>> (64 - shift));
+                rightLow = (rightLow << shift) | value;
+                rightGroups += groups;
+            } else {
+                leftHigh = (leftHigh << shift) | (leftLow >>> (64 - shift));
+                leftLow = (leftLow << shift) | value;
+                leftGroups += groups;
+            }
+
+            if (i < to) {
+                if (text.charAt(i) != ':' || i + 1 == to) {
+                    return INVALID;
+                }
+                i++;
+                if (text.charAt(i) == ':') {
+                    if (compressed) {
+                        return INVALID;
+                    }
+                    compressed = true;
+                    i++;
+                }
+            }
+        }
+        if (compressed ? leftGroups + rightGroups > 7 : leftGroups != 8) {
+            return INVALID;
+        }
+
+        int shift = 16 * (8 - leftGroups);
+        long high;
+        long low;
+        if (shift == 0) {
+            high = leftHigh;
+            low = leftLow;
+        } else if (shift == 128) {
+            high = 0;
+            low = 0;
+        } else if (shift >= 64) {
+            high = leftLow << (shift - 64);
+            low = 0;
+        } else {
+            high = (leftHigh << shift) | (leftLow >>> (64 - shift));
+            low = leftLow << shift;
+        }
+        high |= rightHigh;
+        low |= rightLow;
+
+        if (high == 0 && (low >>> 32) == MAPPED_IPV4_PREFIX) {
+            out[0] = 0;
+            out[1] = low & 0xFFFFFFFFL;
+            return IPV4;
+        }
+        out[0] = high;
+        out[1] = low;
+        return IPV6;
+    }
+
+    /**
+     * Checks that a region holds a non-empty decimal port.
+     *
+     * @param text the text to check
+     * @param from the index of the first character
+     * @param to the index after the last character
+     * @return true if the region is a port number
+     */
+    private static boolean isPort(CharSequence text, int from, int to) {
+        if (from >= to || to - from > 5) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (!isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
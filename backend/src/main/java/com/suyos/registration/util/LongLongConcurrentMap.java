@@ -0,0 +1,347 @@
+package com.suyos.registration.util;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Compact concurrent hash map from {@code long} keys to {@code long} values.
+ *
+ * Keys and values are stored interleaved in a single open-addressing array
+ * with linear probing, so an entry costs 16 bytes of table space instead of
+ * two boxed objects and a node. Lookups use an optimistic read of a
+ * {@link StampedLock} and only fall back to a read lock when they race with
+ * a writer. Entries are removed in bulk by rebuilding the table, and key 0
+ * is reserved to mark empty slots.
+ *
+ * @author Joel Salazar
+ */
+public class LongLongConcurrentMap {
+
+    /** Key marking an empty slot */
+    private static final long EMPTY = 0L;
+
+    /** Lock guarding writes and validating optimistic reads */
+    private final StampedLock lock = new StampedLock();
+
+    /** Interleaved key/value slots; length is twice a power of two */
+    private long[] table;
+
+    /** Number of entries in the map */
+    private int size;
+
+    /**
+     * Creates a map sized for an expected number of entries.
+     *
+     * @param expectedSize the number of entries the map is sized for
+     */
+    public LongLongConcurrentMap(int expectedSize) {
+        this.table = new long[2 * capacityFor(Math.max(1, expectedSize))];
+    }
+
+    /**
+     * Returns the value mapped to a key.
+     *
+     * @param key the key, must not be 0
+     * @param defaultValue the value returned if the key is absent
+     * @return the mapped value, or the default value
+     */
+    public long get(long key, long defaultValue) {
+        checkKey(key);
+        long stamp = lock.tryOptimisticRead();
+        long value = find(table, key, defaultValue);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(table, key, defaultValue);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Combines a value with the one currently mapped to a key.
+     *
+     * Stores the value as is if the key is absent, otherwise stores the
+     * result of the remapping function.
+     *
+     * @param key the key, must not be 0
+     * @param value the value to merge
+     * @param remapping function combining the current and the given value
+     * @return the value now mapped to the key
+     */
+    public long merge(long key, long value, LongBinaryOperator remapping) {
+        checkKey(key);
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(table, key);
+            if (table[slot] == key) {
+                long merged = remapping.applyAsLong(table[slot + 1], value);
+                table[slot + 1] = merged;
+                return merged;
+            }
+            insert(key, value);
+            return value;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Combines a value with the one currently mapped to a key if the current
+     * value does not exceed a ceiling, without growing the map beyond a
+     * maximum size.
+     *
+     * The check and the update happen under one write lock, so concurrent
+     * callers cannot all pass the check before any of them updates. An
+     * absent key is stored as is. If the map already holds {@code maxSize}
+     * entries, the entries with the lowest values are evicted first: the
+     * lowest eighth of the value range, and at least one entry.
+     *
+     * @param key the key, must not be 0
+     * @param value the value to merge, must not be negative
+     * @param ceiling the highest current value that may be merged with
+     * @param remapping function combining the current and the given value
+     * @param maxSize the maximum number of entries
+     * @return the value now mapped to the key, or the bitwise complement of
+     *         the current value if it exceeds the ceiling
+     */
+    public long mergeIfAtMost(long key, long value, long ceiling, LongBinaryOperator remapping, int maxSize) {
+        checkKey(key);
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(table, key);
+            if (table[slot] == key) {
+                long current = table[slot + 1];
+                if (current > ceiling) {
+                    return ~current;
+                }
+                long merged = remapping.applyAsLong(current, value);
+                table[slot + 1] = merged;
+                return merged;
+            }
+            if (size >= maxSize) {
+                evictLowest();
+            }
+            insert(key, value);
+            return value;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every entry matching a predicate.
+     *
+     * Surviving entries are copied into a table sized for them, which is
+     * published once filled, so concurrent readers never see a partially
+     * rebuilt table and the map shrinks after a burst of entries.
+     *
+     * @param predicate the predicate selecting entries to remove
+     * @return the number of removed entries
+     */
+    public int removeIf(EntryPredicate predicate) {
+        long stamp = lock.writeLock();
+        try {
+            int survivors = 0;
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != EMPTY && !predicate.test(table[i], table[i + 1])) {
+                    survivors++;
+                }
+            }
+            int removed = size - survivors;
+            if (removed == 0) {
+                return 0;
+            }
+            long[] rebuilt = new long[2 * capacityFor(Math.max(1, survivors))];
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != EMPTY && !predicate.test(table[i], table[i + 1])) {
+                    int slot = slotOf(rebuilt, table[i]);
+                    rebuilt[slot] = table[i];
+                    rebuilt[slot + 1] = table[i + 1];
+                }
+            }
+            table = rebuilt;
+            size = survivors;
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Looks up a key in a table.
+     *
+     * Probing is bounded by the table capacity so an inconsistent optimistic
+     * read always terminates.
+     *
+     * @param slots the table to search
+     * @param key the key
+     * @param defaultValue the value returned if the key is absent
+     * @return the mapped value, or the default value
+     */
+    private static long find(long[] slots, long key, long defaultValue) {
+        int capacity = slots.length >> 1;
+        int index = mix(key) & (capacity - 1);
+        for (int probes = 0; probes < capacity; probes++) {
+            long current = slots[index << 1];
+            if (current == key) {
+                return slots[(index << 1) + 1];
+            }
+            if (current == EMPTY) {
+                return defaultValue;
+            }
+            index = (index + 1) & (capacity - 1);
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot where it belongs.
+     *
+     * @param slots the table to search, with at least one empty slot
+     * @param key the key
+     * @return the array index of the slot's key
+     */
+    private static int slotOf(long[] slots, long key) {
+        int capacity = slots.length >> 1;
+        int index = mix(key) & (capacity - 1);
+        while (slots[index << 1] != key && slots[index << 1] != EMPTY) {
+            index = (index + 1) & (capacity - 1);
+        }
+        return index << 1;
+    }
+
+    /**
+     * Stores an absent key, growing the table if needed.
+     *
+     * Must be called with the write lock held.
+     *
+     * @param key the absent key
+     * @param value the value to store
+     */
+    private void insert(long key, long value) {
+        if ((size + 1) * 2 > table.length / 2) {
+            resize();
+        }
+        int slot = slotOf(table, key);
+        table[slot] = key;
+        table[slot + 1] = value;
+        size++;
+    }
+
+    /**
+     * Evicts the entries whose values lie in the lowest eighth of the
+     * current value range, which always includes the lowest entry.
+     *
+     * Must be called with the write lock held. Like {@link #removeIf}, the
+     * survivors are copied into a new table before it is published.
+     */
+    private void evictLowest() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != EMPTY) {
+                min = Math.min(min, table[i + 1]);
+                max = Math.max(max, table[i + 1]);
+            }
+        }
+        long threshold = min + ((max >> 3) - (min >> 3));
+        long[] rebuilt = new long[table.length];
+        int survivors = 0;
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != EMPTY && table[i + 1] > threshold) {
+                int slot = slotOf(rebuilt, table[i]);
+                rebuilt[slot] = table[i];
+                rebuilt[slot + 1] = table[i + 1];
+                survivors++;
+            }
+        }
+        table = rebuilt;
+        size = survivors;
+    }
+
+    /**
+     * Doubles the table capacity and rehashes every entry.
+     *
+     * The new table is filled before it is published, so readers holding
+     * the old one still see a consistent snapshot.
+     */
+    private void resize() {
+        long[] resized = new long[table.length * 2];
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != EMPTY) {
+                int slot = slotOf(resized, table[i]);
+                resized[slot] = table[i];
+                resized[slot + 1] = table[i + 1];
+            }
+        }
+        table = resized;
+    }
+
+    /**
+     * Computes the power-of-two capacity keeping the load factor at or below 1/2.
+     *
+     * @param expectedSize the number of entries
+     * @return the table capacity in slots
+     */
+    private static int capacityFor(int expectedSize) {
+        return Integer.highestOneBit(Math.max(2, expectedSize * 2 - 1)) << 1;
+    }
+
+    /**
+     * Spreads the bits of a key so sequential IDs do not cluster.
+     *
+     * @param key the key
+     * @return the mixed hash
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Rejects the reserved empty-slot key.
+     *
+     * @param key the key to check
+     * @throws IllegalArgumentException if the key is 0
+     */
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+
+    /**
+     * Predicate over a primitive key and value.
+     */
+    @FunctionalInterface
+    public interface EntryPredicate {
+
+        /**
+         * Evaluates the predicate on an entry.
+         *
+         * @param key the entry's key
+         * @param value the entry's value
+         * @return true if the entry matches
+         */
+        boolean test(long key, long value);
+
+    }
+
+}
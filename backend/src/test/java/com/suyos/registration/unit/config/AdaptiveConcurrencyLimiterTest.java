@@ -0,0 +1,110 @@
+package com.suyos.registration.unit.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.suyos.registration.config.AdaptiveConcurrencyLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter.
+ * 
+ * Tests permit accounting, load shedding and the AIMD response to hashing
+ * latency.
+ * 
+ * @author Joel Salazar
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    /** Latency of an uncontended hash */
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /** Latency of a hash queuing for CPU */
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(400);
+
+    /** AdaptiveConcurrencyLimiter instance under test */
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AdaptiveConcurrencyLimiter();
+        limiter.init();
+    }
+
+    @Test
+    void tryAcquire_ShedsBeyondLimit() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        limiter.bindTo(registry);
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+        assertEquals(8.0, registry.get("auth.concurrency.inflight").gauge().value());
+        assertEquals(1.0, registry.get("auth.concurrency.rejected").functionCounter().count());
+    }
+
+    @Test
+    void recordLatency_DecreasesOncePerCongestionSignal() {
+        limiter.recordLatency(FAST);
+
+        limiter.recordLatency(SLOW);
+        limiter.recordLatency(SLOW);
+        limiter.recordLatency(SLOW);
+
+        assertEquals(7, limiter.getLimit());
+    }
+
+    @Test
+    void recordLatency_IncreasesWhileLimitIsUsedAndLatencyIsFlat() {
+        for (int i = 0; i < 8; i++) {
+            limiter.tryAcquire();
+        }
+
+        for (int i = 0; i < 20; i++) {
+            limiter.recordLatency(FAST);
+        }
+
+        assertTrue(limiter.getLimit() >= 10);
+    }
+
+    @Test
+    void recordLatency_DoesNotIncreaseWhileIdle() {
+        for (int i = 0; i < 100; i++) {
+            limiter.recordLatency(FAST);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void recordLatency_SingleFastSampleDoesNotCollapseLimit() {
+        for (int i = 0; i < 20; i++) {
+            limiter.recordLatency(FAST);
+        }
+
+        limiter.recordLatency(1);
+        for (int i = 0; i < 20; i++) {
+            limiter.recordLatency(FAST * 3 / 2);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void recordLatency_BaselineNeverBelowFloor() {
+        limiter.recordLatency(1);
+        limiter.recordLatency(TimeUnit.MILLISECONDS.toNanos(15));
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.suyos.registration.unit.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.suyos.registration.config.BCryptStrengthCalibrator;
+
+/**
+ * Unit tests for BCryptStrengthCalibrator.
+ * 
+ * Tests that the calibrated strength respects the configured bounds.
+ * 
+ * @author Joel Salazar
+ */
+class BCryptStrengthCalibratorTest {
+
+    @Test
+    void calibrate_TargetBelowMinimumCost_ReturnsMinimum() {
+        assertEquals(4, BCryptStrengthCalibrator.calibrate(4, 8, Duration.ZERO));
+    }
+
+    @Test
+    void calibrate_GenerousTarget_CappedAtMaximum() {
+        assertEquals(6, BCryptStrengthCalibrator.calibrate(4, 6, Duration.ofMinutes(1)));
+    }
+}
@@ -0,0 +1,142 @@
+package com.suyos.registration.unit.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import com.suyos.registration.config.JdbcBucketProxyManager;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * Unit tests for JdbcBucketProxyManager.
+ * 
+ * Tests that buckets built on separate nodes share one limit through the
+ * compare-and-swap bucket table, and that idle buckets are purged, against
+ * an embedded H2 database.
+ * 
+ * @author Joel Salazar
+ */
+class JdbcBucketProxyManagerTest {
+
+    /** Embedded database holding the rate_limit_buckets table */
+    private EmbeddedDatabase database;
+
+    /** JDBC template on the embedded database */
+    private JdbcTemplate jdbcTemplate;
+
+    /** Configuration of 10 tokens per minute */
+    private BucketConfiguration configuration;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE rate_limit_buckets ("
+                + "bucket_key VARCHAR(255) PRIMARY KEY, "
+                + "state VARBINARY(1024) NOT NULL, "
+                + "expires_at BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_rate_limit_bucket_expiry ON rate_limit_buckets (expires_at)");
+        configuration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder().capacity(10).refillIntervally(10, Duration.ofMinutes(1)).build())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void tryConsume_LimitIsSharedBetweenNodes() {
+        Bucket nodeA = new JdbcBucketProxyManager(jdbcTemplate).builder().build("ip:10.0.0.1", () -> configuration);
+        Bucket nodeB = new JdbcBucketProxyManager(jdbcTemplate).builder().build("ip:10.0.0.1", () -> configuration);
+
+        assertTrue(nodeA.tryConsume(6));
+        assertTrue(nodeB.tryConsume(4));
+
+        assertFalse(nodeA.tryConsume(1));
+        assertFalse(nodeB.tryConsume(1));
+        assertEquals(1, countRows());
+    }
+
+    @Test
+    void tryConsume_KeysAreIndependent() {
+        JdbcBucketProxyManager proxyManager = new JdbcBucketProxyManager(jdbcTemplate);
+
+        assertTrue(proxyManager.builder().build("ip:10.0.0.1", () -> configuration).tryConsume(10));
+        assertTrue(proxyManager.builder().build("ip:10.0.0.2", () -> configuration).tryConsume(10));
+        assertEquals(2, countRows());
+    }
+
+    @Test
+    void tryConsume_ConcurrentNodes_NeverOverspend() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger consumed = new AtomicInteger();
+        try {
+            List<Future<?>> nodes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Bucket node = new JdbcBucketProxyManager(jdbcTemplate).builder().build("ip:10.0.0.1", () -> configuration);
+                nodes.add(executor.submit(() -> {
+                    for (int j = 0; j < 10; j++) {
+                        if (node.tryConsume(1)) {
+                            consumed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> node : nodes) {
+                node.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(10, consumed.get());
+    }
+
+    @Test
+    void purgeExpired_DeletesIdleBuckets() {
+        JdbcBucketProxyManager proxyManager = new JdbcBucketProxyManager(jdbcTemplate);
+        assertTrue(proxyManager.builder().build("ip:10.0.0.1", () -> configuration).tryConsume(1));
+        assertTrue(proxyManager.builder().build("ip:10.0.0.2", () -> configuration).tryConsume(1));
+        jdbcTemplate.update("UPDATE rate_limit_buckets SET expires_at = 0 WHERE bucket_key = ?", "ip:10.0.0.1");
+
+        assertEquals(1, proxyManager.purgeExpired(System.currentTimeMillis()));
+        assertEquals(1, countRows());
+    }
+
+    @Test
+    void removeProxy_DeletesBucket() {
+        JdbcBucketProxyManager proxyManager = new JdbcBucketProxyManager(jdbcTemplate);
+        assertTrue(proxyManager.builder().build("ip:10.0.0.1", () -> configuration).tryConsume(1));
+
+        proxyManager.removeProxy("ip:10.0.0.1");
+
+        assertEquals(0, countRows());
+    }
+
+    private int countRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_buckets", Integer.class);
+    }
+}
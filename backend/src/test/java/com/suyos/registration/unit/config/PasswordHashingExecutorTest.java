@@ -0,0 +1,185 @@
+package com.suyos.registration.unit.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.config.PasswordHashingExecutor;
+import com.suyos.registration.exception.ServiceUnavailableException;
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.util.IpAddressParser;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for PasswordHashingExecutor.
+ *
+ * Tests task completion, fair scheduling across sources, the bounded
+ * queues and the recorded metrics.
+ *
+ * @author Joel Salazar
+ */
+class PasswordHashingExecutorTest {
+
+    /** PasswordHashingExecutor instance under test */
+    private PasswordHashingExecutor executor;
+
+    /** Registry receiving the executor's metrics */
+    private SimpleMeterRegistry registry;
+
+    /** Released to let the task blocking the single hashing thread finish */
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor();
+        ReflectionTestUtils.setField(executor, "threads", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 4);
+        ReflectionTestUtils.setField(executor, "sourceQueueCapacity", 3);
+        executor.init();
+        registry = new SimpleMeterRegistry();
+        executor.bindTo(registry);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_CompletesWithResultOnHashingThread() {
+        String thread = executor.submit(address("192.0.2.1"), () -> Thread.currentThread().getName()).join();
+
+        assertTrue(thread.startsWith("password-hashing-"));
+        assertEquals(1, registry.get("auth.hashing.wait").timer().count());
+        assertEquals(1, registry.get("auth.hashing.duration").timer().count());
+    }
+
+    @Test
+    void submit_RunsDependentStagesOffHashingThread() throws Exception {
+        blockHashingThread();
+        CompletableFuture<String> thread = executor.submit(address("192.0.2.1"), () -> true)
+                .thenApply(result -> Thread.currentThread().getName());
+
+        release.countDown();
+
+        assertTrue(thread.join().startsWith("password-hashing-completion-"));
+    }
+
+    @Test
+    void submittedAt_IncludesTimeWaitingForThread() throws Exception {
+        blockHashingThread();
+        CompletableFuture<Long> latency = executor.submit(address("192.0.2.1"),
+                () -> System.nanoTime() - PasswordHashingExecutor.submittedAt(System.nanoTime()));
+
+        Thread.sleep(50);
+        release.countDown();
+
+        assertTrue(latency.join() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(42L, PasswordHashingExecutor.submittedAt(42L));
+    }
+
+    @Test
+    void submit_PropagatesTaskException() {
+        CompletableFuture<Object> future = executor.submit(null, () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void submit_ServesSourcesInRoundRobin() throws Exception {
+        CompletableFuture<Boolean> blocker = blockHashingThread();
+        List<String> order = new CopyOnWriteArrayList<>();
+        ClientAddress flooder = address("198.51.100.7");
+        ClientAddress sameSubnet = address("198.51.100.200");
+        ClientAddress other = address("203.0.113.9");
+
+        CompletableFuture<?> a1 = executor.submit(flooder, () -> order.add("a1"));
+        CompletableFuture<?> a2 = executor.submit(sameSubnet, () -> order.add("a2"));
+        CompletableFuture<?> a3 = executor.submit(flooder, () -> order.add("a3"));
+        CompletableFuture<?> b1 = executor.submit(other, () -> order.add("b1"));
+        assertEquals(2, executor.getSourceCount());
+        assertEquals(3, executor.getMaxSourceQueueDepth());
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, a1, a2, a3, b1).join();
+
+        assertEquals(List.of("a1", "b1", "a2", "a3"), order);
+    }
+
+    @Test
+    void submit_SourceQueueFull_RejectsOnlyThatSource() throws Exception {
+        CompletableFuture<Boolean> blocker = blockHashingThread();
+        ClientAddress flooder = address("2001:db8:0:1::1");
+        for (int i = 0; i < 3; i++) {
+            executor.submit(flooder, () -> true);
+        }
+
+        CompletableFuture<Boolean> rejected = executor.submit(address("2001:db8:0:1::2"), () -> true);
+        CompletableFuture<Boolean> accepted = executor.submit(address("2001:db8:0:2::1"), () -> true);
+
+        CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(ServiceUnavailableException.class, exception.getCause());
+        assertEquals(4, executor.getQueueDepth());
+        assertEquals(1.0, registry.get("auth.hashing.rejected").tag("reason", "source-full").functionCounter().count());
+
+        release.countDown();
+        assertTrue(blocker.join());
+        assertTrue(accepted.join());
+    }
+
+    @Test
+    void submit_QueueFull_FailsWithServiceUnavailable() throws Exception {
+        CompletableFuture<Boolean> blocker = blockHashingThread();
+        for (int i = 0; i < 4; i++) {
+            executor.submit(address("192.0." + i + ".1"), () -> true);
+        }
+
+        CompletableFuture<Boolean> rejected = executor.submit(address("192.0.9.1"), () -> true);
+
+        CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(ServiceUnavailableException.class, exception.getCause());
+        assertEquals(4.0, registry.get("auth.hashing.queue").gauge().value());
+        assertEquals(1.0, registry.get("auth.hashing.rejected").tag("reason", "queue-full").functionCounter().count());
+
+        release.countDown();
+        assertTrue(blocker.join());
+    }
+
+    private CompletableFuture<Boolean> blockHashingThread() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocker = executor.submit(null, () -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    private static ClientAddress address(String text) {
+        long[] packed = new long[2];
+        int family = IpAddressParser.parse(text, 0, text.length(), packed);
+        return new ClientAddress(family, packed[0], packed[1], text);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.suyos.registration.unit.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.suyos.registration.config.RateLimitPolicy;
+import com.suyos.registration.config.RateLimitPolicyMatcher;
+
+/**
+ * Unit tests for RateLimitPolicyMatcher.
+ * 
+ * Tests longest-prefix matching, method filtering, inheritance of less
+ * specific policies and validation of declared policies.
+ * 
+ * @author Joel Salazar
+ */
+class RateLimitPolicyMatcherTest {
+
+    /** Per-IP limit on all authentication endpoints */
+    private final RateLimitPolicy authIp = new RateLimitPolicy("auth-ip", "/api/v1/auth/", List.of(),
+            RateLimitPolicy.KeyType.IP, 10, Duration.ofMinutes(1));
+
+    /** Tighter per-IP limit on registrations */
+    private final RateLimitPolicy registerIp = new RateLimitPolicy("register-ip", "/api/v1/auth/register",
+            List.of("POST"), RateLimitPolicy.KeyType.IP, 3, Duration.ofMinutes(1));
+
+    /** Per-account limit on logins */
+    private final RateLimitPolicy loginAccount = new RateLimitPolicy("login-account", "/api/v1/auth/login",
+            List.of("POST"), RateLimitPolicy.KeyType.ACCOUNT, 5, Duration.ofMinutes(15));
+
+    @Test
+    void match_UsesLongestPrefixAndOverridesSameKeyType() {
+        RateLimitPolicyMatcher matcher = RateLimitPolicyMatcher.compile(List.of(authIp, registerIp, loginAccount));
+
+        assertArrayEquals(new RateLimitPolicy[] {registerIp}, matcher.match("POST", "/api/v1/auth/register"));
+        assertArrayEquals(new RateLimitPolicy[] {authIp}, matcher.match("GET", "/api/v1/auth/register"));
+        assertArrayEquals(new RateLimitPolicy[] {authIp}, matcher.match("POST", "/api/v1/auth/refresh"));
+    }
+
+    @Test
+    void match_InheritsPoliciesOfOtherKeyTypes() {
+        RateLimitPolicyMatcher matcher = RateLimitPolicyMatcher.compile(List.of(authIp, loginAccount));
+
+        assertArrayEquals(new RateLimitPolicy[] {loginAccount, authIp}, matcher.match("POST", "/api/v1/auth/login"));
+        assertArrayEquals(new RateLimitPolicy[] {authIp}, matcher.match("DELETE", "/api/v1/auth/login"));
+    }
+
+    @Test
+    void match_ReturnsEmptyOutsideAllPolicies() {
+        RateLimitPolicyMatcher matcher = RateLimitPolicyMatcher.compile(List.of(authIp));
+
+        assertEquals(0, matcher.match("GET", "/api/v1/users/me").length);
+        assertEquals(0, matcher.match("GET", "/api/v1/auth").length);
+    }
+
+    @Test
+    void compile_RejectsInvalidPolicies() {
+        RateLimitPolicy noSlash = new RateLimitPolicy("bad", "api", List.of(), RateLimitPolicy.KeyType.IP,
+                1, Duration.ofMinutes(1));
+        RateLimitPolicy noCapacity = new RateLimitPolicy("bad", "/api", List.of(), RateLimitPolicy.KeyType.IP,
+                0, Duration.ofMinutes(1));
+
+        assertThrows(IllegalArgumentException.class, () -> RateLimitPolicyMatcher.compile(List.of(noSlash)));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitPolicyMatcher.compile(List.of(noCapacity)));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitPolicyMatcher.compile(List.of(authIp, authIp)));
+    }
+}
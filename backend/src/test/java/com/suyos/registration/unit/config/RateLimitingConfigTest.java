@@ -0,0 +1,99 @@
+package com.suyos.registration.unit.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.suyos.registration.config.RateLimitPolicy;
+import com.suyos.registration.config.RateLimitingConfig;
+
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for RateLimitingConfig.
+ * 
+ * Tests reuse, limits, reconfiguration and size bounding of the
+ * policy-scoped rate limiting bucket stores.
+ * 
+ * @author Joel Salazar
+ */
+class RateLimitingConfigTest {
+
+    /** RateLimitingConfig instance under test */
+    private RateLimitingConfig rateLimitingConfig;
+
+    /** IP-keyed policy allowing ten requests per minute */
+    private final RateLimitPolicy policy = new RateLimitPolicy("auth-ip", "/api/v1/auth/", List.of(),
+            RateLimitPolicy.KeyType.IP, 10, Duration.ofMinutes(1));
+
+    @BeforeEach
+    void setUp() {
+        rateLimitingConfig = new RateLimitingConfig();
+        rateLimitingConfig.init();
+    }
+
+    @Test
+    void getBucket_ReusesBucketForSameIp() {
+        Bucket bucket = rateLimitingConfig.getBucket(policy, "192.168.1.1");
+
+        assertSame(bucket, rateLimitingConfig.getBucket(policy, "192.168.1.1"));
+        assertNotSame(bucket, rateLimitingConfig.getBucket(policy, "192.168.1.2"));
+    }
+
+    @Test
+    void getBucket_EnforcesLimit() {
+        Bucket bucket = rateLimitingConfig.getBucket(policy, "192.168.1.1");
+
+        assertTrue(bucket.tryConsume(10));
+        assertFalse(rateLimitingConfig.getBucket(policy, "192.168.1.1").tryConsume(1));
+    }
+
+    @Test
+    void getBucket_StoreIsBounded() {
+        ReflectionTestUtils.setField(rateLimitingConfig, "bucketStoreMaxSize", 100L);
+        rateLimitingConfig.init();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        rateLimitingConfig.bindTo(registry);
+
+        for (int i = 0; i < 1000; i++) {
+            rateLimitingConfig.getBucket(policy, "10.0." + (i / 256) + "." + (i % 256));
+        }
+        ((Cache<?, ?>) ReflectionTestUtils.getField(rateLimitingConfig, "ipBuckets")).cleanUp();
+
+        assertTrue(registry.get("cache.size").tag("cache", "rate-limit.ip-buckets").gauge().value() <= 100);
+        assertTrue(registry.get("cache.evictions").tag("cache", "rate-limit.ip-buckets").functionCounter().count() > 0);
+        assertTrue(registry.get("rate-limit.buckets.memory").tag("store", "ip").gauge().value() > 0);
+        assertTrue(registry.get("rate-limit.buckets.size-evictions").tag("store", "ip").functionCounter().count() > 0);
+    }
+
+    @Test
+    void getBucket_SeparatesPolicies() {
+        RateLimitPolicy other = new RateLimitPolicy("oauth2-ip", "/oauth2/", List.of(),
+                RateLimitPolicy.KeyType.IP, 10, Duration.ofMinutes(1));
+
+        assertTrue(rateLimitingConfig.getBucket(policy, "192.168.1.1").tryConsume(10));
+        assertTrue(rateLimitingConfig.getBucket(other, "192.168.1.1").tryConsume(1));
+    }
+
+    @Test
+    void getBucket_ReconfiguresOnPolicyChangeKeepingConsumedTokens() {
+        Bucket bucket = rateLimitingConfig.getBucket(policy, "192.168.1.1");
+        assertTrue(bucket.tryConsume(8));
+        RateLimitPolicy raised = new RateLimitPolicy("auth-ip", "/api/v1/auth/", List.of(),
+                RateLimitPolicy.KeyType.IP, 20, Duration.ofMinutes(1));
+
+        Bucket reconfigured = rateLimitingConfig.getBucket(raised, "192.168.1.1");
+
+        assertSame(bucket, reconfigured);
+        assertEquals(2, reconfigured.getAvailableTokens());
+        assertTrue(reconfigured.tryConsume(2));
+        assertFalse(reconfigured.tryConsume(1));
+    }
+}
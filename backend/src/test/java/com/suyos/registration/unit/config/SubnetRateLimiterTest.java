@@ -0,0 +1,170 @@
+package com.suyos.registration.unit.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.config.RateLimitPolicy;
+import com.suyos.registration.config.SubnetRateLimiter;
+import com.suyos.registration.util.IpAddressParser;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for SubnetRateLimiter.
+ * 
+ * Tests the per-host limit, the network and block limits that catch
+ * clients rotating addresses, and behavior under concurrency and with
+ * full tables.
+ * 
+ * @author Joel Salazar
+ */
+class SubnetRateLimiterTest {
+
+    /** SubnetRateLimiter instance under test */
+    private SubnetRateLimiter subnetRateLimiter;
+
+    /** Policy allowing five requests per hour per host */
+    private final RateLimitPolicy policy = new RateLimitPolicy("auth-ip", "/api/v1/auth/", List.of(),
+            RateLimitPolicy.KeyType.IP, 5, Duration.ofHours(1));
+
+    @BeforeEach
+    void setUp() {
+        subnetRateLimiter = new SubnetRateLimiter();
+        ReflectionTestUtils.setField(subnetRateLimiter, "networkMultiplier", 2L);
+        ReflectionTestUtils.setField(subnetRateLimiter, "blockMultiplier", 4L);
+    }
+
+    @Test
+    void tryAcquire_LimitsHost() {
+        for (int i = 4; i >= 0; i--) {
+            assertEquals(i, subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80101L));
+        }
+
+        long result = subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80101L);
+        assertTrue(result < 0);
+        assertTrue(-result <= Duration.ofHours(1).toNanos() / 5);
+        assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80102L) >= 0);
+    }
+
+    @Test
+    void tryAcquire_LimitsRotationWithinIpv4Network() {
+        // 10 requests allowed per /24, spread over different hosts
+        for (int host = 1; host <= 10; host++) {
+            assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80100L | host) >= 0);
+        }
+
+        assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80100L | 11) < 0);
+        assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80200L | 11) >= 0);
+    }
+
+    @Test
+    void tryAcquire_LimitsRotationWithinIpv6Networks() {
+        long network = 0x20010DB800010000L;
+        for (long host = 1; host <= 10; host++) {
+            assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV6, network, host) >= 0);
+        }
+        assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV6, network, 11) < 0);
+
+        // 20 requests allowed per /48, spread over different /64 networks
+        for (long subnet = 2; subnet <= 11; subnet++) {
+            assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV6, network | subnet, 1) >= 0);
+        }
+        assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV6, network | 12, 1) < 0);
+        assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV6, 0x20010DB800020000L, 1) >= 0);
+    }
+
+    @Test
+    void tryAcquire_RejectionDoesNotConsumeNetwork() {
+        for (int i = 0; i < 20; i++) {
+            subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80101L);
+        }
+
+        for (int host = 2; host <= 6; host++) {
+            assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80100L | host) >= 0);
+        }
+    }
+
+    @Test
+    void purgeRefilled_RemovesRefilledStates() {
+        RateLimitPolicy fast = new RateLimitPolicy("fast", "/", List.of(), RateLimitPolicy.KeyType.IP,
+                1, Duration.ofNanos(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subnetRateLimiter.bindTo(registry);
+        subnetRateLimiter.tryAcquire(fast, IpAddressParser.IPV4, 0, 0xC0A80101L);
+        assertEquals(1.0, registry.get("rate-limit.subnet.entries").tag("level", "host").gauge().value());
+
+        subnetRateLimiter.purgeRefilled();
+
+        assertEquals(0.0, registry.get("rate-limit.subnet.entries").tag("level", "host").gauge().value());
+    }
+
+    @Test
+    void tryAcquire_FullTable_StillLimitsNewKeys() {
+        ReflectionTestUtils.setField(subnetRateLimiter, "maxEntries", 64);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        subnetRateLimiter.bindTo(registry);
+        // Fill every level with distinct /16 blocks
+        for (long block = 1; block <= 1000; block++) {
+            subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, block << 16 | 1);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0x0A090909L) >= 0);
+        }
+
+        assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0x0A090909L) < 0);
+        assertTrue(registry.get("rate-limit.subnet.entries").tag("level", "block").gauge().value() <= 64);
+    }
+
+    @Test
+    void tryAcquire_ConcurrentRequests_NeverExceedCapacity() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger allowed = new AtomicInteger();
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                clients.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        if (subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80101L) >= 0) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(5, allowed.get());
+    }
+
+    @Test
+    void tryAcquire_RejectionByNetworkGivesBackHost() {
+        for (int host = 1; host <= 10; host++) {
+            subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80100L | host);
+        }
+        // The network is exhausted; a rejected host must keep its full allowance
+        assertTrue(subnetRateLimiter.tryAcquire(policy, IpAddressParser.IPV4, 0, 0xC0A80120L) < 0);
+        ReflectionTestUtils.setField(subnetRateLimiter, "networkMultiplier", 1_000_000_000L);
+        ReflectionTestUtils.setField(subnetRateLimiter, "blockMultiplier", 1_000_000_000L);
+        RateLimitPolicy reloaded = new RateLimitPolicy("auth-ip", "/api/v1/auth/", List.of(),
+                RateLimitPolicy.KeyType.IP, 5, Duration.ofHours(1));
+
+        assertEquals(4, subnetRateLimiter.tryAcquire(reloaded, IpAddressParser.IPV4, 0, 0xC0A80120L));
+    }
+}
@@ -0,0 +1,55 @@
+package com.suyos.registration.unit.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.suyos.registration.config.AdaptiveConcurrencyLimiter;
+import com.suyos.registration.config.TimedPasswordEncoder;
+
+/**
+ * Unit tests for TimedPasswordEncoder.
+ *
+ * Tests that only real hashing work is reported to the concurrency limiter.
+ *
+ * @author Joel Salazar
+ */
+@ExtendWith(MockitoExtension.class)
+class TimedPasswordEncoderTest {
+
+    /** Limiter receiving the latency samples */
+    @Mock
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /** TimedPasswordEncoder instance under test */
+    private TimedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        encoder = new TimedPasswordEncoder(new BCryptPasswordEncoder(4), concurrencyLimiter);
+    }
+
+    @Test
+    void matches_BCryptHash_RecordsLatency() {
+        String hash = encoder.encode("password");
+
+        assertTrue(encoder.matches("password", hash));
+        verify(concurrencyLimiter, times(2)).recordLatency(anyLong());
+    }
+
+    @Test
+    void matches_EmptyOrMalformedHash_RecordsNothing() {
+        assertFalse(encoder.matches("password", ""));
+        assertFalse(encoder.matches("password", "$2a$10$tooshort"));
+
+        verify(concurrencyLimiter, never()).recordLatency(anyLong());
+    }
+
+}
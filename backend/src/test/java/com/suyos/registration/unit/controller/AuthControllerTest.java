@@ -5,15 +5,17 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.suyos.registration.controller.AuthController;
@@ -21,24 +23,29 @@ import com.suyos.registration.dto.AuthenticationResponseDTO;
 import com.suyos.registration.dto.UserLoginDTO;
 import com.suyos.registration.dto.UserProfileDTO;
 import com.suyos.registration.dto.UserRegistrationDTO;
+import com.suyos.registration.exception.GlobalExceptionHandler;
+import com.suyos.registration.exception.ServiceUnavailableException;
+import com.suyos.registration.exception.TooManyRequestsException;
 import com.suyos.registration.service.AuthService;
+import com.suyos.registration.service.LoginThrottleService;
+import com.suyos.registration.service.SessionRevocationService;
 import com.suyos.registration.service.TokenBlacklistService;
 
 /**
  * Unit tests for AuthController.
  * 
  * Tests REST API endpoints for user authentication including registration,
- * login, and logout operations. Uses MockMvc for HTTP request simulation
- * and mocked service dependencies.
+ * login, and logout operations. Uses a standalone MockMvc with the global
+ * exception handler and mocked service dependencies; register and login
+ * complete asynchronously, so their responses are read after an async
+ * dispatch, including errors arriving through a failed future.
  * 
  * @author Joel Salazar
  */
-@WebMvcTest(AuthController.class)
 @ExtendWith(MockitoExtension.class)
 class AuthControllerTest {
 
     /** MockMvc instance for simulating HTTP requests */
-    @Autowired
     private MockMvc mockMvc;
 
     /** Mock authentication service for business logic operations */
@@ -49,9 +56,16 @@ class AuthControllerTest {
     @Mock
     private TokenBlacklistService tokenBlacklistService;
 
+    /** Mock session revocation service for logging out everywhere */
+    @Mock
+    private SessionRevocationService sessionRevocationService;
+
+    /** Mock per-account login throttle */
+    @Mock
+    private LoginThrottleService loginThrottleService;
+
     /** ObjectMapper for JSON serialization and deserialization */
-    @Autowired
-    private ObjectMapper objectMapper;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
     /** Test data for user registration requests */
     private UserRegistrationDTO registrationDTO;
@@ -67,6 +81,12 @@ class AuthControllerTest {
 
     @BeforeEach
     void setUp() {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new AuthController(authService, tokenBlacklistService,
+                        sessionRevocationService, loginThrottleService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
         registrationDTO = UserRegistrationDTO.builder()
                 .email("test@example.com")
                 .password("password123")
@@ -99,11 +119,15 @@ class AuthControllerTest {
 
     @Test
     void registerUser_Success() throws Exception {
-        when(authService.registerUser(any(UserRegistrationDTO.class), any())).thenReturn(profileDTO);
+        when(authService.registerUser(any(UserRegistrationDTO.class), any())).thenReturn(CompletableFuture.completedFuture(profileDTO));
 
-        mockMvc.perform(post("/api/v1/auth/register")
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(registrationDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.email").value("test@example.com"))
                 .andExpect(jsonPath("$.username").value("testuser"));
@@ -119,27 +143,65 @@ class AuthControllerTest {
         mockMvc.perform(post("/api/v1/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(registrationDTO)))
-                .andExpect(status().isBadRequest())
-                .andExpect(content().string("Registration failed: Email already registered"));
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Email already registered"));
+    }
+
+    @Test
+    void registerUser_HashingQueueFull_ServiceUnavailable() throws Exception {
+        when(authService.registerUser(any(UserRegistrationDTO.class), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("Server is busy. Try again later.", 1)));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(registrationDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message").value("Server is busy. Try again later."));
     }
 
     @Test
     void loginUser_Success() throws Exception {
-        when(authService.authenticateUser(any(UserLoginDTO.class), any())).thenReturn(authResponseDTO);
+        when(authService.authenticateUser(any(UserLoginDTO.class), any())).thenReturn(CompletableFuture.completedFuture(authResponseDTO));
 
-        mockMvc.perform(post("/api/v1/auth/login")
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(loginDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.accessToken").value("jwt-token"))
                 .andExpect(jsonPath("$.expiresIn").value(86400))
                 .andExpect(jsonPath("$.user.email").value("test@example.com"));
 
+        verify(loginThrottleService).checkLoginAttempt(eq("test@example.com"), any());
         verify(authService).authenticateUser(any(UserLoginDTO.class), any());
     }
 
     @Test
     void loginUser_InvalidCredentials() throws Exception {
+        when(authService.authenticateUser(any(UserLoginDTO.class), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Invalid email or password")));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginDTO)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Invalid email or password"));
+    }
+
+    @Test
+    void loginUser_UnknownEmail_Unauthorized() throws Exception {
         when(authService.authenticateUser(any(UserLoginDTO.class), any()))
                 .thenThrow(new RuntimeException("Invalid email or password"));
 
@@ -147,7 +209,21 @@ class AuthControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(loginDTO)))
                 .andExpect(status().isUnauthorized())
-                .andExpect(content().string("Authentication failed: Invalid email or password"));
+                .andExpect(jsonPath("$.message").value("Invalid email or password"));
+    }
+
+    @Test
+    void loginUser_Throttled_SkipsAuthentication() throws Exception {
+        doThrow(new TooManyRequestsException("Too many login attempts. Try again later.", 60))
+                .when(loginThrottleService).checkLoginAttempt(eq("test@example.com"), any());
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginDTO)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "60"));
+
+        verify(authService, never()).authenticateUser(any(), any());
     }
 
     @Test
@@ -115,4 +115,19 @@ class UserRepositoryTest {
         assertTrue(foundUser.isPresent());
         assertEquals(savedUser.getId(), foundUser.get().getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void save_StaleEntity_KeepsTokensRevokedBefore() {
+        entityManager.persistAndFlush(user);
+        entityManager.clear();
+        userRepository.updateTokensRevokedBefore(user.getId(), 1234L);
+
+        user.setFirstName("Updated");
+        userRepository.saveAndFlush(user);
+        entityManager.clear();
+
+        User reloaded = entityManager.find(User.class, user.getId());
+        assertEquals("Updated", reloaded.getFirstName());
+        assertEquals(1234L, reloaded.getTokensRevokedBefore());
+    }
+}
@@ -0,0 +1,154 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.config.AdaptiveConcurrencyLimiter;
+import com.suyos.registration.config.PasswordHashingExecutor;
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.service.AuthChallengeService;
+import com.suyos.registration.util.IpAddressParser;
+
+/**
+ * Unit tests for AuthChallengeService.
+ *
+ * Tests the load signal, difficulty scaling, and issuing and verifying
+ * proof-of-work challenges.
+ *
+ * @author Joel Salazar
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthChallengeServiceTest {
+
+    /** Mock executor providing queue depths */
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    /** Mock limiter providing utilization */
+    @Mock
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /** AuthChallengeService instance under test */
+    private AuthChallengeService authChallengeService;
+
+    /** Client the challenges are issued to */
+    private final ClientAddress client = address("198.51.100.7");
+
+    @BeforeEach
+    void setUp() {
+        authChallengeService = new AuthChallengeService(passwordHashingExecutor, concurrencyLimiter);
+        ReflectionTestUtils.setField(authChallengeService, "enabled", true);
+        ReflectionTestUtils.setField(authChallengeService, "baseDifficulty", 8);
+        authChallengeService.init();
+        lenient().when(passwordHashingExecutor.getQueueCapacity()).thenReturn(64);
+        lenient().when(passwordHashingExecutor.getSourceQueueCapacity()).thenReturn(8);
+        lenient().when(concurrencyLimiter.getLimit()).thenReturn(8);
+    }
+
+    @Test
+    void isActive_FollowsLoad() {
+        when(passwordHashingExecutor.getQueueDepth()).thenReturn(0);
+        when(concurrencyLimiter.getInflight()).thenReturn(4);
+        assertFalse(authChallengeService.isActive());
+
+        when(passwordHashingExecutor.getQueueDepth()).thenReturn(60);
+        assertTrue(authChallengeService.isActive());
+
+        ReflectionTestUtils.setField(authChallengeService, "enabled", false);
+        assertFalse(authChallengeService.isActive());
+    }
+
+    @Test
+    void getDifficulty_GrowsWithLoadAndSourceBacklog() {
+        when(concurrencyLimiter.getInflight()).thenReturn(8);
+        when(passwordHashingExecutor.getQueueDepth()).thenReturn(0);
+        when(passwordHashingExecutor.getSourceQueueDepth(client)).thenReturn(0);
+        int full = authChallengeService.getDifficulty(client);
+
+        when(passwordHashingExecutor.getSourceQueueDepth(client)).thenReturn(8);
+        int flooding = authChallengeService.getDifficulty(client);
+
+        assertEquals(12, full);
+        assertEquals(16, flooding);
+    }
+
+    @Test
+    void verify_SolvedChallenge_AcceptedOnce() throws Exception {
+        String challenge = authChallengeService.issue(client, 8);
+        String solution = solve(challenge, 8);
+
+        assertTrue(authChallengeService.verify(challenge, solution, client));
+        assertFalse(authChallengeService.verify(challenge, solution, client));
+    }
+
+    @Test
+    void verify_OtherClient_Rejected() throws Exception {
+        String challenge = authChallengeService.issue(client, 8);
+        String solution = solve(challenge, 8);
+
+        assertFalse(authChallengeService.verify(challenge, solution, address("203.0.113.9")));
+    }
+
+    @Test
+    void verify_LoweredDifficulty_Rejected() throws Exception {
+        String challenge = authChallengeService.issue(client, 20);
+        byte[] token = Base64.getUrlDecoder().decode(challenge);
+        token[8] = 0;
+        String tampered = Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+
+        assertFalse(authChallengeService.verify(tampered, "0", client));
+    }
+
+    @Test
+    void verify_Expired_Rejected() throws Exception {
+        ReflectionTestUtils.setField(authChallengeService, "ttlSeconds", -1L);
+        String challenge = authChallengeService.issue(client, 8);
+
+        assertFalse(authChallengeService.verify(challenge, solve(challenge, 8), client));
+    }
+
+    @Test
+    void verify_MalformedInput_Rejected() {
+        assertFalse(authChallengeService.verify("not base64!", "1", client));
+        assertFalse(authChallengeService.verify("AAAA", "1", client));
+        assertFalse(authChallengeService.verify(authChallengeService.issue(client, 8), null, client));
+        verify(passwordHashingExecutor, never()).submit(any(), any());
+    }
+
+    private static String solve(String challenge, int difficulty) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (long nonce = 0; ; nonce++) {
+            String solution = Long.toString(nonce);
+            byte[] hash = digest.digest((challenge + ":" + solution).getBytes(StandardCharsets.UTF_8));
+            int zeroBits = 0;
+            for (byte b : hash) {
+                if (b != 0) {
+                    zeroBits += Integer.numberOfLeadingZeros(b & 0xFF) - 24;
+                    break;
+                }
+                zeroBits += 8;
+            }
+            if (zeroBits >= difficulty) {
+                return solution;
+            }
+        }
+    }
+
+    private static ClientAddress address(String text) {
+        long[] packed = new long[2];
+        int family = IpAddressParser.parse(text, 0, text.length(), packed);
+        return new ClientAddress(family, packed[0], packed[1], text);
+    }
+}
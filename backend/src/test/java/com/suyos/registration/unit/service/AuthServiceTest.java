@@ -5,7 +5,12 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,19 +18,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.suyos.registration.config.PasswordHashingExecutor;
 import com.suyos.registration.dto.AuthenticationResponseDTO;
 import com.suyos.registration.dto.UserLoginDTO;
 import com.suyos.registration.dto.UserProfileDTO;
 import com.suyos.registration.dto.UserRegistrationDTO;
+import com.suyos.registration.event.UserAccountChangedEvent;
+import com.suyos.registration.exception.ServiceUnavailableException;
 import com.suyos.registration.mapper.UserMapper;
 import com.suyos.registration.model.User;
 import com.suyos.registration.repository.UserRepository;
 import com.suyos.registration.service.AuthService;
 import com.suyos.registration.service.JwtService;
+import com.suyos.registration.service.LastLoginRecorder;
 import com.suyos.registration.service.LoginAttemptService;
+import com.suyos.registration.service.ClientAddressResolver;
+import com.suyos.registration.service.CredentialVerificationCache;
+import com.suyos.registration.service.CustomUserDetailsService;
 import com.suyos.registration.service.SecurityAuditService;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -65,6 +78,30 @@ class AuthServiceTest {
     @Mock
     private SecurityAuditService securityAuditService;
     
+    /** Mock client address resolver for audited client addresses */
+    @Mock
+    private ClientAddressResolver clientAddressResolver;
+    
+    /** Mock write-behind buffer for last login times */
+    @Mock
+    private LastLoginRecorder lastLoginRecorder;
+    
+    /** Mock cache of recent password verifications */
+    @Mock
+    private CredentialVerificationCache credentialVerificationCache;
+    
+    /** Mock executor for password hashing, run inline by the tests */
+    @Mock
+    private PasswordHashingExecutor passwordHashingExecutor;
+    
+    /** Mock publisher for account change events */
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    /** Mock user details service providing token authorities */
+    @Mock
+    private CustomUserDetailsService customUserDetailsService;
+
     /** Mock HTTP servlet request for audit logging */
     @Mock
     private HttpServletRequest mockRequest;
@@ -123,15 +160,22 @@ class AuthServiceTest {
                 .build();
     }
 
+    @SuppressWarnings("unchecked")
+    private void runHashingInline() {
+        when(passwordHashingExecutor.submit(any(), any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(((Supplier<Object>) invocation.getArgument(1)).get()));
+    }
+
     @Test
     void registerUser_Success() {
+        runHashingInline();
         when(userRepository.existsByEmail(registrationDTO.getEmail())).thenReturn(false);
         when(userMapper.toEntity(registrationDTO)).thenReturn(user);
         when(passwordEncoder.encode(registrationDTO.getPassword())).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(user);
         when(userMapper.toProfileDTO(user)).thenReturn(profileDTO);
 
-        UserProfileDTO result = authService.registerUser(registrationDTO, mockRequest);
+        UserProfileDTO result = authService.registerUser(registrationDTO, mockRequest).join();
 
         assertNotNull(result);
         assertEquals(profileDTO.getEmail(), result.getEmail());
@@ -148,24 +192,75 @@ class AuthServiceTest {
 
         assertEquals("Email already registered", exception.getMessage());
         verify(userRepository, never()).save(any(User.class));
+        verify(passwordHashingExecutor, never()).submit(any(), any());
     }
 
     @Test
     void authenticateUser_Success() {
+        runHashingInline();
         when(userRepository.findActiveUserByEmail(loginDTO.getEmail())).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(loginDTO.getPassword(), user.getPassword())).thenReturn(true);
-        when(userRepository.save(user)).thenReturn(user);
         when(userMapper.toProfileDTO(user)).thenReturn(profileDTO);
-        when(jwtService.generateToken(any(UserDetails.class))).thenReturn("jwt-token");
+        when(jwtService.generateToken(anyMap(), any(UserDetails.class))).thenReturn("jwt-token");
         when(jwtService.getExpirationTime()).thenReturn(86400L);
 
-        AuthenticationResponseDTO result = authService.authenticateUser(loginDTO, mockRequest);
+        AuthenticationResponseDTO result = authService.authenticateUser(loginDTO, mockRequest).join();
 
         assertNotNull(result);
         assertEquals("jwt-token", result.getAccessToken());
         assertEquals(86400L, result.getExpiresIn());
         assertEquals(profileDTO, result.getUser());
-        verify(userRepository).save(user);
+        verify(lastLoginRecorder).record(eq(1L), any(LocalDateTime.class));
+        verify(userRepository, never()).save(any(User.class));
+        verify(userRepository, never()).unlockAccount(anyString());
+        verify(credentialVerificationCache).record("test@example.com", "password123", "encodedPassword");
+        verify(jwtService).generateToken(eq(Map.of(
+                JwtService.CLAIM_USER_ID, 1L,
+                JwtService.CLAIM_AUTHORITIES, List.of())), any(UserDetails.class));
+    }
+
+    @Test
+    void authenticateUser_PreviousFailures_ResetSynchronously() {
+        runHashingInline();
+        user.setFailedLoginAttempts(3);
+        when(userRepository.findActiveUserByEmail(loginDTO.getEmail())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(loginDTO.getPassword(), user.getPassword())).thenReturn(true);
+        when(jwtService.generateToken(anyMap(), any(UserDetails.class))).thenReturn("jwt-token");
+
+        authService.authenticateUser(loginDTO, mockRequest).join();
+
+        verify(userRepository).unlockAccount("test@example.com");
+        verify(lastLoginRecorder).record(eq(1L), any(LocalDateTime.class));
+        assertEquals(0, user.getFailedLoginAttempts());
+    }
+
+    @Test
+    void authenticateUser_OutdatedHash_RehashedAfterLogin() {
+        runHashingInline();
+        when(userRepository.findActiveUserByEmail(loginDTO.getEmail())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(loginDTO.getPassword(), "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode(loginDTO.getPassword())).thenReturn("{bcrypt}upgradedPassword");
+        when(userRepository.upgradePasswordHash(1L, "encodedPassword", "{bcrypt}upgradedPassword")).thenReturn(1);
+        when(jwtService.generateToken(anyMap(), any(UserDetails.class))).thenReturn("jwt-token");
+
+        authService.authenticateUser(loginDTO, mockRequest).join();
+
+        verify(userRepository).upgradePasswordHash(1L, "encodedPassword", "{bcrypt}upgradedPassword");
+        verify(eventPublisher).publishEvent(any(UserAccountChangedEvent.class));
+    }
+
+    @Test
+    void authenticateUser_RecentlyVerified_SkipsHashing() {
+        when(userRepository.findActiveUserByEmail(loginDTO.getEmail())).thenReturn(Optional.of(user));
+        when(credentialVerificationCache.matches("test@example.com", "password123", "encodedPassword")).thenReturn(true);
+        when(jwtService.generateToken(anyMap(), any(UserDetails.class))).thenReturn("jwt-token");
+
+        AuthenticationResponseDTO result = authService.authenticateUser(loginDTO, mockRequest).join();
+
+        assertEquals("jwt-token", result.getAccessToken());
+        verify(passwordHashingExecutor, never()).submit(any(), any());
+        verify(passwordEncoder, never()).matches(any(), any());
     }
 
     @Test
@@ -192,13 +287,28 @@ class AuthServiceTest {
 
     @Test
     void authenticateUser_InvalidPassword() {
+        runHashingInline();
         when(userRepository.findActiveUserByEmail(loginDTO.getEmail())).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(loginDTO.getPassword(), user.getPassword())).thenReturn(false);
 
-        RuntimeException exception = assertThrows(RuntimeException.class, 
-            () -> authService.authenticateUser(loginDTO, mockRequest));
+        CompletableFuture<AuthenticationResponseDTO> result = authService.authenticateUser(loginDTO, mockRequest);
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
 
-        assertEquals("Invalid email or password", exception.getMessage());
+        assertEquals("Invalid email or password", exception.getCause().getMessage());
         verify(loginAttemptService).recordFailedAttempt(user);
     }
+
+    @Test
+    void authenticateUser_HashingRejected_FailsWithoutRecordingAttempt() {
+        when(userRepository.findActiveUserByEmail(loginDTO.getEmail())).thenReturn(Optional.of(user));
+        when(passwordHashingExecutor.submit(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("Server is busy. Try again later.", 1)));
+
+        CompletableFuture<AuthenticationResponseDTO> result = authService.authenticateUser(loginDTO, mockRequest);
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+
+        assertInstanceOf(ServiceUnavailableException.class, exception.getCause());
+        verify(loginAttemptService, never()).recordFailedAttempt(any());
+        verify(userRepository, never()).save(any(User.class));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.service.ClientAddressResolver;
+import com.suyos.registration.util.IpAddressParser;
+
+/**
+ * Unit tests for ClientAddressResolver.
+ * 
+ * Tests that only the configured forwarding header is honored, only from
+ * trusted proxies, read right to left, and that the result is cached on
+ * the request.
+ * 
+ * @author Joel Salazar
+ */
+class ClientAddressResolverTest {
+
+    /** ClientAddressResolver instance under test */
+    private ClientAddressResolver clientAddressResolver;
+
+    /** Request under resolution */
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        clientAddressResolver = new ClientAddressResolver();
+        ReflectionTestUtils.setField(clientAddressResolver, "trustedProxies", "10.0.0.0/8, 2001:db8:ffff::/48");
+        clientAddressResolver.init();
+        request = new MockHttpServletRequest();
+    }
+
+    @Test
+    void resolve_IgnoresHeadersFromUntrustedPeer() {
+        request.setRemoteAddr("203.0.113.9");
+        request.addHeader("X-Forwarded-For", "1.2.3.4");
+
+        assertEquals("203.0.113.9", clientAddressResolver.getClientIp(request));
+    }
+
+    @Test
+    void resolve_WalksXForwardedForRightToLeft() {
+        request.setRemoteAddr("10.0.0.2");
+        request.addHeader("X-Forwarded-For", "1.2.3.4, 198.51.100.7, 10.0.0.1");
+
+        ClientAddress address = clientAddressResolver.resolve(request);
+
+        assertEquals(IpAddressParser.IPV4, address.getFamily());
+        assertEquals("198.51.100.7", address.getText());
+    }
+
+    @Test
+    void resolve_ReadsAllHeaderLines() {
+        request.setRemoteAddr("10.0.0.2");
+        request.addHeader("X-Forwarded-For", "1.2.3.4");
+        request.addHeader("X-Forwarded-For", "10.0.0.5");
+
+        assertEquals("1.2.3.4", clientAddressResolver.getClientIp(request));
+    }
+
+    @Test
+    void resolve_IgnoresClientSuppliedForwardedHeader() {
+        request.setRemoteAddr("10.0.0.2");
+        request.addHeader("Forwarded", "for=1.2.3.4");
+        request.addHeader("X-Real-IP", "5.6.7.8");
+        request.addHeader("X-Forwarded-For", "198.51.100.7");
+
+        assertEquals("198.51.100.7", clientAddressResolver.getClientIp(request));
+    }
+
+    @Test
+    void resolve_ReadsConfiguredForwardedHeader() {
+        ReflectionTestUtils.setField(clientAddressResolver, "forwardedHeader", "forwarded");
+        clientAddressResolver.init();
+        request.setRemoteAddr("2001:db8:ffff::1");
+        request.addHeader("X-Forwarded-For", "1.2.3.4");
+        request.addHeader("Forwarded",
+                "for=192.0.2.60;proto=http, For=\"[2001:db8:cafe::17]:4711\";by=10.0.0.1, for=10.1.1.1");
+
+        ClientAddress address = clientAddressResolver.resolve(request);
+
+        assertEquals(IpAddressParser.IPV6, address.getFamily());
+        assertEquals(0x20010DB8CAFE0000L, address.getHigh());
+        assertEquals(0x17L, address.getLow());
+    }
+
+    @Test
+    void resolve_ReadsConfiguredXRealIpOnly() {
+        ReflectionTestUtils.setField(clientAddressResolver, "forwardedHeader", "X-Real-IP");
+        clientAddressResolver.init();
+        request.setRemoteAddr("10.0.0.2");
+        request.addHeader("X-Forwarded-For", "1.2.3.4");
+
+        assertEquals("10.0.0.2", clientAddressResolver.getClientIp(request));
+        request.removeAttribute(ClientAddress.REQUEST_ATTRIBUTE);
+        request.addHeader("X-Real-IP", "198.51.100.7");
+        assertEquals("198.51.100.7", clientAddressResolver.getClientIp(request));
+    }
+
+    @Test
+    void resolve_UnparseableHopFallsBackToLastTrustedHop() {
+        request.setRemoteAddr("10.0.0.2");
+        request.addHeader("X-Forwarded-For", "1.2.3.4, garbage, 10.0.0.1");
+
+        assertEquals("10.0.0.1", clientAddressResolver.getClientIp(request));
+    }
+
+    @Test
+    void resolve_CachesResultOnRequest() {
+        request.setRemoteAddr("203.0.113.9");
+
+        ClientAddress address = clientAddressResolver.resolve(request);
+        request.setRemoteAddr("203.0.113.10");
+
+        assertSame(address, clientAddressResolver.resolve(request));
+        assertSame(address, request.getAttribute(ClientAddress.REQUEST_ATTRIBUTE));
+    }
+
+    @Test
+    void init_RejectsMalformedRanges() {
+        ReflectionTestUtils.setField(clientAddressResolver, "trustedProxies", "10.0.0.0/33");
+
+        assertThrows(IllegalArgumentException.class, clientAddressResolver::init);
+    }
+
+    @Test
+    void init_RejectsUnknownForwardedHeader() {
+        ReflectionTestUtils.setField(clientAddressResolver, "forwardedHeader", "X-Client-IP");
+
+        assertThrows(IllegalArgumentException.class, clientAddressResolver::init);
+    }
+}
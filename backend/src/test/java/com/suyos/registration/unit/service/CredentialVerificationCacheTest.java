@@ -0,0 +1,80 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.event.UserAccountChangedEvent;
+import com.suyos.registration.service.CredentialVerificationCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for CredentialVerificationCache.
+ * 
+ * Tests matching of recorded credentials, invalidation and the disabled
+ * default.
+ * 
+ * @author Joel Salazar
+ */
+class CredentialVerificationCacheTest {
+
+    /** CredentialVerificationCache instance under test */
+    private CredentialVerificationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CredentialVerificationCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        cache.init();
+    }
+
+    @Test
+    void matches_RecordedCredentials_Hit() {
+        cache.record("test@example.com", "password123", "{bcrypt}hash");
+
+        assertTrue(cache.matches("test@example.com", "password123", "{bcrypt}hash"));
+    }
+
+    @Test
+    void matches_DifferentPasswordOrHash_Miss() {
+        cache.record("test@example.com", "password123", "{bcrypt}hash");
+
+        assertFalse(cache.matches("test@example.com", "password124", "{bcrypt}hash"));
+        assertFalse(cache.matches("test@example.com", "password123", "{bcrypt}rehashed"));
+        assertFalse(cache.matches("other@example.com", "password123", "{bcrypt}hash"));
+    }
+
+    @Test
+    void onUserAccountChanged_InvalidatesEntry() {
+        cache.record("test@example.com", "password123", "{bcrypt}hash");
+
+        cache.onUserAccountChanged(new UserAccountChangedEvent("test@example.com"));
+
+        assertFalse(cache.matches("test@example.com", "password123", "{bcrypt}hash"));
+    }
+
+    @Test
+    void bindTo_ExposesHitRate() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.record("test@example.com", "password123", "{bcrypt}hash");
+
+        cache.matches("test@example.com", "password123", "{bcrypt}hash");
+        cache.matches("other@example.com", "password123", "{bcrypt}hash");
+
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void disabled_NeverMatches() {
+        CredentialVerificationCache disabled = new CredentialVerificationCache();
+        disabled.init();
+        disabled.record("test@example.com", "password123", "{bcrypt}hash");
+
+        assertFalse(disabled.matches("test@example.com", "password123", "{bcrypt}hash"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.event.UserAccountChangedEvent;
+import com.suyos.registration.model.User;
+import com.suyos.registration.repository.UserRepository;
+import com.suyos.registration.service.CustomUserDetailsService;
+
+/**
+ * Unit tests for CustomUserDetailsService.
+ * 
+ * Tests user details loading, admin authorities and the event-driven
+ * invalidation of the user details cache.
+ * 
+ * @author Joel Salazar
+ */
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    /** Mock repository for user data access operations */
+    @Mock
+    private UserRepository userRepository;
+
+    /** CustomUserDetailsService instance under test */
+    private CustomUserDetailsService userDetailsService;
+
+    /** Test user entity returned by the repository */
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userDetailsService = new CustomUserDetailsService(userRepository);
+        ReflectionTestUtils.setField(userDetailsService, "cacheEnabled", true);
+        ReflectionTestUtils.setField(userDetailsService, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(userDetailsService, "cacheTtlSeconds", 60L);
+        userDetailsService.init();
+
+        user = User.builder()
+                .id(1L)
+                .email("test@example.com")
+                .password("encodedPassword")
+                .accountEnabled(true)
+                .accountLocked(false)
+                .build();
+    }
+
+    @Test
+    void loadUserByUsername_CachesResult() {
+        when(userRepository.findActiveUserByEmail("test@example.com")).thenReturn(Optional.of(user));
+
+        UserDetails first = userDetailsService.loadUserByUsername("test@example.com");
+        UserDetails second = userDetailsService.loadUserByUsername("test@example.com");
+
+        assertEquals("test@example.com", first.getUsername());
+        assertEquals("encodedPassword", second.getPassword());
+        assertNotSame(first, second);
+        verify(userRepository, times(1)).findActiveUserByEmail("test@example.com");
+    }
+
+    @Test
+    void loadUserByUsername_ReloadsAfterAccountChanged() {
+        when(userRepository.findActiveUserByEmail("test@example.com")).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername("test@example.com");
+        userDetailsService.onUserAccountChanged(new UserAccountChangedEvent("test@example.com"));
+        userDetailsService.loadUserByUsername("test@example.com");
+
+        verify(userRepository, times(2)).findActiveUserByEmail("test@example.com");
+    }
+
+    @Test
+    void loadUserByUsername_UserNotFoundIsNotCached() {
+        when(userRepository.findActiveUserByEmail("missing@example.com")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class,
+            () -> userDetailsService.loadUserByUsername("missing@example.com"));
+        assertThrows(UsernameNotFoundException.class,
+            () -> userDetailsService.loadUserByUsername("missing@example.com"));
+
+        verify(userRepository, times(2)).findActiveUserByEmail("missing@example.com");
+    }
+
+    @Test
+    void loadUserByUsername_GrantsAdminRoleToConfiguredEmails() {
+        ReflectionTestUtils.setField(userDetailsService, "adminEmails", Set.of("test@example.com"));
+        user.setEmailVerified(true);
+        when(userRepository.findActiveUserByEmail("test@example.com")).thenReturn(Optional.of(user));
+
+        UserDetails details = userDetailsService.loadUserByUsername("test@example.com");
+
+        assertEquals(CustomUserDetailsService.ADMIN_AUTHORITY,
+                details.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void getAuthorities_UnverifiedConfiguredEmail_GrantsNothing() {
+        ReflectionTestUtils.setField(userDetailsService, "adminEmails", Set.of("test@example.com"));
+        user.setEmailVerified(false);
+
+        assertTrue(userDetailsService.getAuthorities(user).isEmpty());
+    }
+
+    @Test
+    void getAuthorities_UnlistedVerifiedEmail_GrantsNothing() {
+        ReflectionTestUtils.setField(userDetailsService, "adminEmails", Set.of("admin@example.com"));
+        user.setEmailVerified(true);
+
+        assertTrue(userDetailsService.getAuthorities(user).isEmpty());
+    }
+}
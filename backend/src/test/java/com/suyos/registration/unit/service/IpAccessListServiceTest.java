@@ -0,0 +1,118 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.config.IpAccessRule;
+import com.suyos.registration.model.ClientAddress;
+import com.suyos.registration.service.IpAccessListService;
+import com.suyos.registration.util.IpAddressParser;
+
+/**
+ * Unit tests for IpAccessListService.
+ * 
+ * Tests rule evaluation, match counting and hot reloading of the rules
+ * file.
+ * 
+ * @author Joel Salazar
+ */
+class IpAccessListServiceTest {
+
+    /** Directory holding the rules file */
+    @TempDir
+    Path tempDir;
+
+    /** Rules file read by the service */
+    private Path rulesFile;
+
+    /** IpAccessListService instance under test */
+    private IpAccessListService ipAccessListService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        rulesFile = tempDir.resolve("ip-access.rules");
+        Files.writeString(rulesFile, """
+                # Abusive hosting network, except our monitoring host
+                deny 203.0.113.0/24
+                allow 203.0.113.10   # monitoring
+                DENY 2001:db8:bad::/48
+                """);
+        ipAccessListService = new IpAccessListService();
+        ReflectionTestUtils.setField(ipAccessListService, "rulesFile", rulesFile.toString());
+        ipAccessListService.init();
+    }
+
+    @Test
+    void isAllowed_MostSpecificRuleDecides() {
+        assertFalse(ipAccessListService.isAllowed(address("203.0.113.9")));
+        assertTrue(ipAccessListService.isAllowed(address("203.0.113.10")));
+        assertFalse(ipAccessListService.isAllowed(address("2001:db8:bad:1::1")));
+        assertTrue(ipAccessListService.isAllowed(address("198.51.100.1")));
+    }
+
+    @Test
+    void isAllowed_DefaultActionAppliesToUnmatchedAddresses() {
+        ReflectionTestUtils.setField(ipAccessListService, "defaultAction", IpAccessRule.Action.DENY);
+
+        assertFalse(ipAccessListService.isAllowed(address("198.51.100.1")));
+        assertFalse(ipAccessListService.isAllowed(new ClientAddress(IpAddressParser.INVALID, 0, 0, "unknown")));
+        assertTrue(ipAccessListService.isAllowed(address("203.0.113.10")));
+    }
+
+    @Test
+    void reloadIfChanged_AppliesNewRulesAndKeepsCounters() throws IOException {
+        ipAccessListService.isAllowed(address("203.0.113.9"));
+        ipAccessListService.isAllowed(address("203.0.113.9"));
+
+        Files.writeString(rulesFile, "deny 203.0.113.0/24\ndeny 198.51.100.0/24\n");
+        Files.setLastModifiedTime(rulesFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        ipAccessListService.reloadIfChanged();
+
+        assertFalse(ipAccessListService.isAllowed(address("198.51.100.1")));
+        assertFalse(ipAccessListService.isAllowed(address("203.0.113.10")));
+        assertEquals(3, ipAccessListService.getRules().get(0).getHits());
+        assertEquals(1, ipAccessListService.getRules().get(1).getHits());
+    }
+
+    @Test
+    void reloadIfChanged_InvalidFileKeepsCurrentRules() throws IOException {
+        Files.writeString(rulesFile, "deny 203.0.113.0/24\nblock everything\n");
+        Files.setLastModifiedTime(rulesFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        ipAccessListService.reloadIfChanged();
+
+        assertEquals(3, ipAccessListService.getRules().size());
+        assertTrue(ipAccessListService.isAllowed(address("203.0.113.10")));
+    }
+
+    @Test
+    void reload_RejectsDuplicateRanges() throws IOException {
+        Files.writeString(rulesFile, "deny 10.0.0.0/8\nallow 10.1.0.0/8\n");
+
+        assertThrows(IllegalArgumentException.class, ipAccessListService::reload);
+    }
+
+    private static ClientAddress address(String text) {
+        long[] packed = new long[2];
+        int family = IpAddressParser.parse(text, 0, text.length(), packed);
+        return new ClientAddress(family, packed[0], packed[1], text);
+    }
+
+    @Test
+    void reload_WithoutRulesFile_KeepsCurrentRules() {
+        IpAccessListService unconfigured = new IpAccessListService();
+        unconfigured.init();
+
+        assertTrue(unconfigured.reload().isEmpty());
+        assertTrue(unconfigured.isAllowed(address("203.0.113.9")));
+    }
+}
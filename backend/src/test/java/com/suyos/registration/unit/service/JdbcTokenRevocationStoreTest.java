@@ -0,0 +1,144 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.service.JdbcTokenRevocationStore;
+
+/**
+ * Unit tests for JdbcTokenRevocationStore.
+ *
+ * Tests group-committed writes and tailing of the revocation change feed,
+ * including how gaps in the row IDs hold back the high-water mark.
+ *
+ * @author Joel Salazar
+ */
+@ExtendWith(MockitoExtension.class)
+class JdbcTokenRevocationStoreTest {
+
+    /** Mock JDBC template returning canned change feed rows */
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    /** JdbcTokenRevocationStore instance under test with injected mocks */
+    @InjectMocks
+    private JdbcTokenRevocationStore revocationStore;
+
+    /** Marks passed to each change feed query */
+    private List<Long> queriedMarks;
+
+    @BeforeEach
+    void setUp() {
+        queriedMarks = new ArrayList<>();
+    }
+
+    @Test
+    void readChanges_ContiguousRows_AdvancesMark() throws Exception {
+        stubChangeFeed(1L, 2L, 3L);
+        List<String> keys = new ArrayList<>();
+
+        int read = revocationStore.readChanges((key, expiresAt, revokedAt) -> keys.add(key));
+        revocationStore.readChanges((key, expiresAt, revokedAt) -> { });
+
+        assertEquals(3, read);
+        assertEquals(List.of("key-1", "key-2", "key-3"), keys);
+        assertEquals(List.of(0L, 3L), queriedMarks);
+    }
+
+    @Test
+    void readChanges_Gap_HoldsMarkUntilTimeout() throws Exception {
+        stubChangeFeed(1L, 2L, 4L);
+
+        revocationStore.readChanges((key, expiresAt, revokedAt) -> { });
+        revocationStore.readChanges((key, expiresAt, revokedAt) -> { });
+        ReflectionTestUtils.setField(revocationStore, "gapTimeoutMillis", 0L);
+        revocationStore.readChanges((key, expiresAt, revokedAt) -> { });
+        revocationStore.readChanges((key, expiresAt, revokedAt) -> { });
+
+        assertEquals(List.of(0L, 2L, 2L, 4L), queriedMarks);
+    }
+
+    @Test
+    void loadUnexpired_PositionsChangeFeed() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(7L);
+        stubChangeFeed();
+
+        revocationStore.loadUnexpired(System.currentTimeMillis(), (key, expiresAt) -> { });
+        revocationStore.readChanges((key, expiresAt, revokedAt) -> { });
+
+        assertEquals(List.of(7L), queriedMarks);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_DatabaseFailure_RetriesOnNextFlush() {
+        List<List<Object>> attempts = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    attempts.add(new ArrayList<>(invocation.<List<Object>>getArgument(1)));
+                    if (attempts.size() == 1) {
+                        throw new DataAccessResourceFailureException("connection lost");
+                    }
+                    return new int[][] {{1}};
+                });
+        revocationStore.append("key-1", System.currentTimeMillis() + 60000);
+
+        revocationStore.flush();
+        revocationStore.flush();
+        revocationStore.flush();
+
+        assertEquals(2, attempts.size());
+        assertEquals(attempts.get(0), attempts.get(1));
+    }
+
+    /**
+     * Stubs the change feed query to return the given row IDs above the mark.
+     *
+     * @param ids the row IDs present in the table
+     */
+    private void stubChangeFeed(Long... ids) throws Exception {
+        lenient().doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            long mark = invocation.getArgument(2);
+            queriedMarks.add(mark);
+            for (Long id : ids) {
+                if (id > mark) {
+                    handler.processRow(row(id));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT id"), any(RowCallbackHandler.class), anyLong(), anyInt());
+    }
+
+    /**
+     * Creates a result set positioned on a single change feed row.
+     *
+     * @param id the row ID
+     * @return the mocked result set
+     */
+    private ResultSet row(long id) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(id);
+        when(rs.getString(2)).thenReturn("key-" + id);
+        when(rs.getLong(3)).thenReturn(System.currentTimeMillis() + 60000);
+        when(rs.getLong(4)).thenReturn(System.currentTimeMillis());
+        return rs;
+    }
+
+}
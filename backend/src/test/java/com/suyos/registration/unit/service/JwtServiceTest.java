@@ -2,7 +2,11 @@ package com.suyos.registration.unit.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
+
+import javax.crypto.spec.SecretKeySpec;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,9 +16,11 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import com.suyos.registration.model.VerifiedToken;
 import com.suyos.registration.service.JwtService;
 
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
 
 /**
  * Unit tests for JwtService.
@@ -38,6 +44,7 @@ class JwtServiceTest {
         jwtService = new JwtService();
         ReflectionTestUtils.setField(jwtService, "secretKey", "mySecretKeymySecretKeymySecretKeymySecretKey");
         ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86400000L);
+        jwtService.init();
         
         userDetails = User.builder()
                 .username("test@example.com")
@@ -74,6 +81,100 @@ class JwtServiceTest {
         assertTrue(expiration.after(new Date()));
     }
 
+    @Test
+    void verifyToken_Success() {
+        String token = jwtService.generateToken(Map.of("uid", 42), userDetails);
+        
+        VerifiedToken verifiedToken = jwtService.verifyToken(token);
+        
+        assertEquals(token, verifiedToken.getToken());
+        assertEquals("test@example.com", verifiedToken.getSubject());
+        assertNotNull(verifiedToken.getId());
+        assertNotNull(verifiedToken.getIssuedAt());
+        assertTrue(verifiedToken.getExpiration().after(new Date()));
+        assertEquals(42, verifiedToken.getClaim("uid", Integer.class));
+        assertFalse(verifiedToken.getClaims().containsKey("sub"));
+        assertThrows(UnsupportedOperationException.class, () -> verifiedToken.getClaims().put("x", 1));
+    }
+
+    @Test
+    void verifyToken_MissingExpiration_Rejected() {
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheEnabled", true);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100L);
+        jwtService.init();
+        String token = Jwts.builder()
+                .subject("test@example.com")
+                .issuedAt(new Date())
+                .signWith(new SecretKeySpec(
+                        Base64.getDecoder().decode("mySecretKeymySecretKeymySecretKeymySecretKey"), "HmacSHA256"))
+                .compact();
+        
+        assertThrows(JwtException.class, () -> jwtService.verifyToken(token));
+    }
+
+    @Test
+    void verifyToken_UniqueIdPerToken() {
+        String first = jwtService.generateToken(userDetails);
+        String second = jwtService.generateToken(userDetails);
+        
+        assertNotEquals(jwtService.verifyToken(first).getId(), jwtService.verifyToken(second).getId());
+    }
+
+    @Test
+    void verifyToken_InvalidToken() {
+        assertThrows(JwtException.class, () -> {
+            jwtService.verifyToken("invalid.token.here");
+        });
+    }
+
+    @Test
+    void verifyToken_CacheReturnsSameInstance() {
+        enableVerifiedCache();
+        String token = jwtService.generateToken(userDetails);
+        
+        VerifiedToken first = jwtService.verifyToken(token);
+        VerifiedToken second = jwtService.verifyToken(token);
+        
+        assertSame(first, second);
+    }
+
+    @Test
+    void verifyToken_CacheEvictedToken() {
+        enableVerifiedCache();
+        String token = jwtService.generateToken(userDetails);
+        VerifiedToken first = jwtService.verifyToken(token);
+        
+        jwtService.evictVerifiedToken(token);
+        
+        assertNotSame(first, jwtService.verifyToken(token));
+    }
+
+    @Test
+    void verifyToken_CacheRejectsTamperedPayload() {
+        enableVerifiedCache();
+        String token = jwtService.generateToken(userDetails);
+        jwtService.verifyToken(token);
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + parts[1] + "e30." + parts[2];
+        
+        assertThrows(JwtException.class, () -> {
+            jwtService.verifyToken(forged);
+        });
+    }
+
+    @Test
+    void isTokenValid_VerifiedToken() {
+        VerifiedToken verifiedToken = jwtService.verifyToken(jwtService.generateToken(userDetails));
+        UserDetails differentUser = User.builder()
+                .username("different@example.com")
+                .password("password")
+                .authorities("USER")
+                .build();
+        
+        assertTrue(jwtService.isTokenValid(verifiedToken, userDetails));
+        assertFalse(jwtService.isTokenValid(verifiedToken, differentUser));
+    }
+
     @Test
     void isTokenValid_ValidToken() {
         String token = jwtService.generateToken(userDetails);
@@ -104,10 +205,29 @@ class JwtServiceTest {
         });
     }
 
+    @Test
+    void extractUsername_TokenSignedWithDifferentKey() {
+        JwtService otherService = new JwtService();
+        ReflectionTestUtils.setField(otherService, "secretKey", "b3RoZXJTZWNyZXRLZXlvdGhlclNlY3JldEtleW90aGVyU2VjcmV0");
+        ReflectionTestUtils.setField(otherService, "jwtExpiration", 86400000L);
+        otherService.init();
+        String foreignToken = otherService.generateToken(userDetails);
+        
+        assertThrows(JwtException.class, () -> {
+            jwtService.extractUsername(foreignToken);
+        });
+    }
+
     @Test
     void getExpirationTime_Success() {
         Long expirationTime = jwtService.getExpirationTime();
         
         assertEquals(86400L, expirationTime); // 24 hours in seconds
     }
+
+    private void enableVerifiedCache() {
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheEnabled", true);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100L);
+        jwtService.init();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.suyos.registration.service.LastLoginRecorder;
+
+/**
+ * Unit tests for LastLoginRecorder.
+ * 
+ * Tests coalescing of logins per user, batched flushes and retries after
+ * a failed flush.
+ * 
+ * @author Joel Salazar
+ */
+@ExtendWith(MockitoExtension.class)
+class LastLoginRecorderTest {
+
+    /** Mock JDBC template receiving the batches */
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    /** LastLoginRecorder instance under test */
+    @InjectMocks
+    private LastLoginRecorder lastLoginRecorder;
+
+    /** Time of the first login */
+    private final LocalDateTime earlier = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /** Time of the second login */
+    private final LocalDateTime later = earlier.plusMinutes(5);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_CoalescesLoginsPerUser() {
+        lastLoginRecorder.record(1L, earlier);
+        lastLoginRecorder.record(1L, later);
+        lastLoginRecorder.record(2L, earlier);
+
+        lastLoginRecorder.flush();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE users SET last_login_at = ? WHERE id = ?"), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        for (Object[] row : batch.getValue()) {
+            assertEquals(row[1].equals(1L) ? Timestamp.valueOf(later) : Timestamp.valueOf(earlier), row[0]);
+        }
+        assertEquals(0, lastLoginRecorder.getPendingCount());
+    }
+
+    @Test
+    void flush_NothingPending_SkipsDatabase() {
+        lastLoginRecorder.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void flush_Failure_KeepsEntriesForRetry() {
+        lastLoginRecorder.record(1L, earlier);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        lastLoginRecorder.flush();
+
+        assertEquals(1, lastLoginRecorder.getPendingCount());
+    }
+}
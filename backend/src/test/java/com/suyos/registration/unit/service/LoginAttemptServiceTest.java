@@ -1,9 +1,13 @@
 package com.suyos.registration.unit.service;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,10 +15,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.suyos.registration.model.User;
 import com.suyos.registration.repository.UserRepository;
 import com.suyos.registration.service.LoginAttemptService;
+import com.suyos.registration.service.SessionRevocationService;
 
 /**
  * Unit tests for LoginAttemptService.
@@ -31,6 +37,14 @@ class LoginAttemptServiceTest {
     @Mock
     private UserRepository userRepository;
     
+    /** Mock service for revoking tokens when an account is locked */
+    @Mock
+    private SessionRevocationService sessionRevocationService;
+    
+    /** Mock publisher for account change events */
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     /** LoginAttemptService instance under test with injected mocks */
     @InjectMocks
     private LoginAttemptService loginAttemptService;
@@ -50,50 +64,85 @@ class LoginAttemptServiceTest {
 
     @Test
     void recordFailedAttempt_FirstAttempt() {
+        when(userRepository.findFailedLoginAttemptsById(1L)).thenReturn(Optional.of(1));
+
         loginAttemptService.recordFailedAttempt(user);
 
         assertEquals(1, user.getFailedLoginAttempts());
         assertFalse(user.getAccountLocked());
         assertNull(user.getLockedUntil());
-        verify(userRepository).save(user);
+        verify(userRepository).incrementFailedLoginAttempts(eq(1L), eq(5), any(LocalDateTime.class));
+        verify(userRepository, never()).save(any());
+        verify(sessionRevocationService, never()).revokeAllSessions(anyLong());
     }
 
     @Test
     void recordFailedAttempt_SecondAttempt() {
         user.setFailedLoginAttempts(1);
+        when(userRepository.findFailedLoginAttemptsById(1L)).thenReturn(Optional.of(2));
         
         loginAttemptService.recordFailedAttempt(user);
 
         assertEquals(2, user.getFailedLoginAttempts());
         assertFalse(user.getAccountLocked());
         assertNull(user.getLockedUntil());
-        verify(userRepository).save(user);
+        verify(userRepository, never()).save(any());
     }
 
     @Test
-    void recordFailedAttempt_ThirdAttempt_AccountLocked() {
+    void recordFailedAttempt_ThirdAttempt_BelowThreshold_NotLocked() {
         user.setFailedLoginAttempts(2);
+        when(userRepository.findFailedLoginAttemptsById(1L)).thenReturn(Optional.of(3));
         
         loginAttemptService.recordFailedAttempt(user);
 
         assertEquals(3, user.getFailedLoginAttempts());
-        assertTrue(user.getAccountLocked());
-        assertNotNull(user.getLockedUntil());
-        assertTrue(user.getLockedUntil().isAfter(LocalDateTime.now()));
-        verify(userRepository).save(user);
+        assertFalse(user.getAccountLocked());
+        assertNull(user.getLockedUntil());
+        verify(userRepository, never()).save(any());
+        verify(sessionRevocationService, never()).revokeAllSessions(anyLong());
     }
 
     @Test
     void recordFailedAttempt_AlreadyLocked() {
+        LocalDateTime lockedUntil = LocalDateTime.now().plusMinutes(15);
         user.setFailedLoginAttempts(5);
         user.setAccountLocked(true);
-        user.setLockedUntil(LocalDateTime.now().plusMinutes(15));
+        user.setLockedUntil(lockedUntil);
+        when(userRepository.findFailedLoginAttemptsById(1L)).thenReturn(Optional.of(6));
         
         loginAttemptService.recordFailedAttempt(user);
 
         assertEquals(6, user.getFailedLoginAttempts());
+        assertTrue(user.getAccountLocked());
+        assertEquals(lockedUntil, user.getLockedUntil());
+        verify(userRepository, never()).save(any());
+        verify(sessionRevocationService, never()).revokeAllSessions(anyLong());
+    }
+
+    @Test
+    void recordFailedAttempt_LockRevokesTokens() {
+        user.setFailedLoginAttempts(4);
+        when(userRepository.findFailedLoginAttemptsById(1L)).thenReturn(Optional.of(5));
+        
+        loginAttemptService.recordFailedAttempt(user);
+
         assertTrue(user.getAccountLocked());
         assertNotNull(user.getLockedUntil());
-        verify(userRepository).save(user);
+        verify(sessionRevocationService).revokeAllSessions(1L);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void recordFailedAttempt_ConcurrentAttempts_UsesDatabaseCount() {
+        // Another request already counted a failure since this entity was loaded
+        user.setFailedLoginAttempts(3);
+        when(userRepository.findFailedLoginAttemptsById(1L)).thenReturn(Optional.of(5));
+
+        loginAttemptService.recordFailedAttempt(user);
+
+        assertEquals(5, user.getFailedLoginAttempts());
+        assertTrue(user.getAccountLocked());
+        verify(sessionRevocationService).revokeAllSessions(1L);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.suyos.registration.config.RateLimitingConfig;
+import com.suyos.registration.exception.TooManyRequestsException;
+import com.suyos.registration.service.LoginThrottleService;
+import com.suyos.registration.service.RateLimitPolicyService;
+
+/**
+ * Unit tests for LoginThrottleService.
+ * 
+ * Tests the per-account login attempt limit and the retry delay reported
+ * once it is exhausted.
+ * 
+ * @author Joel Salazar
+ */
+class LoginThrottleServiceTest {
+
+    /** LoginThrottleService instance under test */
+    private LoginThrottleService loginThrottleService;
+
+    /** Login request the account policies are matched against */
+    private final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+
+    @BeforeEach
+    void setUp() {
+        RateLimitingConfig rateLimitingConfig = new RateLimitingConfig();
+        rateLimitingConfig.init();
+        RateLimitPolicyService rateLimitPolicyService =
+                new RateLimitPolicyService(new MockEnvironment(), new DefaultResourceLoader());
+        rateLimitPolicyService.init();
+        loginThrottleService = new LoginThrottleService(rateLimitingConfig, rateLimitPolicyService);
+    }
+
+    @Test
+    void checkLoginAttempt_ThrottlesAfterLimit() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottleService.checkLoginAttempt("test@example.com", request);
+        }
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> loginThrottleService.checkLoginAttempt("test@example.com", request));
+        assertTrue(exception.getRetryAfterSeconds() > 0);
+        assertTrue(exception.getRetryAfterSeconds() <= 15 * 60);
+    }
+
+    @Test
+    void checkLoginAttempt_NormalizesEmail() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottleService.checkLoginAttempt(i % 2 == 0 ? "Test@Example.com" : " test@example.com ", request);
+        }
+
+        assertThrows(TooManyRequestsException.class,
+                () -> loginThrottleService.checkLoginAttempt("TEST@EXAMPLE.COM", request));
+    }
+
+    @Test
+    void checkLoginAttempt_AccountsAreIndependent() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottleService.checkLoginAttempt("test@example.com", request);
+        }
+
+        assertDoesNotThrow(() -> loginThrottleService.checkLoginAttempt("other@example.com", request));
+    }
+
+    @Test
+    void checkLoginAttempt_IgnoresRoutesWithoutAccountPolicy() {
+        MockHttpServletRequest other = new MockHttpServletRequest("POST", "/api/v1/auth/register");
+        for (int i = 0; i < 10; i++) {
+            loginThrottleService.checkLoginAttempt("test@example.com", other);
+        }
+
+        assertDoesNotThrow(() -> loginThrottleService.checkLoginAttempt("test@example.com", request));
+    }
+}
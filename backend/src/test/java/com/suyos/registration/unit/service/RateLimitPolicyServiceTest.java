@@ -0,0 +1,94 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.suyos.registration.config.RateLimitPolicy;
+import com.suyos.registration.service.RateLimitPolicyService;
+
+/**
+ * Unit tests for RateLimitPolicyService.
+ * 
+ * Tests binding of declared policies, the legacy fallback and reloads that
+ * keep unchanged policies.
+ * 
+ * @author Joel Salazar
+ */
+class RateLimitPolicyServiceTest {
+
+    /** Environment the policies are bound from */
+    private MockEnvironment environment;
+
+    /** RateLimitPolicyService instance under test */
+    private RateLimitPolicyService rateLimitPolicyService;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment();
+        rateLimitPolicyService = new RateLimitPolicyService(environment, new DefaultResourceLoader());
+    }
+
+    @Test
+    void init_FallsBackToLegacyLimits() {
+        environment.setProperty("app.rate-limit.ip.requests-per-minute", "20");
+
+        rateLimitPolicyService.init();
+
+        RateLimitPolicy[] policies = rateLimitPolicyService.match("GET", "/oauth2/authorization/google");
+        assertEquals(1, policies.length);
+        assertEquals(20, policies[0].getCapacity());
+        assertEquals(3, rateLimitPolicyService.getPolicies().size());
+    }
+
+    @Test
+    void init_BindsDeclaredPoliciesWithPlaceholders() {
+        environment.setProperty("app.rate-limit.user.requests-per-15-minutes", "7");
+        environment.setProperty("app.rate-limit.policies[0].name", "login-account");
+        environment.setProperty("app.rate-limit.policies[0].path", "/api/v1/auth/login");
+        environment.setProperty("app.rate-limit.policies[0].methods", "post");
+        environment.setProperty("app.rate-limit.policies[0].key", "ACCOUNT");
+        environment.setProperty("app.rate-limit.policies[0].capacity", "${app.rate-limit.user.requests-per-15-minutes}");
+        environment.setProperty("app.rate-limit.policies[0].refill-period", "15m");
+
+        rateLimitPolicyService.init();
+
+        RateLimitPolicy policy = rateLimitPolicyService.getPolicies().get(0);
+        assertEquals(List.of("POST"), policy.getMethods());
+        assertEquals(RateLimitPolicy.KeyType.ACCOUNT, policy.getKeyType());
+        assertEquals(7, policy.getCapacity());
+        assertEquals(Duration.ofMinutes(15), policy.getRefillPeriod());
+        assertEquals(0, rateLimitPolicyService.match("GET", "/api/v1/auth/login").length);
+    }
+
+    @Test
+    void reload_KeepsUnchangedPoliciesAndAppliesNewLimits() {
+        rateLimitPolicyService.init();
+        RateLimitPolicy loginAccount = rateLimitPolicyService.match("POST", "/api/v1/auth/login")[0];
+        RateLimitPolicy authIp = rateLimitPolicyService.match("GET", "/api/v1/auth/me")[0];
+
+        environment.setProperty("app.rate-limit.ip.requests-per-minute", "30");
+        rateLimitPolicyService.reload();
+
+        assertSame(loginAccount, rateLimitPolicyService.match("POST", "/api/v1/auth/login")[0]);
+        assertNotSame(authIp, rateLimitPolicyService.match("GET", "/api/v1/auth/me")[0]);
+        assertEquals(30, rateLimitPolicyService.match("GET", "/api/v1/auth/me")[0].getCapacity());
+    }
+
+    @Test
+    void reload_InvalidPoliciesKeepCurrentOnes() {
+        rateLimitPolicyService.init();
+        environment.setProperty("app.rate-limit.policies[0].name", "broken");
+        environment.setProperty("app.rate-limit.policies[0].path", "no-slash");
+        environment.setProperty("app.rate-limit.policies[0].capacity", "5");
+
+        assertThrows(IllegalArgumentException.class, rateLimitPolicyService::reload);
+        assertEquals(3, rateLimitPolicyService.getPolicies().size());
+    }
+}
@@ -0,0 +1,109 @@
+package com.suyos.registration.unit.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.suyos.registration.repository.UserRepository;
+import com.suyos.registration.service.SessionRevocationService;
+
+/**
+ * Unit tests for SessionRevocationService.
+ * 
+ * Tests the in-memory revoked-before timestamps used to revoke all of a
+ * user's tokens without querying the database on every request.
+ * 
+ * @author Joel Salazar
+ */
+@ExtendWith(MockitoExtension.class)
+class SessionRevocationServiceTest {
+
+    /** Mock repository for user data access operations */
+    @Mock
+    private UserRepository userRepository;
+
+    /** SessionRevocationService instance under test with injected mocks */
+    @InjectMocks
+    private SessionRevocationService sessionRevocationService;
+
+    /** Issue time of a token created one minute ago */
+    private Date issuedMinuteAgo;
+
+    @BeforeEach
+    void setUp() {
+        issuedMinuteAgo = new Date(System.currentTimeMillis() - 60000);
+    }
+
+    @Test
+    void isRevoked_LoadsTimestampOnce() {
+        long revokedBefore = issuedMinuteAgo.getTime() / 1000;
+        when(userRepository.findTokensRevokedBeforeById(1L)).thenReturn(Optional.of(revokedBefore));
+
+        assertFalse(sessionRevocationService.isRevoked(1L, issuedMinuteAgo));
+        assertFalse(sessionRevocationService.isRevoked(1L, new Date()));
+        assertTrue(sessionRevocationService.isRevoked(1L, new Date(issuedMinuteAgo.getTime() - 5000)));
+
+        verify(userRepository, times(1)).findTokensRevokedBeforeById(1L);
+    }
+
+    @Test
+    void isRevoked_UnknownUser() {
+        when(userRepository.findTokensRevokedBeforeById(99L)).thenReturn(Optional.empty());
+
+        assertTrue(sessionRevocationService.isRevoked(99L, new Date()));
+    }
+
+    @Test
+    void revokeAllSessions_PersistsTimestamp() {
+        sessionRevocationService.revokeAllSessions(1L);
+
+        verify(userRepository).updateTokensRevokedBefore(eq(1L), longThat(epoch -> epoch * 1000 > System.currentTimeMillis()));
+        assertTrue(sessionRevocationService.isRevoked(1L, issuedMinuteAgo));
+        verify(userRepository, never()).findTokensRevokedBeforeById(anyLong());
+    }
+
+    @Test
+    void isRevoked_RevocationOnOtherNode_SeenAfterTtl() {
+        AtomicLong stored = new AtomicLong();
+        when(userRepository.findTokensRevokedBeforeById(1L)).thenAnswer(invocation -> Optional.of(stored.get()));
+        doAnswer(invocation -> {
+            stored.set(invocation.getArgument(1));
+            return null;
+        }).when(userRepository).updateTokensRevokedBefore(eq(1L), anyLong());
+        SessionRevocationService otherNode = new SessionRevocationService(userRepository);
+        assertFalse(sessionRevocationService.isRevoked(1L, issuedMinuteAgo));
+
+        otherNode.revokeAllSessions(1L);
+        boolean revokedWithinTtl = sessionRevocationService.isRevoked(1L, issuedMinuteAgo);
+        ReflectionTestUtils.setField(sessionRevocationService, "ttlMillis", -1L);
+
+        assertFalse(revokedWithinTtl);
+        assertTrue(sessionRevocationService.isRevoked(1L, issuedMinuteAgo));
+        assertTrue(otherNode.isRevoked(1L, issuedMinuteAgo));
+    }
+
+    @Test
+    void evictExpired_ReloadsOnNextCheck() {
+        when(userRepository.findTokensRevokedBeforeById(1L)).thenReturn(Optional.of(0L));
+        sessionRevocationService.isRevoked(1L, issuedMinuteAgo);
+
+        sessionRevocationService.evictExpired();
+        sessionRevocationService.isRevoked(1L, issuedMinuteAgo);
+        ReflectionTestUtils.setField(sessionRevocationService, "ttlMillis", -1L);
+        sessionRevocationService.evictExpired();
+        sessionRevocationService.isRevoked(1L, issuedMinuteAgo);
+
+        verify(userRepository, times(2)).findTokensRevokedBeforeById(1L);
+    }
+}
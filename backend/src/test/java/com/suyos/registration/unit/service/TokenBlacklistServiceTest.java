@@ -10,9 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.suyos.registration.model.VerifiedToken;
 import com.suyos.registration.service.JwtService;
 import com.suyos.registration.service.TokenBlacklistService;
+import com.suyos.registration.service.TokenRevocationStore;
+
+import io.jsonwebtoken.JwtException;
 
 /**
  * Unit tests for TokenBlacklistService.
@@ -29,6 +34,10 @@ class TokenBlacklistServiceTest {
     @Mock
     private JwtService jwtService;
     
+    /** Mock durable store for persisted revocations */
+    @Mock
+    private TokenRevocationStore revocationStore;
+    
     /** TokenBlacklistService instance under test */
     private TokenBlacklistService tokenBlacklistService;
 
@@ -37,7 +46,7 @@ class TokenBlacklistServiceTest {
         tokenBlacklistService = new TokenBlacklistService(jwtService);
         
         // Mock JWT service to return future expiration date
-        when(jwtService.extractExpiration(anyString()))
+        lenient().when(jwtService.extractExpiration(anyString()))
             .thenReturn(new Date(System.currentTimeMillis() + 86400000)); // 24 hours from now
     }
 
@@ -83,7 +92,7 @@ class TokenBlacklistServiceTest {
 
     @Test
     void isTokenBlacklisted_NullToken() {
-        boolean isBlacklisted = tokenBlacklistService.isTokenBlacklisted(null);
+        boolean isBlacklisted = tokenBlacklistService.isTokenBlacklisted((String) null);
         
         assertFalse(isBlacklisted);
     }
@@ -91,7 +100,127 @@ class TokenBlacklistServiceTest {
     @Test
     void blacklistToken_NullToken() {
         assertDoesNotThrow(() -> {
-            tokenBlacklistService.blacklistToken(null);
+            tokenBlacklistService.blacklistToken((String) null);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void blacklistToken_UnverifiableToken_NotRevoked() {
+        TokenBlacklistService persistent = new TokenBlacklistService(jwtService, revocationStore);
+        when(jwtService.extractExpiration("forged.jwt.token")).thenThrow(new JwtException("Invalid JWT token"));
+        
+        persistent.blacklistToken("forged.jwt.token");
+        
+        assertFalse(persistent.isTokenBlacklisted("forged.jwt.token"));
+        assertEquals(0, persistent.getBlacklistSize());
+        verify(revocationStore, never()).append(anyString(), anyLong());
+    }
+
+    @Test
+    void blacklistToken_VerifiedToken() {
+        VerifiedToken verifiedToken = VerifiedToken.builder()
+                .token("test.jwt.token")
+                .subject("test@example.com")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .claims(java.util.Map.of())
+                .build();
+        
+        tokenBlacklistService.blacklistToken(verifiedToken);
+        
+        assertTrue(tokenBlacklistService.isTokenBlacklisted(verifiedToken));
+        assertTrue(tokenBlacklistService.isTokenBlacklisted("test.jwt.token"));
+        verify(jwtService, never()).extractExpiration(anyString());
+    }
+
+    @Test
+    void isTokenBlacklisted_VerifiedTokenNotBlacklisted() {
+        VerifiedToken verifiedToken = VerifiedToken.builder()
+                .token("test.jwt.other")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .claims(java.util.Map.of())
+                .build();
+        
+        tokenBlacklistService.blacklistToken("test.jwt.token");
+        
+        assertFalse(tokenBlacklistService.isTokenBlacklisted(verifiedToken));
+    }
+
+    @Test
+    void cleanupExpiredTokens_DropsExpiredBuckets() throws InterruptedException {
+        ReflectionTestUtils.setField(tokenBlacklistService, "bucketSeconds", 1L);
+        when(jwtService.extractExpiration("test.jwt.expiring"))
+            .thenReturn(new Date(System.currentTimeMillis() + 10));
+        
+        tokenBlacklistService.blacklistToken("test.jwt.expiring");
+        tokenBlacklistService.blacklistToken("test.jwt.token");
+        assertEquals(2, tokenBlacklistService.getBlacklistSize());
+        
+        Thread.sleep(1100);
+        tokenBlacklistService.cleanupExpiredTokens();
+        
+        assertEquals(1, tokenBlacklistService.getBlacklistSize());
+        assertFalse(tokenBlacklistService.isTokenBlacklisted("test.jwt.expiring"));
+        assertTrue(tokenBlacklistService.isTokenBlacklisted("test.jwt.token"));
+    }
+
+    @Test
+    void isTokenBlacklisted_BloomFilterMetrics() {
+        VerifiedToken revoked = VerifiedToken.builder()
+                .token("test.jwt.token")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .claims(java.util.Map.of())
+                .build();
+        
+        tokenBlacklistService.blacklistToken(revoked);
+        
+        assertTrue(tokenBlacklistService.isTokenBlacklisted(revoked));
+        assertTrue(tokenBlacklistService.getBloomMemoryBytes() > 0);
+        assertTrue(tokenBlacklistService.getBloomFalsePositiveRate() < 0.01);
+    }
+
+    @Test
+    void blacklistToken_PersistsNewRevocationsOnce() {
+        TokenBlacklistService persistent = new TokenBlacklistService(jwtService, revocationStore);
+        
+        persistent.blacklistToken("test.jwt.token");
+        persistent.blacklistToken("test.jwt.token");
+        
+        verify(revocationStore, times(1)).append(eq("token"), anyLong());
+    }
+
+    @Test
+    void loadPersistedRevocations_RestoresBlacklist() {
+        TokenBlacklistService persistent = new TokenBlacklistService(jwtService, revocationStore);
+        long expiresAt = System.currentTimeMillis() + 60000;
+        doAnswer(invocation -> {
+            java.util.function.ObjLongConsumer<String> consumer = invocation.getArgument(1);
+            consumer.accept("token", expiresAt);
+            return null;
+        }).when(revocationStore).loadUnexpired(anyLong(), any());
+        
+        persistent.loadPersistedRevocations();
+        
+        assertTrue(persistent.isTokenBlacklisted("test.jwt.token"));
+        assertEquals(1, persistent.getBlacklistSize());
+        verify(revocationStore, never()).append(anyString(), anyLong());
+    }
+
+    @Test
+    void syncReplicatedRevocations_AppliesRemoteRevocations() {
+        TokenBlacklistService persistent = new TokenBlacklistService(jwtService, revocationStore);
+        ReflectionTestUtils.setField(persistent, "replicationEnabled", true);
+        long now = System.currentTimeMillis();
+        doAnswer(invocation -> {
+            TokenRevocationStore.ChangeHandler handler = invocation.getArgument(0);
+            handler.accept("token", now + 60000, now);
+            handler.accept("expired", now - 1000, now - 2000);
+            return 2;
+        }).when(revocationStore).readChanges(any());
+        
+        persistent.syncReplicatedRevocations();
+        
+        assertTrue(persistent.isTokenBlacklisted("test.jwt.token"));
+        assertFalse(persistent.isTokenBlacklisted("test.jwt.expired"));
+        verify(revocationStore, never()).append(anyString(), anyLong());
+    }
+}
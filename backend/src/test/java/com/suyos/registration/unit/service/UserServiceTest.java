@@ -12,9 +12,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.suyos.registration.dto.UserProfileDTO;
 import com.suyos.registration.dto.UserUpdateDTO;
+import com.suyos.registration.event.UserAccountChangedEvent;
 import com.suyos.registration.mapper.UserMapper;
 import com.suyos.registration.model.User;
 import com.suyos.registration.repository.UserRepository;
@@ -39,6 +41,10 @@ class UserServiceTest {
     @Mock
     private UserMapper userMapper;
     
+    /** Mock publisher for account change events */
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     /** UserService instance under test with injected mocks */
     @InjectMocks
     private UserService userService;
@@ -131,6 +137,7 @@ class UserServiceTest {
         assertEquals("Updated", result.getFirstName());
         assertEquals("Name", result.getLastName());
         verify(userRepository).save(user);
+        verify(eventPublisher).publishEvent(new UserAccountChangedEvent("test@example.com"));
     }
 
     @Test
@@ -0,0 +1,65 @@
+package com.suyos.registration.unit.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.suyos.registration.util.BloomFilter;
+
+/**
+ * Unit tests for BloomFilter.
+ * 
+ * Tests membership answers, false positive behavior and hashing of
+ * character ranges used by the token blacklist.
+ * 
+ * @author Joel Salazar
+ */
+class BloomFilterTest {
+
+    @Test
+    void mightContain_RecordedKeys() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(BloomFilter.hash("token-" + i, 0));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(bloomFilter.mightContain(BloomFilter.hash("token-" + i, 0)));
+        }
+    }
+
+    @Test
+    void mightContain_FalsePositiveRateWithinBound() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put(BloomFilter.hash("token-" + i, 0));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (bloomFilter.mightContain(BloomFilter.hash("other-" + i, 0))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertTrue(bloomFilter.expectedFalsePositiveRate() < 0.03);
+    }
+
+    @Test
+    void mightContain_EmptyFilter() {
+        BloomFilter bloomFilter = new BloomFilter(100, 0.01);
+
+        assertFalse(bloomFilter.mightContain(BloomFilter.hash("token", 0)));
+        assertEquals(0.0, bloomFilter.expectedFalsePositiveRate());
+        assertTrue(bloomFilter.memoryBytes() > 0);
+    }
+
+    @Test
+    void hash_RangeMatchesSubstring() {
+        String token = "header.payload.signature";
+
+        assertEquals(BloomFilter.hash("signature", 0), BloomFilter.hash(token, token.lastIndexOf('.') + 1));
+    }
+}
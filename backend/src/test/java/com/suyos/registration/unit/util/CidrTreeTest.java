@@ -0,0 +1,88 @@
+package com.suyos.registration.unit.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.suyos.registration.util.CidrTree;
+import com.suyos.registration.util.IpAddressParser;
+
+/**
+ * Unit tests for CidrTree.
+ * 
+ * Tests longest-prefix matching over IPv4 and IPv6 ranges, including
+ * branch splits and replaced ranges.
+ * 
+ * @author Joel Salazar
+ */
+class CidrTreeTest {
+
+    /** Buffer receiving parsed ranges and addresses */
+    private final long[] buffer = new long[3];
+
+    @Test
+    void match_ReturnsMostSpecificIpv4Range() {
+        CidrTree<String> tree = new CidrTree<>();
+        put(tree, "10.0.0.0/8", "a");
+        put(tree, "10.1.0.0/16", "b");
+        put(tree, "10.1.2.3", "c");
+        put(tree, "10.128.0.0/9", "d");
+
+        assertEquals("a", match(tree, "10.0.0.1"));
+        assertEquals("b", match(tree, "10.1.2.4"));
+        assertEquals("c", match(tree, "10.1.2.3"));
+        assertEquals("d", match(tree, "10.200.0.1"));
+        assertNull(match(tree, "11.0.0.1"));
+        assertNull(match(tree, "2001:db8::1"));
+        assertEquals(4, tree.size());
+    }
+
+    @Test
+    void match_SplitsBranchesInAnyInsertionOrder() {
+        CidrTree<String> tree = new CidrTree<>();
+        put(tree, "192.168.1.0/24", "x");
+        put(tree, "192.168.0.0/16", "y");
+        put(tree, "0.0.0.0/0", "z");
+
+        assertEquals("x", match(tree, "192.168.1.200"));
+        assertEquals("y", match(tree, "192.168.2.1"));
+        assertEquals("z", match(tree, "8.8.8.8"));
+    }
+
+    @Test
+    void match_ReturnsMostSpecificIpv6Range() {
+        CidrTree<String> tree = new CidrTree<>();
+        put(tree, "2001:db8::/32", "a");
+        put(tree, "2001:db8:1::/48", "b");
+        put(tree, "2001:db8:1:0:8000::/65", "c");
+        put(tree, "2001:db8:1::1", "d");
+
+        assertEquals("a", match(tree, "2001:db8:2::1"));
+        assertEquals("b", match(tree, "2001:db8:1::2"));
+        assertEquals("c", match(tree, "2001:db8:1:0:8000::1"));
+        assertEquals("d", match(tree, "2001:db8:1::1"));
+        assertNull(match(tree, "2001:db9::1"));
+        assertNull(match(tree, "10.0.0.1"));
+    }
+
+    @Test
+    void put_ReplacesIdenticalRange() {
+        CidrTree<String> tree = new CidrTree<>();
+
+        assertNull(put(tree, "10.0.0.0/8", "a"));
+        assertEquals("a", put(tree, "10.1.2.3/8", "b"));
+
+        assertEquals("b", match(tree, "10.9.9.9"));
+        assertEquals(1, tree.size());
+    }
+
+    private String put(CidrTree<String> tree, String cidr, String value) {
+        int family = IpAddressParser.parseCidr(cidr, buffer);
+        return tree.put(family, buffer[0], buffer[1], (int) buffer[2], value);
+    }
+
+    private String match(CidrTree<String> tree, String address) {
+        int family = IpAddressParser.parse(address, 0, address.length(), buffer);
+        return tree.match(family, buffer[0], buffer[1]);
+    }
+}
@@ -0,0 +1,98 @@
+package com.suyos.registration.unit.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.suyos.registration.util.IpAddressParser;
+
+/**
+ * Unit tests for IpAddressParser.
+ * 
+ * Tests parsing of IPv4 and IPv6 notations into packed primitives and
+ * rejection of malformed addresses.
+ * 
+ * @author Joel Salazar
+ */
+class IpAddressParserTest {
+
+    /** Output buffer for the parsed address */
+    private final long[] out = new long[2];
+
+    @Test
+    void parse_Ipv4WithWhitespaceAndPort() {
+        String header = " 203.0.113.7:8080 , 10.0.0.1";
+
+        assertEquals(IpAddressParser.IPV4, IpAddressParser.parse(header, 0, header.indexOf(','), out));
+        assertEquals(0L, out[0]);
+        assertEquals(0xCB007107L, out[1]);
+    }
+
+    @Test
+    void parse_Ipv6CompressedForms() {
+        assertEquals(IpAddressParser.IPV6, parse("2001:db8::1"));
+        assertEquals(0x20010DB800000000L, out[0]);
+        assertEquals(1L, out[1]);
+
+        assertEquals(IpAddressParser.IPV6, parse("[2001:db8:0:0:1::]:443"));
+        assertEquals(0x20010DB800000000L, out[0]);
+        assertEquals(0x0001000000000000L, out[1]);
+
+        assertEquals(IpAddressParser.IPV6, parse("fe80::1%eth0"));
+        assertEquals(0xFE80000000000000L, out[0]);
+        assertEquals(1L, out[1]);
+
+        assertEquals(IpAddressParser.IPV6, parse("::"));
+        assertEquals(0L, out[0]);
+        assertEquals(0L, out[1]);
+    }
+
+    @Test
+    void parse_FullAndIpv4SuffixedIpv6() {
+        assertEquals(IpAddressParser.IPV6, parse("2001:0db8:85a3:0000:0000:8a2e:0370:7334"));
+        assertEquals(0x20010DB885A30000L, out[0]);
+        assertEquals(0x00008A2E03707334L, out[1]);
+
+        assertEquals(IpAddressParser.IPV6, parse("64:ff9b::192.0.2.33"));
+        assertEquals(0x0064FF9B00000000L, out[0]);
+        assertEquals(0xC0000221L, out[1]);
+    }
+
+    @Test
+    void parse_MappedIpv4ReportedAsIpv4() {
+        assertEquals(IpAddressParser.IPV4, parse("::ffff:192.0.2.1"));
+        assertEquals(0L, out[0]);
+        assertEquals(0xC0000201L, out[1]);
+    }
+
+    @Test
+    void parse_RejectsMalformedAddresses() {
+        for (String text : new String[] {"", "unknown", "256.1.1.1", "1.2.3", "1.2.3.4.5", "1.2.3.4:", "1:2:3:4:5:6:7",
+                "1::2::3", "12345::1", "1:2:3:4:5:6:7:8:9", ":1::", "1:", "[::1", "[::1]:x"}) {
+            assertEquals(IpAddressParser.INVALID, parse(text), text);
+        }
+    }
+
+    @Test
+    void parseCidr_ClearsHostBits() {
+        long[] range = new long[3];
+
+        assertEquals(IpAddressParser.IPV4, IpAddressParser.parseCidr("10.1.2.3/8", range));
+        assertEquals(0x0A000000L, range[1]);
+        assertEquals(8L, range[2]);
+
+        assertEquals(IpAddressParser.IPV6, IpAddressParser.parseCidr("2001:db8:1:2::1/36", range));
+        assertEquals(0x20010DB800000000L, range[0]);
+        assertEquals(0L, range[1]);
+        assertEquals(36L, range[2]);
+
+        assertEquals(IpAddressParser.IPV4, IpAddressParser.parseCidr("192.0.2.1", range));
+        assertEquals(32L, range[2]);
+        assertEquals(IpAddressParser.INVALID, IpAddressParser.parseCidr("10.0.0.0/33", range));
+        assertEquals(IpAddressParser.INVALID, IpAddressParser.parseCidr("10.0.0.0/", range));
+    }
+
+    private int parse(String text) {
+        return IpAddressParser.parse(text, 0, text.length(), out);
+    }
+}
@@ -0,0 +1,99 @@
+package com.suyos.registration.unit.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.suyos.registration.util.LongLongConcurrentMap;
+
+/**
+ * Unit tests for LongLongConcurrentMap.
+ * 
+ * Tests lookups, merging, growth and removal of the primitive-keyed map used for
+ * per-user revocation timestamps.
+ * 
+ * @author Joel Salazar
+ */
+class LongLongConcurrentMapTest {
+
+    @Test
+    void get_AbsentKeyReturnsDefault() {
+        LongLongConcurrentMap map = new LongLongConcurrentMap(16);
+
+        assertEquals(-1L, map.get(42L, -1L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void merge_StoresAndCombinesValues() {
+        LongLongConcurrentMap map = new LongLongConcurrentMap(16);
+
+        assertEquals(10L, map.merge(1L, 10L, Math::max));
+        assertEquals(10L, map.merge(1L, 5L, Math::max));
+        assertEquals(20L, map.merge(1L, 20L, Math::max));
+
+        assertEquals(20L, map.get(1L, -1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void merge_GrowsBeyondExpectedSize() {
+        LongLongConcurrentMap map = new LongLongConcurrentMap(2);
+
+        for (long key = 1; key <= 10000; key++) {
+            map.merge(key, key * 3, Math::max);
+        }
+
+        assertEquals(10000, map.size());
+        for (long key = 1; key <= 10000; key++) {
+            assertEquals(key * 3, map.get(key, -1L));
+        }
+        assertEquals(-1L, map.get(10001L, -1L));
+    }
+
+    @Test
+    void mergeIfAtMost_RejectsAboveCeiling() {
+        LongLongConcurrentMap map = new LongLongConcurrentMap(2);
+
+        assertEquals(10L, map.mergeIfAtMost(1L, 10L, 0L, Long::sum, 4));
+        assertEquals(15L, map.mergeIfAtMost(1L, 5L, 10L, Long::sum, 4));
+        assertEquals(~15L, map.mergeIfAtMost(1L, 5L, 14L, Long::sum, 4));
+
+        assertEquals(15L, map.get(1L, -1L));
+    }
+
+    @Test
+    void mergeIfAtMost_FullMapEvictsLowestValues() {
+        LongLongConcurrentMap map = new LongLongConcurrentMap(2);
+
+        for (long key = 1; key <= 10; key++) {
+            map.mergeIfAtMost(key, key * 10, Long.MAX_VALUE, Math::max, 4);
+        }
+
+        assertTrue(map.size() <= 4);
+        assertEquals(100L, map.get(10L, -1L));
+        assertEquals(-1L, map.get(1L, -1L));
+    }
+
+    @Test
+    void removeIf_RemovesMatchingEntries() {
+        LongLongConcurrentMap map = new LongLongConcurrentMap(2);
+        for (long key = 1; key <= 1000; key++) {
+            map.merge(key, key, Math::max);
+        }
+
+        assertEquals(900, map.removeIf((key, value) -> value > 100));
+
+        assertEquals(100, map.size());
+        assertEquals(100L, map.get(100L, -1L));
+        assertEquals(-1L, map.get(101L, -1L));
+        assertEquals(0, map.removeIf((key, value) -> false));
+    }
+
+    @Test
+    void get_ReservedKeyRejected() {
+        LongLongConcurrentMap map = new LongLongConcurrentMap(16);
+
+        assertThrows(IllegalArgumentException.class, () -> map.get(0L, -1L));
+    }
+}